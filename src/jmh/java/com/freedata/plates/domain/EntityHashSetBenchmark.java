@@ -0,0 +1,108 @@
+package com.freedata.plates.domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares relationship sets of the domain entities, whose hash codes come from their {@code uuid}, with the constant
+ * hash code they used to have.
+ * <p>
+ * With a constant hash code every element of a {@link HashSet} lands in the same bucket, and since entities are not
+ * {@link Comparable} the bucket degrades to a linear scan: filling a set costs quadratic time and a lookup linear time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityHashSetBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private Plate[] plates;
+
+    private ConstantHashPlate[] constantHashPlates;
+
+    private Set<Plate> plateSet;
+
+    private Set<ConstantHashPlate> constantHashPlateSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plates = new Plate[size];
+        constantHashPlates = new ConstantHashPlate[size];
+        for (int i = 0; i < size; i++) {
+            plates[i] = new Plate();
+            plates[i].setId((long) i);
+            constantHashPlates[i] = new ConstantHashPlate((long) i);
+        }
+        plateSet = fill(plates);
+        constantHashPlateSet = fill(constantHashPlates);
+    }
+
+    @Benchmark
+    public Set<Plate> addUuidHash() {
+        return fill(plates);
+    }
+
+    @Benchmark
+    public Set<ConstantHashPlate> addConstantHash() {
+        return fill(constantHashPlates);
+    }
+
+    @Benchmark
+    public void containsUuidHash(Blackhole blackhole) {
+        for (Plate plate : plates) {
+            blackhole.consume(plateSet.contains(plate));
+        }
+    }
+
+    @Benchmark
+    public void containsConstantHash(Blackhole blackhole) {
+        for (ConstantHashPlate plate : constantHashPlates) {
+            blackhole.consume(constantHashPlateSet.contains(plate));
+        }
+    }
+
+    private static <T> Set<T> fill(T[] elements) {
+        Set<T> set = new HashSet<>();
+        for (T element : elements) {
+            set.add(element);
+        }
+        return set;
+    }
+
+    /**
+     * The former identity of the entities: equal when their ids are, with a constant hash code.
+     */
+    static final class ConstantHashPlate {
+
+        private final Long id;
+
+        ConstantHashPlate(Long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConstantHashPlate)) {
+                return false;
+            }
+            return id != null && id.equals(((ConstantHashPlate) o).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31;
+        }
+    }
+}
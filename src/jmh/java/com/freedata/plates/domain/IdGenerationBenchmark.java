@@ -0,0 +1,118 @@
+package com.freedata.plates.domain;
+
+import org.h2.tools.Server;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.*;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the insert throughput of identity columns with the pooled-lo sequence used by the domain entities.
+ * <p>
+ * Both entities are inserted through Hibernate with the batch settings of {@code application.yml}. With
+ * {@link GenerationType#IDENTITY}, Hibernate has to execute every insert on its own to read back the generated key;
+ * with the sequence, ids are handed out in blocks of 50 and the inserts are sent as JDBC batches. The gap widens with
+ * the round-trip time to the database: by default an H2 server is started on the loopback interface so that every
+ * statement pays for a socket round-trip, and it can be run against MariaDB as well, e.g.
+ * {@code -p jdbcUrl=jdbc:mariadb://localhost:3306/bench}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int BATCH_SIZE = 25;
+
+    private static final String H2_SERVER_PORT = "9093";
+
+    @Param("jdbc:h2:tcp://localhost:" + H2_SERVER_PORT + "/mem:id-generation-benchmark;DB_CLOSE_DELAY=-1")
+    private String jdbcUrl;
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private SessionFactory sessionFactory;
+
+    private Server h2Server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if (jdbcUrl.startsWith("jdbc:h2:tcp:")) {
+            h2Server = Server.createTcpServer("-tcpPort", H2_SERVER_PORT, "-ifNotExists").start();
+        }
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(IdentityRow.class)
+            .addAnnotatedClass(SequenceRow.class)
+            .setProperty(AvailableSettings.URL, jdbcUrl)
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+            .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+            .setProperty(AvailableSettings.USE_NEW_ID_GENERATOR_MAPPINGS, "true")
+            .setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo")
+            .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        if (h2Server != null) {
+            h2Server.stop();
+        }
+    }
+
+    @Benchmark
+    public void identity() {
+        insert(IdentityRow::new);
+    }
+
+    @Benchmark
+    public void pooledLoSequence() {
+        insert(SequenceRow::new);
+    }
+
+    private void insert(Supplier<Object> factory) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 1; i <= rows; i++) {
+                session.persist(factory.get());
+                if (i % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @Entity
+    @Table(name = "identity_row")
+    public static class IdentityRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private String title = "AAAAAAAAAA";
+    }
+
+    @Entity
+    @Table(name = "sequence_row")
+    public static class SequenceRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+        @SequenceGenerator(name = "sequenceGenerator", sequenceName = "sequence_generator")
+        private Long id;
+
+        private String title = "AAAAAAAAAA";
+    }
+}
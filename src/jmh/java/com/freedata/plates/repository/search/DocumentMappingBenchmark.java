@@ -0,0 +1,152 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.ElasticsearchConfiguration;
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.gson.Gson;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.Index;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways documents are mapped for Elasticsearch, on plates with their person, department and notes, and
+ * on people with their plates.
+ * <p>
+ * The {@code *ThroughString} benchmarks are what the {@link CustomEntityMapper} used to do: write the JSON of the
+ * source and parse it again. {@code bulkOfStrings} is how {@link SearchIndexer} used to build its requests, a string
+ * per document copied into the body by Jest, and {@code streamingBulk} how {@link StreamingBulk} writes them all with
+ * one generator. Run with {@code -prof gc} for the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentMappingBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    private ObjectMapper objectMapper;
+
+    private CustomEntityMapper entityMapper;
+
+    private Gson gson;
+
+    private Plate plate;
+
+    private Person person;
+
+    private Map<String, Object> plateDocument;
+
+    private List<Plate> plates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(new Jdk8Module())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        entityMapper = new ElasticsearchConfiguration(objectMapper).getEntityMapper();
+        gson = new Gson();
+        Department department = new Department().departmentName("Registrations");
+        department.setId(7L);
+        plates = new ArrayList<>();
+        for (long i = 0; i < BULK_SIZE; i++) {
+            plates.add(plate(i, department));
+        }
+        plate = plates.get(0);
+        person = plate.getPerson();
+        for (int i = 1; i < 5; i++) {
+            person.addPlate(plates.get(i));
+        }
+        plateDocument = entityMapper.mapObject(plate);
+    }
+
+    private static Plate plate(long id, Department department) {
+        Person person = new Person()
+            .firstName("Firstname" + id)
+            .lastName("Lastname" + id)
+            .email("person" + id + "@example.com")
+            .phoneNumber("+33 1 23 45 67 " + (id % 100))
+            .hireDate(Instant.parse("2019-03-14T09:26:53.589793Z").plusSeconds(id * 86400))
+            .salary(30000L + id)
+            .commissionPct(id % 30)
+            .department(department);
+        person.setId(1000 + id);
+        Plate plate = new Plate().plateTitle("AB-" + id + "-CD registered in the district of the prefecture").person(person);
+        plate.setId(id);
+        for (long n = 0; n < 3; n++) {
+            Note note = new Note().title("Note " + n).description("Observed at the checkpoint on the northern road, " +
+                "the plate was readable and the vehicle matched the registration.");
+            note.setId(id * 10 + n);
+            plate.addNote(note);
+        }
+        return plate;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> mapObjectThroughString() throws IOException {
+        return objectMapper.readValue(entityMapper.mapToString(plate), HashMap.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapObject() {
+        return entityMapper.mapObject(plate);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> mapPersonThroughString() throws IOException {
+        return objectMapper.readValue(entityMapper.mapToString(person), HashMap.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapPerson() {
+        return entityMapper.mapObject(person);
+    }
+
+    @Benchmark
+    public Plate readObjectThroughString() throws IOException {
+        return entityMapper.mapToObject(entityMapper.mapToString(plateDocument), Plate.class);
+    }
+
+    @Benchmark
+    public Plate readObject() {
+        return entityMapper.readObject(plateDocument, Plate.class);
+    }
+
+    @Benchmark
+    public String bulkOfStrings() throws IOException {
+        Bulk.Builder bulk = new Bulk.Builder();
+        for (Plate each : plates) {
+            bulk.addAction(new Index.Builder(entityMapper.mapToString(each)).index("plate").type("plate")
+                .id(each.getId().toString()).build());
+        }
+        return bulk.build().getData(gson);
+    }
+
+    @Benchmark
+    public String streamingBulk() {
+        StreamingBulk.Builder bulk = new StreamingBulk.Builder(entityMapper.writer());
+        for (Plate each : plates) {
+            bulk.index("plate", "plate", each.getId().toString(), each);
+        }
+        return bulk.build().getData(gson);
+    }
+}
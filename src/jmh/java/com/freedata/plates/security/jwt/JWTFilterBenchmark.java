@@ -0,0 +1,76 @@
+package com.freedata.plates.security.jwt;
+
+import com.freedata.plates.security.AuthoritiesConstants;
+import io.github.freedata.config.freedataProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.security.Key;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the ways {@link JWTFilter} turns the token of a request into an authentication.
+ * <p>
+ * {@code parseTwice} is what the filter used to do: a parser built to validate the token, and another one built to
+ * read its claims. {@code parseOnce} verifies the token once with the parser of the {@link TokenProvider}, which is
+ * what happens on a cache miss. {@code cached} is the usual case of a client sending the same token again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTFilterBenchmark {
+
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private TokenProvider tokenProvider;
+
+    private Key key;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        freedataProperties freedataProperties = new freedataProperties();
+        freedataProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        tokenProvider = new TokenProvider(freedataProperties);
+        tokenProvider.init();
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BASE64_SECRET));
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "", Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))), false);
+    }
+
+    @Benchmark
+    public Authentication parseTwice() {
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(claims.get("auth").toString().split(","))
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+        return new UsernamePasswordAuthenticationToken(new User(claims.getSubject(), "", authorities), token, authorities);
+    }
+
+    @Benchmark
+    public Authentication parseOnce() {
+        return tokenProvider.authenticate(token).toAuthentication(token);
+    }
+
+    @Benchmark
+    public Optional<Authentication> cached() {
+        return tokenProvider.resolveAuthentication(token);
+    }
+}
@@ -2,6 +2,9 @@ package com.freedata.plates.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Properties specific to Plates.
  * <p>
@@ -10,4 +13,494 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Export export = new Export();
+
+    private final Datasource datasource = new Datasource();
+
+    private final Cache cache = new Cache();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    private final BatchJobs batchJobs = new BatchJobs();
+
+    private final SearchIndexing searchIndexing = new SearchIndexing();
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Datasource getDatasource() {
+        return datasource;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public BatchJobs getBatchJobs() {
+        return batchJobs;
+    }
+
+    public SearchIndexing getSearchIndexing() {
+        return searchIndexing;
+    }
+
+    public static class BulkImport {
+
+        /**
+         * Number of rows written per transaction. Should be a multiple of {@code hibernate.jdbc.batch_size}.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Maximum number of id ranges an export can be split in, each read by its own thread and connection.
+         */
+        private int maxPartitions = 4;
+
+        public int getMaxPartitions() {
+            return maxPartitions;
+        }
+
+        public void setMaxPartitions(int maxPartitions) {
+            this.maxPartitions = maxPartitions;
+        }
+    }
+
+    public static class Datasource {
+
+        private final Replica replica = new Replica();
+
+        public Replica getReplica() {
+            return replica;
+        }
+
+        /**
+         * Optional read replica of {@code spring.datasource}. When an url is set, read-only transactions are routed to it.
+         * The pool starts from the settings of the primary pool, overridden by the properties set here.
+         */
+        public static class Replica {
+
+            private String url;
+
+            /**
+             * Defaults to the username of the primary datasource.
+             */
+            private String username;
+
+            /**
+             * Defaults to the password of the primary datasource.
+             */
+            private String password;
+
+            private String poolName = "HikariReplica";
+
+            /**
+             * Defaults to the size of the primary pool.
+             */
+            private Integer maximumPoolSize;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+
+            public String getPoolName() {
+                return poolName;
+            }
+
+            public void setPoolName(String poolName) {
+                this.poolName = poolName;
+            }
+
+            public Integer getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(Integer maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Directory of the disk tiers, emptied at each start.
+         */
+        private String diskPath = System.getProperty("java.io.tmpdir") + "/plates-cache";
+
+        /**
+         * Settings of the cache regions, by cache name. They default to {@code freedata.cache.ehcache}.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public String getDiskPath() {
+            return diskPath;
+        }
+
+        public void setDiskPath(String diskPath) {
+            this.diskPath = diskPath;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        public static class Region {
+
+            /**
+             * Number of entries kept on the heap.
+             */
+            private Long maxEntries;
+
+            private Integer timeToLiveSeconds;
+
+            /**
+             * Size of the off-heap tier, allocated up front. 0 for none.
+             */
+            private long offHeapSizeMb;
+
+            /**
+             * Size of the disk tier, larger than the off-heap one. 0 for none.
+             */
+            private long diskSizeMb;
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public long getOffHeapSizeMb() {
+                return offHeapSizeMb;
+            }
+
+            public void setOffHeapSizeMb(long offHeapSizeMb) {
+                this.offHeapSizeMb = offHeapSizeMb;
+            }
+
+            public long getDiskSizeMb() {
+                return diskSizeMb;
+            }
+
+            public void setDiskSizeMb(long diskSizeMb) {
+                this.diskSizeMb = diskSizeMb;
+            }
+        }
+
+        public static class Invalidation {
+
+            /**
+             * Broadcasts the evictions of this instance to the other ones, see {@code CacheInvalidationConfiguration}.
+             */
+            private boolean enabled;
+
+            /**
+             * Delay between two exchanges with the other instances, an upper bound of how long they serve stale entries.
+             */
+            private long pollIntervalMs = 1000;
+
+            /**
+             * How far back each poll looks, covering transactions committing out of order and clock skew between
+             * instances.
+             */
+            private int lookbackSeconds = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getPollIntervalMs() {
+                return pollIntervalMs;
+            }
+
+            public void setPollIntervalMs(long pollIntervalMs) {
+                this.pollIntervalMs = pollIntervalMs;
+            }
+
+            public int getLookbackSeconds() {
+                return lookbackSeconds;
+            }
+
+            public void setLookbackSeconds(int lookbackSeconds) {
+                this.lookbackSeconds = lookbackSeconds;
+            }
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * BCrypt work factor: each increment doubles the time of a hash. Existing hashes keep their own.
+         */
+        private int strength = 10;
+
+        /**
+         * Threads hashing passwords, out of the web server threads.
+         */
+        private int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+        /**
+         * Hashes waiting for a thread, beyond which requests get a 503 at once.
+         */
+        private int queueCapacity = 50;
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public void setStrength(int strength) {
+            this.strength = strength;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class AuditEvents {
+
+        /**
+         * What to do with an audit event when the queue is full.
+         */
+        public enum OverflowPolicy {
+            /**
+             * Writes the event on the thread which raised it, as if there were no queue.
+             */
+            CALLER_RUNS,
+            /**
+             * Drops the event.
+             */
+            DROP_NEWEST,
+            /**
+             * Drops the oldest event of the queue to make room for this one.
+             */
+            DROP_OLDEST
+        }
+
+        /**
+         * Audit events waiting to be written.
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * Audit events written per transaction.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Longest time an audit event waits for its batch to fill up.
+         */
+        private long flushIntervalMs = 1000;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
+    public static class BatchJobs {
+
+        /**
+         * Items read and processed per transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Most items processed per second by a job, 0 for no limit.
+         */
+        private int maxItemsPerSecond = 0;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxItemsPerSecond() {
+            return maxItemsPerSecond;
+        }
+
+        public void setMaxItemsPerSecond(int maxItemsPerSecond) {
+            this.maxItemsPerSecond = maxItemsPerSecond;
+        }
+    }
+
+    public static class SearchIndexing {
+
+        /**
+         * Drains the search outbox into Elasticsearch, see {@code SearchIndexer}. Without it, nothing gets indexed.
+         */
+        private boolean enabled;
+
+        /**
+         * Delay between two drains of the outbox, once it is empty.
+         */
+        private long pollIntervalMs = 500;
+
+        /**
+         * Outbox rows read per Elasticsearch bulk request.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Id ranges read in parallel by a full reindex, see {@code SearchReindexer}.
+         */
+        private int reindexWorkers = 4;
+
+        /**
+         * Entities read per Elasticsearch bulk request by a full reindex.
+         */
+        private int reindexBatchSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getReindexWorkers() {
+            return reindexWorkers;
+        }
+
+        public void setReindexWorkers(int reindexWorkers) {
+            this.reindexWorkers = reindexWorkers;
+        }
+
+        public int getReindexBatchSize() {
+            return reindexBatchSize;
+        }
+
+        public void setReindexBatchSize(int reindexBatchSize) {
+            this.reindexBatchSize = reindexBatchSize;
+        }
+    }
 }
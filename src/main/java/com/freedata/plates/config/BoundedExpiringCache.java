@@ -0,0 +1,78 @@
+package com.freedata.plates.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory cache of at most a given number of entries, each kept until its own expiration.
+ * <p>
+ * Once full, each new entry evicts the least recently used one, so that no read or write ever scans the entries.
+ * Expired entries are dropped when read, or evicted as the least recently used ones.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class BoundedExpiringCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, Expiring<V>> entries;
+
+    /**
+     * @param maxSize the number of entries past which the least recently used one is evicted.
+     */
+    public BoundedExpiringCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, Expiring<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Expiring<V>> eldest) {
+                return size() > BoundedExpiringCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param key the key.
+     * @param now the current time, in milliseconds since the epoch.
+     * @return the value of the key, or {@code null} if there is none or it expired.
+     */
+    public synchronized V get(K key, long now) {
+        Expiring<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiration <= now) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @param key the key.
+     * @param value the value.
+     * @param expiration the time the value expires, in milliseconds since the epoch.
+     */
+    public synchronized void put(K key, V value, long expiration) {
+        entries.put(key, new Expiring<>(value, expiration));
+    }
+
+    /**
+     * @return the number of entries, expired ones included.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Expiring<V> {
+
+        private final V value;
+
+        private final long expiration;
+
+        private Expiring(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
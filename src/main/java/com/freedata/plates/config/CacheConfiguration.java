@@ -1,13 +1,23 @@
 package com.freedata.plates.config;
 
+import java.io.File;
+import java.net.URI;
 import java.time.Duration;
+import java.util.UUID;
+
+import javax.cache.Caching;
 
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 
 import org.hibernate.cache.jcache.ConfigSettings;
 import io.github.freedata.config.freedataProperties;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
@@ -18,23 +28,62 @@ import io.github.freedata.config.cache.PrefixedKeyGenerator;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 
+/**
+ * Ehcache regions, sized from {@code freedata.cache.ehcache} and overridden per region by
+ * {@code application.cache.regions}, where large regions can add off-heap and disk tiers.
+ * <p>
+ * Statistics are enabled on every region, so that Spring Boot reports their {@code cache.gets}, {@code cache.puts}
+ * and {@code cache.evictions} metrics.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
+    private static final ApplicationProperties.Cache.Region DEFAULT_REGION = new ApplicationProperties.Cache.Region();
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final freedataProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cache;
 
-    public CacheConfiguration(freedataProperties freedataProperties) {
-        freedataProperties.Cache.Ehcache ehcache = freedataProperties.getCache().getEhcache();
+    public CacheConfiguration(freedataProperties freedataProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = freedataProperties.getCache().getEhcache();
+        this.cache = applicationProperties.getCache();
+    }
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().getOrDefault(cacheName, DEFAULT_REGION);
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(region.getMaxEntries() != null ? region.getMaxEntries() : ehcache.getMaxEntries());
+        if (region.getOffHeapSizeMb() > 0) {
+            resourcePools = resourcePools.offheap(region.getOffHeapSizeMb(), MemoryUnit.MB);
+        }
+        if (region.getDiskSizeMb() > 0) {
+            resourcePools = resourcePools.disk(region.getDiskSizeMb(), MemoryUnit.MB, false);
+        }
+        int timeToLiveSeconds = region.getTimeToLiveSeconds() != null ? region.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
                 .build());
     }
 
+    /**
+     * Replaces the cache manager of Spring Boot, as disk tiers need a persistence directory configured on the Ehcache
+     * manager itself.
+     * <p>
+     * Each application context gets a manager of its own rather than the default one of the JVM, so that closing a
+     * context does not close the caches of another, and two instances started in one JVM do not share their caches.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration = cache.getRegions().values().stream().anyMatch(region -> region.getDiskSizeMb() > 0)
+            ? new DefaultConfiguration(provider.getDefaultClassLoader(), new CacheManagerPersistenceConfiguration(new File(cache.getDiskPath())))
+            : new DefaultConfiguration(provider.getDefaultClassLoader());
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(URI.create(provider.getDefaultURI() + "/" + UUID.randomUUID()), configuration);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
+    }
+
     @Bean
     public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
         return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
@@ -67,8 +116,9 @@ public class CacheConfiguration {
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache == null) {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, jcacheConfiguration(cacheName));
         }
+        cm.enableStatistics(cacheName, true);
     }
 
     @Autowired(required = false)
@@ -0,0 +1,51 @@
+package com.freedata.plates.config;
+
+import java.util.Objects;
+
+/**
+ * An entry, or a whole cache when the key is {@code null}, that the other instances must evict.
+ */
+public final class CacheInvalidation {
+
+    private final String cacheName;
+
+    private final Object key;
+
+    public CacheInvalidation(String cacheName, Object key) {
+        this.cacheName = Objects.requireNonNull(cacheName);
+        this.key = key;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheInvalidation)) {
+            return false;
+        }
+        CacheInvalidation that = (CacheInvalidation) o;
+        return cacheName.equals(that.cacheName) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cacheName, key);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{" +
+            "cacheName='" + cacheName + "'" +
+            ", key=" + key +
+            "}";
+    }
+}
@@ -0,0 +1,21 @@
+package com.freedata.plates.config;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between the instances of the application.
+ * <p>
+ * {@link JdbcCacheInvalidationBus} is used unless another implementation is declared as a bean.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Sends an invalidation to the other instances. Must not block, as it is called from cache operations.
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Registers a consumer of the invalidations sent by the other instances, never of the ones of this instance.
+     */
+    void subscribe(Consumer<CacheInvalidation> subscriber);
+}
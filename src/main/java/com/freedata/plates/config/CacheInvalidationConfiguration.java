@@ -0,0 +1,36 @@
+package com.freedata.plates.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.cache.CacheManager;
+
+/**
+ * Keeps the caches of several instances of the application consistent, when {@code application.cache.invalidation.enabled}
+ * is set: what one instance updates or evicts is evicted from the others, see {@link CacheInvalidator}.
+ * <p>
+ * The invalidations go through the database by default, see {@link JdbcCacheInvalidationBus}. Declaring another
+ * {@link CacheInvalidationBus} bean replaces it.
+ */
+@Configuration
+@ConditionalOnProperty("application.cache.invalidation.enabled")
+public class CacheInvalidationConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(CacheInvalidationBus.class)
+    public JdbcCacheInvalidationBus cacheInvalidationBus(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        return new JdbcCacheInvalidationBus(jdbcTemplate, transactionManager, applicationProperties.getCache().getInvalidation(),
+            meterRegistry);
+    }
+
+    @Bean
+    public CacheInvalidator cacheInvalidator(CacheManager cacheManager, CacheInvalidationBus cacheInvalidationBus) {
+        return new CacheInvalidator(cacheManager, cacheInvalidationBus);
+    }
+}
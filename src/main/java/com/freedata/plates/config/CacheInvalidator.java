@@ -0,0 +1,82 @@
+package com.freedata.plates.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes the updates and removals of the local caches on a {@link CacheInvalidationBus}, and evicts what the
+ * other instances publish.
+ * <p>
+ * Hibernate updates its regions, entities and collections alike, when an entity changes and again after the commit,
+ * and {@code UserService} evicts the user caches, so listening to the caches catches every change whatever its origin.
+ * Entries created by a read are not published. The listeners are synchronous, so that the evictions applied on behalf
+ * of another instance are still being applied when their events fire, and are not published back. Ehcache fires the
+ * events from its own threads, hence the set of evictions in progress rather than a thread local.
+ */
+public class CacheInvalidator implements CacheEntryUpdatedListener<Object, Object>, CacheEntryRemovedListener<Object, Object> {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+
+    private final CacheInvalidationBus bus;
+
+    private final Set<CacheInvalidation> applying = ConcurrentHashMap.newKeySet();
+
+    public CacheInvalidator(CacheManager cacheManager, CacheInvalidationBus bus) {
+        this.cacheManager = cacheManager;
+        this.bus = bus;
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.getCache(cacheName).registerCacheEntryListener(
+                new MutableCacheEntryListenerConfiguration<>(new FactoryBuilder.SingletonFactory<>(this), null, false, true));
+        }
+        bus.subscribe(this::apply);
+    }
+
+    @Override
+    public void onUpdated(Iterable<CacheEntryEvent<?, ?>> events) {
+        publish(events);
+    }
+
+    @Override
+    public void onRemoved(Iterable<CacheEntryEvent<?, ?>> events) {
+        publish(events);
+    }
+
+    private void publish(Iterable<CacheEntryEvent<?, ?>> events) {
+        for (CacheEntryEvent<?, ?> event : events) {
+            CacheInvalidation invalidation = new CacheInvalidation(event.getSource().getName(), event.getKey());
+            if (!applying.contains(invalidation)) {
+                bus.publish(invalidation);
+            }
+        }
+    }
+
+    void apply(CacheInvalidation invalidation) {
+        Cache<Object, Object> cache = cacheManager.getCache(invalidation.getCacheName());
+        if (cache == null) {
+            log.debug("Ignoring the invalidation of unknown cache {}", invalidation.getCacheName());
+            return;
+        }
+        applying.add(invalidation);
+        try {
+            if (invalidation.getKey() == null) {
+                cache.clear();
+            } else {
+                cache.remove(invalidation.getKey());
+            }
+        } finally {
+            applying.remove(invalidation);
+        }
+    }
+}
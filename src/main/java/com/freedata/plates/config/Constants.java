@@ -12,6 +12,9 @@ public final class Constants {
     public static final String DEFAULT_LANGUAGE = "en";
     public static final String ANONYMOUS_USER = "anonymoususer";
 
+    // Rows fetched per database round-trip when streaming exports
+    public static final int EXPORT_FETCH_SIZE = 500;
+
     private Constants() {
     }
 }
@@ -1,8 +1,14 @@
 package com.freedata.plates.config;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotationIntrospectorPair;
 import com.github.vanroy.springdata.jest.JestElasticsearchTemplate;
 import com.github.vanroy.springdata.jest.mapper.DefaultJestResultsMapper;
 import io.searchbox.client.JestClient;
@@ -32,7 +38,7 @@ public class ElasticsearchConfiguration {
     }
 
     @Bean
-    public EntityMapper getEntityMapper() {
+    public CustomEntityMapper getEntityMapper() {
         return new CustomEntityMapper(mapper);
     }
 
@@ -48,10 +54,25 @@ public class ElasticsearchConfiguration {
             new DefaultJestResultsMapper(mappingContext, entityMapper));
     }
 
+    /**
+     * Maps entities to the documents of Elasticsearch with the {@link ObjectMapper} of the application.
+     * <p>
+     * Entities and maps are converted to each other through a token buffer, without writing and parsing JSON text in
+     * between, so the numbers of a map keep the type of their field, and {@link #writer()} writes documents straight
+     * into the body of a request.
+     * <p>
+     * Documents are read back whole: their read-only properties, which the REST API does not accept, are read too.
+     */
     public class CustomEntityMapper implements EntityMapper {
 
         private ObjectMapper objectMapper;
 
+        private final ObjectMapper reader;
+
+        private final ObjectWriter writer;
+
+        private final JavaType mapType;
+
         public CustomEntityMapper(ObjectMapper objectMapper) {
             this.objectMapper = objectMapper;
             objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -59,6 +80,20 @@ public class ElasticsearchConfiguration {
             objectMapper.configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
             objectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
             objectMapper.configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
+            // The documents of a bulk request share a generator, which is flushed once they are all written
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.reader = objectMapper.copy().setAnnotationIntrospector(
+                new DocumentIntrospector(objectMapper.getDeserializationConfig().getAnnotationIntrospector()));
+            this.mapType = objectMapper.getTypeFactory().constructMapType(HashMap.class, String.class, Object.class);
+        }
+
+        /**
+         * Get the writer of the documents, for the requests which generate their body in one pass.
+         *
+         * @return the writer of the documents.
+         */
+        public ObjectWriter writer() {
+            return writer;
         }
 
         @Override
@@ -68,14 +103,14 @@ public class ElasticsearchConfiguration {
 
         @Override
         public <T> T mapToObject(String source, Class<T> clazz) throws IOException {
-            return objectMapper.readValue(source, clazz);
+            return reader.readValue(source, clazz);
         }
 
         @Override
         public Map<String, Object> mapObject(Object source) {
             try {
-                return objectMapper.readValue(mapToString(source), HashMap.class);
-            } catch (IOException e) {
+                return objectMapper.convertValue(source, mapType);
+            } catch (IllegalArgumentException e) {
                 throw new MappingException(e.getMessage(), e);
             }
         }
@@ -83,11 +118,27 @@ public class ElasticsearchConfiguration {
         @Override
         public <T> T readObject(Map<String, Object> source, Class<T> targetType) {
             try {
-                return mapToObject(mapToString(source), targetType);
-            } catch (IOException e) {
+                return reader.convertValue(source, targetType);
+            } catch (IllegalArgumentException e) {
                 throw new MappingException(e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Ignores the {@link JsonProperty#access()} of the properties, so that read-only ones are deserialized.
+     */
+    private static class DocumentIntrospector extends AnnotationIntrospectorPair {
+
+        private static final long serialVersionUID = 1L;
+
+        DocumentIntrospector(AnnotationIntrospector introspector) {
+            super(introspector, AnnotationIntrospector.nopInstance());
+        }
+
+        @Override
+        public JsonProperty.Access findPropertyAccess(Annotated annotated) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package com.freedata.plates.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+/**
+ * A {@link CacheInvalidationBus} going through the {@code cache_invalidation} table, so that it needs nothing but the
+ * database the instances already share.
+ * <p>
+ * Invalidations are queued in memory and, every {@code application.cache.invalidation.poll-interval-ms}, written in
+ * one batch while the rows of the other instances are read back. Polls run on a thread of their own, so that the
+ * scheduled jobs of the application, however long, never hold back the evictions. Rows are read again for
+ * {@code application.cache.invalidation.lookback-seconds}, so that a row whose transaction commits after a later one
+ * is not missed. Evicting is idempotent, the ids already applied are only remembered to spare the work.
+ * <p>
+ * Keys go through the table as text, so only {@link Long}, {@link Integer}, {@link String} and {@link UUID} keys are
+ * evicted one by one, which covers the user caches and the entity and collection regions with
+ * {@code hibernate.cache.keys_factory: simple}. Any other key evicts its whole cache on the other instances.
+ */
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus, InitializingBean, DisposableBean {
+
+    private static final int POLLS_BETWEEN_PURGES = 60;
+
+    private final Logger log = LoggerFactory.getLogger(JdbcCacheInvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    private final Duration pollInterval;
+
+    private final Duration lookback;
+
+    private final Set<CacheInvalidation> outgoing = ConcurrentHashMap.newKeySet();
+
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Ids of the rows already applied, with their date, only touched by the polling thread.
+     */
+    private final Map<Long, Instant> applied = new HashMap<>();
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private int polls;
+
+    private ScheduledFuture<?> polling;
+
+    public JdbcCacheInvalidationBus(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ApplicationProperties.Cache.Invalidation invalidation, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setThreadNamePrefix("cache-invalidation-");
+        this.pollInterval = Duration.ofMillis(invalidation.getPollIntervalMs());
+        this.lookback = Duration.ofSeconds(invalidation.getLookbackSeconds());
+        this.sent = Counter.builder("cache.invalidations")
+            .description("Cache invalidations exchanged with the other instances")
+            .tag("direction", "sent")
+            .register(meterRegistry);
+        this.received = Counter.builder("cache.invalidations")
+            .description("Cache invalidations exchanged with the other instances")
+            .tag("direction", "received")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("Exchanging cache invalidations every {} ms as node {}", pollInterval.toMillis(), nodeId);
+        taskScheduler.initialize();
+        polling = taskScheduler.scheduleWithFixedDelay(this::poll, pollInterval);
+    }
+
+    @Override
+    public void destroy() {
+        polling.cancel(false);
+        taskScheduler.shutdown();
+        // Sends what is left, the other instances will not hear from this one again
+        poll();
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        outgoing.add(invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Sends the queued invalidations and applies the ones of the other instances.
+     */
+    void poll() {
+        List<CacheInvalidation> sending = new ArrayList<>(outgoing);
+        outgoing.removeAll(sending);
+        Instant now = Instant.now();
+        List<ReceivedInvalidation> receiving;
+        try {
+            receiving = transactionTemplate.execute(status -> {
+                if (!sending.isEmpty()) {
+                    jdbcTemplate.batchUpdate(
+                        "insert into cache_invalidation (node_id, cache_name, cache_key, created_millis) values (?, ?, ?, ?)",
+                        sending, sending.size(), (ps, invalidation) -> {
+                            ps.setString(1, nodeId);
+                            ps.setString(2, invalidation.getCacheName());
+                            ps.setString(3, encode(invalidation.getKey()));
+                            ps.setLong(4, now.toEpochMilli());
+                        });
+                }
+                if (++polls % POLLS_BETWEEN_PURGES == 0) {
+                    jdbcTemplate.update("delete from cache_invalidation where created_millis < ?",
+                        now.minus(lookback.multipliedBy(2)).toEpochMilli());
+                }
+                return jdbcTemplate.query(
+                    "select id, cache_name, cache_key, created_millis from cache_invalidation " +
+                        "where created_millis > ? and node_id <> ? order by id",
+                    (rs, rowNum) -> new ReceivedInvalidation(rs.getLong("id"), Instant.ofEpochMilli(rs.getLong("created_millis")),
+                        new CacheInvalidation(rs.getString("cache_name"), decode(rs.getString("cache_key")))),
+                    now.minus(lookback).toEpochMilli(), nodeId);
+            });
+        } catch (RuntimeException e) {
+            // Kept for the next poll, meanwhile the other instances may serve stale entries
+            outgoing.addAll(sending);
+            log.warn("Could not exchange cache invalidations: {}", e.getMessage());
+            return;
+        }
+        sent.increment(sending.size());
+        for (ReceivedInvalidation invalidation : receiving) {
+            if (applied.putIfAbsent(invalidation.id, invalidation.createdDate) == null) {
+                received.increment();
+                for (Consumer<CacheInvalidation> subscriber : subscribers) {
+                    subscriber.accept(invalidation.invalidation);
+                }
+            }
+        }
+        Instant forgotten = now.minus(lookback.multipliedBy(2));
+        for (Iterator<Instant> createdDates = applied.values().iterator(); createdDates.hasNext(); ) {
+            if (createdDates.next().isBefore(forgotten)) {
+                createdDates.remove();
+            }
+        }
+    }
+
+    static String encode(Object key) {
+        if (key instanceof Long) {
+            return "L:" + key;
+        } else if (key instanceof Integer) {
+            return "I:" + key;
+        } else if (key instanceof String) {
+            return "S:" + key;
+        } else if (key instanceof UUID) {
+            return "U:" + key;
+        }
+        return null;
+    }
+
+    static Object decode(String key) {
+        if (key == null) {
+            return null;
+        }
+        String value = key.substring(2);
+        switch (key.charAt(0)) {
+            case 'L':
+                return Long.valueOf(value);
+            case 'I':
+                return Integer.valueOf(value);
+            case 'U':
+                return UUID.fromString(value);
+            default:
+                return value;
+        }
+    }
+
+    private static final class ReceivedInvalidation {
+
+        private final long id;
+
+        private final Instant createdDate;
+
+        private final CacheInvalidation invalidation;
+
+        private ReceivedInvalidation(long id, Instant createdDate, CacheInvalidation invalidation) {
+            this.id = id;
+            this.createdDate = createdDate;
+            this.invalidation = invalidation;
+        }
+    }
+}
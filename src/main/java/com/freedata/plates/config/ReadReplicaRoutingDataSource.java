@@ -0,0 +1,97 @@
+package com.freedata.plates.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Routes the connections of read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * The transaction managers fetch their connection before the transaction is marked read-only, so this data source
+ * must be wrapped in a {@link LazyConnectionDataSourceProxy}, see {@link #lazy(DataSource, DataSource, MeterRegistry)}.
+ * <p>
+ * Once a request has opened a read-write transaction, its later read-only transactions stay on the primary, so that
+ * it reads its own writes whatever the replication lag. Work done outside of a web request is not pinned.
+ * <p>
+ * Read-only work whose result is cached or persisted must run in {@link #onPrimary(Supplier)}: the replica may not have
+ * caught up on the last writes, whose changes would then be kept stale, as nothing reads them again.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    static final String PINNED_TO_PRIMARY_ATTRIBUTE = ReadReplicaRoutingDataSource.class.getName() + ".PINNED_TO_PRIMARY";
+
+    private static final ThreadLocal<Boolean> ON_PRIMARY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final Map<Target, Counter> routed = new HashMap<>();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        for (Target target : Target.values()) {
+            routed.put(target, Counter.builder("datasource.routing.connections")
+                .description("Connections handed out by the read replica routing data source")
+                .tag("target", target.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        afterPropertiesSet();
+    }
+
+    /**
+     * Creates the routing data source wrapped in the {@link LazyConnectionDataSourceProxy} it needs.
+     */
+    public static DataSource lazy(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica, meterRegistry));
+    }
+
+    /**
+     * Run work on the primary, its read-only transactions included, in the current thread.
+     *
+     * @param work the work, which starts its transactions itself.
+     * @return the result of the work.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean outer = ON_PRIMARY.get();
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            ON_PRIMARY.set(outer);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        Target target;
+        if (ON_PRIMARY.get()) {
+            target = Target.PRIMARY;
+        } else if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            target = Target.PRIMARY;
+            if (request != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                request.setAttribute(PINNED_TO_PRIMARY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+        } else if (request != null && request.getAttribute(PINNED_TO_PRIMARY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            target = Target.PRIMARY;
+        } else {
+            target = Target.REPLICA;
+        }
+        routed.get(target).increment();
+        return target;
+    }
+}
@@ -1,12 +1,16 @@
 package com.freedata.plates.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * A Country.
@@ -20,9 +24,20 @@ public class Country implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the country, assigned at construction and never updated, so that it is known and stable before the
+     * country is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @Column(name = "country_name")
     private String countryName;
 
@@ -39,6 +54,14 @@ public class Country implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getCountryName() {
         return countryName;
     }
@@ -74,12 +97,12 @@ public class Country implements Serializable {
         if (!(o instanceof Country)) {
             return false;
         }
-        return id != null && id.equals(((Country) o).id);
+        return uuid.equals(((Country) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -87,6 +110,7 @@ public class Country implements Serializable {
     public String toString() {
         return "Country{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", countryName='" + getCountryName() + "'" +
             "}";
     }
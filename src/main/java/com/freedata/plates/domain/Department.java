@@ -1,8 +1,10 @@
 package com.freedata.plates.domain;
 
 import io.swagger.annotations.ApiModelProperty;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -11,6 +13,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * A Department.
@@ -24,9 +28,20 @@ public class Department implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the department, assigned at construction and never updated, so that it is known and stable before the
+     * department is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @NotNull
     @Column(name = "department_name", nullable = false)
     private String departmentName;
@@ -52,6 +67,14 @@ public class Department implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getDepartmentName() {
         return departmentName;
     }
@@ -112,12 +135,12 @@ public class Department implements Serializable {
         if (!(o instanceof Department)) {
             return false;
         }
-        return id != null && id.equals(((Department) o).id);
+        return uuid.equals(((Department) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -125,6 +148,7 @@ public class Department implements Serializable {
     public String toString() {
         return "Department{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", departmentName='" + getDepartmentName() + "'" +
             "}";
     }
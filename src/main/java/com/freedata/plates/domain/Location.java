@@ -1,13 +1,17 @@
 package com.freedata.plates.domain;
 
 import io.swagger.annotations.ApiModel;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * not an ignored comment
@@ -22,9 +26,20 @@ public class Location implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the location, assigned at construction and never updated, so that it is known and stable before the
+     * location is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @Column(name = "street_address")
     private String streetAddress;
 
@@ -50,6 +65,14 @@ public class Location implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getStreetAddress() {
         return streetAddress;
     }
@@ -124,12 +147,12 @@ public class Location implements Serializable {
         if (!(o instanceof Location)) {
             return false;
         }
-        return id != null && id.equals(((Location) o).id);
+        return uuid.equals(((Location) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -137,6 +160,7 @@ public class Location implements Serializable {
     public String toString() {
         return "Location{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", streetAddress='" + getStreetAddress() + "'" +
             ", postalCode='" + getPostalCode() + "'" +
             ", city='" + getCity() + "'" +
@@ -2,8 +2,10 @@ package com.freedata.plates.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.annotations.ApiModel;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
@@ -11,6 +13,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * Task entity.\n@author The freedata team.
@@ -25,9 +29,20 @@ public class Note implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the note, assigned at construction and never updated, so that it is known and stable before the
+     * note is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @Column(name = "title")
     private String title;
 
@@ -48,6 +63,14 @@ public class Note implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getTitle() {
         return title;
     }
@@ -108,12 +131,12 @@ public class Note implements Serializable {
         if (!(o instanceof Note)) {
             return false;
         }
-        return id != null && id.equals(((Note) o).id);
+        return uuid.equals(((Note) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -121,6 +144,7 @@ public class Note implements Serializable {
     public String toString() {
         return "Note{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", title='" + getTitle() + "'" +
             ", description='" + getDescription() + "'" +
             "}";
@@ -1,10 +1,12 @@
 package com.freedata.plates.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
@@ -13,6 +15,8 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * The Employee entity.
@@ -27,9 +31,20 @@ public class Person implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the person, assigned at construction and never updated, so that it is known and stable before the
+     * person is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     /**
      * The firstname attribute.
      */
@@ -80,6 +95,14 @@ public class Person implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -231,12 +254,12 @@ public class Person implements Serializable {
         if (!(o instanceof Person)) {
             return false;
         }
-        return id != null && id.equals(((Person) o).id);
+        return uuid.equals(((Person) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -244,6 +267,7 @@ public class Person implements Serializable {
     public String toString() {
         return "Person{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", firstName='" + getFirstName() + "'" +
             ", lastName='" + getLastName() + "'" +
             ", email='" + getEmail() + "'" +
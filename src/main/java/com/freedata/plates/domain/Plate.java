@@ -1,8 +1,10 @@
 package com.freedata.plates.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
@@ -10,6 +12,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * A Plate.
@@ -18,14 +22,27 @@ import java.util.Set;
 @Table(name = "plate")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "plate")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "config/elasticsearch/plate-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "config/elasticsearch/plate-mapping.json")
 public class Plate implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the plate, assigned at construction and never updated, so that it is known and stable before the
+     * plate is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @Column(name = "plate_title")
     private String plateTitle;
 
@@ -49,6 +66,14 @@ public class Plate implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getPlateTitle() {
         return plateTitle;
     }
@@ -109,12 +134,12 @@ public class Plate implements Serializable {
         if (!(o instanceof Plate)) {
             return false;
         }
-        return id != null && id.equals(((Plate) o).id);
+        return uuid.equals(((Plate) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -122,6 +147,7 @@ public class Plate implements Serializable {
     public String toString() {
         return "Plate{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", plateTitle='" + getPlateTitle() + "'" +
             "}";
     }
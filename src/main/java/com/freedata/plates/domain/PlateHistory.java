@@ -1,16 +1,21 @@
 package com.freedata.plates.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
- * A PlateHistory.
+ * A PlateHistory: the interval during which a person of a department held a plate. A plate has many of them, which
+ * do not overlap.
  */
 @Entity
 @Table(name = "plate_history")
@@ -21,25 +26,39 @@ public class PlateHistory implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the plateHistory, assigned at construction and never updated, so that it is known and stable before the
+     * plateHistory is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
+    /**
+     * Start of the interval, inclusive.
+     */
     @Column(name = "start_date")
     private Instant startDate;
 
+    /**
+     * End of the interval, exclusive, or {@code null} while the plate is still held.
+     */
     @Column(name = "end_date")
     private Instant endDate;
 
-    @OneToOne
-    @JoinColumn(unique = true)
+    @ManyToOne
     private Plate plate;
 
-    @OneToOne
-    @JoinColumn(unique = true)
+    @ManyToOne
     private Department department;
 
-    @OneToOne
-    @JoinColumn(unique = true)
+    @ManyToOne
     private Person person;
 
     // freedata-needle-entity-add-field - freedata will add fields here
@@ -51,6 +70,14 @@ public class PlateHistory implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public Instant getStartDate() {
         return startDate;
     }
@@ -125,12 +152,12 @@ public class PlateHistory implements Serializable {
         if (!(o instanceof PlateHistory)) {
             return false;
         }
-        return id != null && id.equals(((PlateHistory) o).id);
+        return uuid.equals(((PlateHistory) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -138,6 +165,7 @@ public class PlateHistory implements Serializable {
     public String toString() {
         return "PlateHistory{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", startDate='" + getStartDate() + "'" +
             ", endDate='" + getEndDate() + "'" +
             "}";
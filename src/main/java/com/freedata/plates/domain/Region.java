@@ -1,12 +1,16 @@
 package com.freedata.plates.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * A Region.
@@ -20,9 +24,20 @@ public class Region implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Identity of the region, assigned at construction and never updated, so that it is known and stable before the
+     * region is persisted. It backs {@link #equals(Object)} and {@link #hashCode()}.
+     * Clients cannot set it: it is read-only in JSON, and an update keeps the stored one.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Type(type = "uuid-char")
+    @Column(name = "uuid", length = 36, nullable = false, updatable = false, unique = true)
+    private UUID uuid = UUID.randomUUID();
+
     @Column(name = "region_name")
     private String regionName;
 
@@ -35,6 +50,14 @@ public class Region implements Serializable {
         this.id = id;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+    }
+
     public String getRegionName() {
         return regionName;
     }
@@ -57,12 +80,12 @@ public class Region implements Serializable {
         if (!(o instanceof Region)) {
             return false;
         }
-        return id != null && id.equals(((Region) o).id);
+        return uuid.equals(((Region) o).getUuid());
     }
 
     @Override
     public int hashCode() {
-        return 31;
+        return uuid.hashCode();
     }
 
     // prettier-ignore
@@ -70,6 +93,7 @@ public class Region implements Serializable {
     public String toString() {
         return "Region{" +
             "id=" + getId() +
+            ", uuid='" + getUuid() + "'" +
             ", regionName='" + getRegionName() + "'" +
             "}";
     }
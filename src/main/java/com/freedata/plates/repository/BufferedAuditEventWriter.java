@@ -0,0 +1,192 @@
+package com.freedata.plates.repository;
+
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit events in batches, from a background thread, so that the requests raising them do not wait for the
+ * database.
+ * <p>
+ * Events are queued, and a batch is written as soon as it holds {@code application.audit-events.batch-size} events or
+ * its first event has waited {@code application.audit-events.flush-interval-ms}. When the queue is full,
+ * {@code application.audit-events.overflow-policy} applies. What is left in the queue is written on shutdown.
+ */
+@Component
+public class BufferedAuditEventWriter implements InitializingBean, DisposableBean {
+
+    private final Logger log = LoggerFactory.getLogger(BufferedAuditEventWriter.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final BlockingQueue<PersistentAuditEvent> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final ApplicationProperties.AuditEvents.OverflowPolicy overflowPolicy;
+
+    private final Counter written;
+
+    private final Counter dropped;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public BufferedAuditEventWriter(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.AuditEvents auditEvents = applicationProperties.getAuditEvents();
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(auditEvents.getQueueCapacity());
+        this.batchSize = auditEvents.getBatchSize();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(auditEvents.getFlushIntervalMs());
+        this.overflowPolicy = auditEvents.getOverflowPolicy();
+        Gauge.builder("audit.events.queued", queue, BlockingQueue::size)
+            .description("Audit events waiting to be written")
+            .register(meterRegistry);
+        this.written = Counter.builder("audit.events.written")
+            .description("Audit events written")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("audit.events.dropped")
+            .description("Audit events lost, because the queue was full or their batch could not be written")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        writer = new Thread(this::run, "audit-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // Stops waiting for the rest of its batch, which it writes as it is
+            writer.interrupt();
+            writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 2 + 1000);
+        }
+        flush();
+    }
+
+    /**
+     * Queue an event, to be written in the next batch.
+     *
+     * @param event the event to write.
+     */
+    public void write(PersistentAuditEvent event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS:
+                newTransactionTemplate.execute(status -> persistenceAuditEventRepository.save(event));
+                written.increment();
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                break;
+            default:
+                dropped.increment();
+        }
+    }
+
+    /**
+     * Write all the queued events, on the calling thread and in its transaction if it has one.
+     */
+    public void flush() {
+        List<PersistentAuditEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        List<PersistentAuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Stopped by destroy(): the batch is written without the interrupt, which would fail its connection
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fill(List<PersistentAuditEvent> batch) throws InterruptedException {
+        PersistentAuditEvent event = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (event == null) {
+            return;
+        }
+        batch.add(event);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || left <= 0 || !running) {
+                return;
+            }
+            event = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (event == null) {
+                return;
+            }
+            batch.add(event);
+        }
+    }
+
+    private void writeBatch(List<PersistentAuditEvent> batch) {
+        try {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.saveAll(batch));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not write a batch of {} audit events, writing them one by one: {}", batch.size(), e.getMessage());
+            for (PersistentAuditEvent event : batch) {
+                try {
+                    event.setId(null);
+                    transactionTemplate.execute(status -> persistenceAuditEventRepository.save(event));
+                    written.increment();
+                } catch (RuntimeException eventException) {
+                    log.error("Could not write the audit event {}", event, eventException);
+                    dropped.increment();
+                }
+            }
+        }
+    }
+}
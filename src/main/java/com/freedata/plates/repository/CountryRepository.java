@@ -5,10 +5,16 @@ import com.freedata.plates.domain.Country;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Spring Data  repository for the Country entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface CountryRepository extends JpaRepository<Country, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "region")
+    List<Country> findAll();
 }
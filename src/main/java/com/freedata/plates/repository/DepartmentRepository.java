@@ -5,10 +5,16 @@ import com.freedata.plates.domain.Department;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Spring Data  repository for the Department entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "location.country.region")
+    List<Department> findAll();
 }
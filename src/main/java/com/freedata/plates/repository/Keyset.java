@@ -0,0 +1,108 @@
+package com.freedata.plates.repository;
+
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset (seek) page: the sort order, the value of the sort property and the id of
+ * that row.
+ * <p>
+ * It is handed to clients as an opaque token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class Keyset {
+
+    private static final String SEPARATOR = "\n";
+
+    private static final String VALUE_PREFIX = "=";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final String value;
+
+    private final long id;
+
+    public Keyset(String property, Sort.Direction direction, String value, long id) {
+        this.property = property;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Create the keyset positioned on the given entity.
+     *
+     * @param entity the last entity of a page.
+     * @param order the order of the page.
+     * @return the keyset.
+     */
+    public static Keyset of(Object entity, Sort.Order order) {
+        Object value = PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(order.getProperty());
+        Object id = PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue("id");
+        return new Keyset(order.getProperty(), order.getDirection(), value == null ? null : value.toString(), (Long) id);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @param token the token.
+     * @return the keyset.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static Keyset decode(String token) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length != 4 || (!parts[3].isEmpty() && !parts[3].startsWith(VALUE_PREFIX))) {
+            throw new IllegalArgumentException("Malformed keyset token");
+        }
+        String value = parts[3].isEmpty() ? null : parts[3].substring(VALUE_PREFIX.length());
+        return new Keyset(parts[0], Sort.Direction.fromString(parts[1]), value, Long.parseLong(parts[2]));
+    }
+
+    /**
+     * Encode this keyset as an opaque, URL-safe token.
+     *
+     * @return the token.
+     */
+    public String encode() {
+        String decoded = property + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + (value == null ? "" : VALUE_PREFIX + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort.Order getOrder() {
+        return new Sort.Order(direction, property);
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the value of the sort property, in its {@code toString()} form, or {@code null}.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset{" +
+            "property='" + property + '\'' +
+            ", direction=" + direction +
+            ", value='" + value + '\'' +
+            ", id=" + id +
+            "}";
+    }
+}
@@ -0,0 +1,106 @@
+package com.freedata.plates.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination over any entity with a {@code Long id}.
+ * <p>
+ * Rows are ordered by one sort property with the id as tie-breaker, and a page starts right after the {@link Keyset}
+ * of the previous one. Unlike offset pagination, the cost of a page does not depend on its depth, as long as an index
+ * on {@code (property, id)} exists, and no count query is run.
+ * <p>
+ * {@code null} values are sorted first in ascending order and last in descending order, as MariaDB and H2 do.
+ */
+@Repository
+public class KeysetRepository {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    public KeysetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Get a page of entities.
+     *
+     * @param domainClass the entity class.
+     * @param order the sort order, its property must be a basic attribute of the entity.
+     * @param after the keyset of the last row of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @param <T> the entity type.
+     * @return the page, telling whether another one follows.
+     */
+    public <T> Slice<T> findAll(Class<T> domainClass, Sort.Order order, Keyset after, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        Path<Long> id = root.get(ID);
+        boolean ascending = order.isAscending();
+
+        if (ID.equals(order.getProperty())) {
+            if (after != null) {
+                query.where(ascending ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId()));
+            }
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<?> property = root.get(order.getProperty());
+            if (after != null) {
+                query.where(seek(cb, property, id, ascending, after));
+            }
+            query.orderBy(ascending ? cb.asc(property) : cb.desc(property), ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        List<T> content = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by(order)), hasNext);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seek(CriteriaBuilder cb, Path property, Path<Long> id, boolean ascending, Keyset after) {
+        if (after.getValue() == null) {
+            Predicate sameValue = cb.and(cb.isNull(property), ascending ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId()));
+            return ascending ? cb.or(sameValue, cb.isNotNull(property)) : sameValue;
+        }
+        Comparable value = convert(after.getValue(), property.getJavaType());
+        Predicate sameValue = cb.and(cb.equal(property, value), ascending ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId()));
+        if (ascending) {
+            return cb.or(cb.greaterThan(property, value), sameValue);
+        }
+        return cb.or(cb.lessThan(property, value), sameValue, cb.isNull(property));
+    }
+
+    private Comparable<?> convert(String value, Class<?> type) {
+        if (String.class.equals(type)) {
+            return value;
+        }
+        if (Instant.class.equals(type)) {
+            return Instant.parse(value);
+        }
+        if (LocalDate.class.equals(type)) {
+            return LocalDate.parse(value);
+        }
+        if (Long.class.equals(type)) {
+            return Long.valueOf(value);
+        }
+        if (Integer.class.equals(type)) {
+            return Integer.valueOf(value);
+        }
+        throw new IllegalArgumentException("Keyset pagination is not supported on properties of type " + type.getName());
+    }
+}
@@ -5,10 +5,16 @@ import com.freedata.plates.domain.Location;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Spring Data  repository for the Location entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "country.region")
+    List<Location> findAll();
 }
@@ -4,6 +4,8 @@ import com.freedata.plates.domain.PersistentAuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
@@ -19,5 +21,6 @@ public interface PersistenceAuditEventRepository extends JpaRepository<Persisten
 
     Page<PersistentAuditEvent> findAllByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable);
 
-    List<PersistentAuditEvent> findByAuditEventDateBefore(Instant before);
+    @Query("select event.id from PersistentAuditEvent event where event.auditEventDate < :before and event.id > :afterId order by event.id")
+    List<Long> findIdsByAuditEventDateBefore(@Param("before") Instant before, @Param("afterId") long afterId, Pageable pageable);
 }
@@ -1,14 +1,51 @@
 package com.freedata.plates.repository;
 
+import com.freedata.plates.config.Constants;
 import com.freedata.plates.domain.Person;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Spring Data  repository for the Person entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = {"manager", "department.location.country.region"})
+    Page<Person> findAll(Pageable pageable);
+
+    List<Person> findAllByEmailIn(Collection<String> emails);
+
+    /**
+     * Stream the people of an id range, in id order, for exports.
+     *
+     * @param fromId the lowest id, inclusive.
+     * @param toId the highest id, inclusive.
+     * @return the stream of people, to be consumed within a transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE),
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select person from Person person left join fetch person.manager left join fetch person.department where person.id between :fromId and :toId order by person.id")
+    Stream<Person> streamAllByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select min(person.id) from Person person")
+    Optional<Long> findMinId();
+
+    @Query("select max(person.id) from Person person")
+    Optional<Long> findMaxId();
 }
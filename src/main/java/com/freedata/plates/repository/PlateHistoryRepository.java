@@ -1,14 +1,101 @@
 package com.freedata.plates.repository;
 
+import com.freedata.plates.config.Constants;
 import com.freedata.plates.domain.PlateHistory;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Spring Data  repository for the PlateHistory entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface PlateHistoryRepository extends JpaRepository<PlateHistory, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = {"plate.person", "department.location.country.region", "person.department"})
+    Page<PlateHistory> findAll(Pageable pageable);
+
+    /**
+     * Get the last interval of a plate started at or before an instant. Reading a single row from the
+     * {@code (plate_id, start_date, end_date)} index, whatever the length of the history.
+     *
+     * @param plateId the id of the plate.
+     * @param instant the instant.
+     * @return the interval, to be checked for having ended before the instant.
+     */
+    @EntityGraph(attributePaths = {"plate", "department", "person"})
+    Optional<PlateHistory> findFirstByPlateIdAndStartDateLessThanEqualOrderByStartDateDesc(Long plateId, Instant instant);
+
+    /**
+     * Get the last interval of each plate started at or before an instant, as
+     * {@link #findFirstByPlateIdAndStartDateLessThanEqualOrderByStartDateDesc(Long, Instant)} does for one plate.
+     *
+     * @param plateIds the ids of the plates.
+     * @param instant the instant.
+     * @return the intervals, at most one per plate, to be checked for having ended before the instant.
+     */
+    @EntityGraph(attributePaths = {"department", "person"})
+    @Query("select plateHistory from PlateHistory plateHistory" +
+        " where plateHistory.plate.id in :plateIds and plateHistory.startDate <= :instant" +
+        " and not exists (select later from PlateHistory later where later.plate = plateHistory.plate" +
+        " and later.startDate <= :instant and later.startDate > plateHistory.startDate)")
+    List<PlateHistory> findAllLastByPlateIdIn(@Param("plateIds") Collection<Long> plateIds, @Param("instant") Instant instant);
+
+    /**
+     * Get the last interval of a plate, the one a transfer closes.
+     *
+     * @param plateId the id of the plate.
+     * @return the interval with the latest start date.
+     */
+    @EntityGraph(attributePaths = {"department", "person"})
+    Optional<PlateHistory> findFirstByPlateIdOrderByStartDateDesc(Long plateId);
+
+    /**
+     * Check whether another interval of a plate overlaps the {@code [startDate, endDate)} one.
+     *
+     * @param plateId the id of the plate.
+     * @param id the id of the interval to leave out, {@code null} for a new one.
+     * @param startDate the start of the interval, inclusive.
+     * @param endDate the end of the interval, exclusive, {@code null} for an open interval.
+     * @return {@code true} if an overlapping interval exists.
+     */
+    @Query("select case when count(plateHistory) > 0 then true else false end from PlateHistory plateHistory" +
+        " where plateHistory.plate.id = :plateId and (:id is null or plateHistory.id <> :id)" +
+        " and (plateHistory.endDate is null or plateHistory.endDate > :startDate)" +
+        " and (:endDate is null or plateHistory.startDate < :endDate)")
+    boolean existsOverlapping(@Param("plateId") Long plateId, @Param("id") Long id, @Param("startDate") Instant startDate,
+                              @Param("endDate") Instant endDate);
+
+    /**
+     * Stream the plate histories of an id range, in id order, for exports.
+     *
+     * @param fromId the lowest id, inclusive.
+     * @param toId the highest id, inclusive.
+     * @return the stream of plate histories, to be consumed within a transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE),
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select plateHistory from PlateHistory plateHistory left join fetch plateHistory.plate left join fetch plateHistory.department left join fetch plateHistory.person where plateHistory.id between :fromId and :toId order by plateHistory.id")
+    Stream<PlateHistory> streamAllByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select min(plateHistory.id) from PlateHistory plateHistory")
+    Optional<Long> findMinId();
+
+    @Query("select max(plateHistory.id) from PlateHistory plateHistory")
+    Optional<Long> findMaxId();
 }
@@ -1,29 +1,115 @@
 package com.freedata.plates.repository;
 
+import com.freedata.plates.config.Constants;
 import com.freedata.plates.domain.Plate;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Spring Data  repository for the Plate entity.
+ * <p>
+ * The eager queries only serve reads: their plates are loaded read-only, without the snapshots Hibernate keeps for
+ * dirty checking.
  */
 @Repository
 public interface PlateRepository extends JpaRepository<Plate, Long> {
 
-    @Query(value = "select distinct plate from Plate plate left join fetch plate.notes",
-        countQuery = "select count(distinct plate) from Plate plate")
-    Page<Plate> findAllWithEagerRelationships(Pageable pageable);
+    /**
+     * Get a page of plates with their notes.
+     * <p>
+     * A collection fetch cannot be paginated in SQL, so the page is read in two queries: the ids of the page first,
+     * then the plates with their notes by id. Only one page of rows is ever loaded.
+     *
+     * @param pageable the pagination information.
+     * @return the page of plates.
+     */
+    default Page<Plate> findAllWithEagerRelationships(Pageable pageable) {
+        Page<Long> ids = findAllIds(pageable);
+        if (ids.getContent().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+        }
+        Map<Long, Plate> plates = findAllWithEagerRelationshipsByIdIn(ids.getContent()).stream()
+            .collect(Collectors.toMap(Plate::getId, Function.identity()));
+        return ids.map(plates::get);
+    }
+
+    @Override
+    @EntityGraph(attributePaths = {"person.manager", "person.department.location.country.region"})
+    Page<Plate> findAll(Pageable pageable);
+
+    @Query(value = "select plate.id from Plate plate",
+        countQuery = "select count(plate) from Plate plate")
+    Page<Long> findAllIds(Pageable pageable);
 
     @Query("select distinct plate from Plate plate left join fetch plate.notes")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     List<Plate> findAllWithEagerRelationships();
 
     @Query("select plate from Plate plate left join fetch plate.notes where plate.id =:id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
     Optional<Plate> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @Query("select distinct plate from Plate plate left join fetch plate.notes where plate.id in :ids")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Plate> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Get plates with everything their search documents include, see
+     * {@link com.freedata.plates.repository.search.PlateDocument}.
+     *
+     * @param ids the ids of the plates.
+     * @return the plates, with their notes, person, department, location, country and region.
+     */
+    @EntityGraph(attributePaths = {"notes", "person.department.location.country.region"})
+    @Query("select distinct plate from Plate plate where plate.id in :ids")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    List<Plate> findAllForSearchByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Get a plate, locking its row until the end of the transaction. Its notes and person are neither fetched nor
+     * locked.
+     *
+     * @param id the id of the plate.
+     * @return the plate.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select plate from Plate plate where plate.id = :id")
+    Optional<Plate> findOneForUpdate(@Param("id") Long id);
+
+    /**
+     * Stream the plates of an id range, in id order, for exports.
+     *
+     * @param fromId the lowest id, inclusive.
+     * @param toId the highest id, inclusive.
+     * @return the stream of plates, to be consumed within a transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE),
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select plate from Plate plate left join fetch plate.person where plate.id between :fromId and :toId order by plate.id")
+    Stream<Plate> streamAllByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select min(plate.id) from Plate plate")
+    Optional<Long> findMinId();
+
+    @Query("select max(plate.id) from Plate plate")
+    Optional<Long> findMaxId();
 }
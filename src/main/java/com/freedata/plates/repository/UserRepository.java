@@ -7,6 +7,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,7 +27,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findOneByActivationKey(String activationKey);
 
-    List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
+    @Query("select user.id from User user where user.activated = false and user.activationKey is not null" +
+        " and user.createdDate < :dateTime and user.id > :afterId order by user.id")
+    List<Long> findNotActivatedIdsCreatedBefore(@Param("dateTime") Instant dateTime, @Param("afterId") long afterId, Pageable pageable);
 
     Optional<User> findOneByResetKey(String resetKey);
 
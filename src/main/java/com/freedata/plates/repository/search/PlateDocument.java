@@ -0,0 +1,178 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Location;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The document of a {@link Plate} in the {@code plate} index.
+ * <p>
+ * It has the properties of the plate, as the REST API returns it, which searches keep reading, along with the names
+ * of the entities around it, flattened so that a single query can filter on all of them: the person holding the
+ * plate and their department, location, country and region, the titles of the notes, and the last interval of the
+ * history of the plate started by the time it was indexed. {@link SearchIndexer} indexes the plates again when any
+ * of these entities change.
+ */
+public class PlateDocument {
+
+    private final Plate plate;
+
+    private final String personName;
+
+    private final String departmentName;
+
+    private final String city;
+
+    private final String stateProvince;
+
+    private final String countryName;
+
+    private final String regionName;
+
+    private final List<String> noteTitles;
+
+    private final String holderName;
+
+    private final String holderDepartmentName;
+
+    private final Instant holderStartDate;
+
+    private final Instant holderEndDate;
+
+    /**
+     * @param plate the plate, with its notes, person, department, location, country and region loaded.
+     * @param holder the last interval of the history of the plate started when the document is built, {@code null} for none.
+     */
+    public PlateDocument(Plate plate, PlateHistory holder) {
+        this.plate = plate;
+        Person person = plate.getPerson();
+        Department department = person == null ? null : person.getDepartment();
+        Location location = department == null ? null : department.getLocation();
+        this.personName = name(person);
+        this.departmentName = department == null ? null : department.getDepartmentName();
+        this.city = location == null ? null : location.getCity();
+        this.stateProvince = location == null ? null : location.getStateProvince();
+        this.countryName = location == null || location.getCountry() == null ? null : location.getCountry().getCountryName();
+        this.regionName = location == null || location.getCountry() == null || location.getCountry().getRegion() == null ? null :
+            location.getCountry().getRegion().getRegionName();
+        this.noteTitles = plate.getNotes().stream()
+            .map(Note::getTitle)
+            .filter(Objects::nonNull)
+            .sorted()
+            .collect(Collectors.toList());
+        this.holderName = holder == null ? null : name(holder.getPerson());
+        this.holderDepartmentName = holder == null || holder.getDepartment() == null ? null : holder.getDepartment().getDepartmentName();
+        this.holderStartDate = holder == null ? null : holder.getStartDate();
+        this.holderEndDate = holder == null ? null : holder.getEndDate();
+    }
+
+    private static String name(Person person) {
+        if (person == null) {
+            return null;
+        }
+        String name = ((person.getFirstName() == null ? "" : person.getFirstName()) + " " +
+            (person.getLastName() == null ? "" : person.getLastName())).trim();
+        return name.isEmpty() ? null : name;
+    }
+
+    @JsonIgnore
+    public Plate getPlate() {
+        return plate;
+    }
+
+    public Long getId() {
+        return plate.getId();
+    }
+
+    public UUID getUuid() {
+        return plate.getUuid();
+    }
+
+    public String getPlateTitle() {
+        return plate.getPlateTitle();
+    }
+
+    public Set<Note> getNotes() {
+        return plate.getNotes();
+    }
+
+    @JsonIgnoreProperties(value = "plates", allowSetters = true)
+    public Person getPerson() {
+        return plate.getPerson();
+    }
+
+    public String getPersonName() {
+        return personName;
+    }
+
+    public String getDepartmentName() {
+        return departmentName;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getStateProvince() {
+        return stateProvince;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public List<String> getNoteTitles() {
+        return noteTitles;
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    public String getHolderDepartmentName() {
+        return holderDepartmentName;
+    }
+
+    /**
+     * @return the start of the last interval of the history, at or before the indexing.
+     */
+    public Instant getHolderStartDate() {
+        return holderStartDate;
+    }
+
+    /**
+     * @return the end of the last interval of the history, {@code null} while the plate is held, in the past once
+     * it is not anymore.
+     */
+    public Instant getHolderEndDate() {
+        return holderEndDate;
+    }
+
+    @Override
+    public String toString() {
+        return "PlateDocument{" +
+            "plate=" + plate +
+            ", personName='" + personName + "'" +
+            ", departmentName='" + departmentName + "'" +
+            ", countryName='" + countryName + "'" +
+            ", holderName='" + holderName + "'" +
+            "}";
+    }
+}
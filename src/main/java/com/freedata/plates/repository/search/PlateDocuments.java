@@ -0,0 +1,114 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Location;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.domain.Region;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@link PlateDocument}s, and finds the plates whose documents include an entity.
+ */
+@Component
+public class PlateDocuments {
+
+    /**
+     * The queries of the plates whose documents include entities, by the class of the entities.
+     */
+    private static final Map<Class<?>, List<String>> PLATES_OF = new HashMap<>();
+
+    static {
+        PLATES_OF.put(Person.class, Arrays.asList(
+            "select plate.id from Plate plate where plate.person.id in :ids",
+            "select plateHistory.plate.id from PlateHistory plateHistory where plateHistory.person.id in :ids"));
+        PLATES_OF.put(Department.class, Arrays.asList(
+            "select plate.id from Plate plate where plate.person.department.id in :ids",
+            "select plateHistory.plate.id from PlateHistory plateHistory where plateHistory.department.id in :ids"));
+        PLATES_OF.put(Location.class, Collections.singletonList(
+            "select plate.id from Plate plate where plate.person.department.location.id in :ids"));
+        PLATES_OF.put(Country.class, Collections.singletonList(
+            "select plate.id from Plate plate where plate.person.department.location.country.id in :ids"));
+        PLATES_OF.put(Region.class, Collections.singletonList(
+            "select plate.id from Plate plate where plate.person.department.location.country.region.id in :ids"));
+        PLATES_OF.put(Note.class, Collections.singletonList(
+            "select plate.id from Plate plate join plate.notes note where note.id in :ids"));
+        PLATES_OF.put(PlateHistory.class, Collections.singletonList(
+            "select plateHistory.plate.id from PlateHistory plateHistory where plateHistory.id in :ids"));
+    }
+
+    private final PlateRepository plateRepository;
+
+    private final PlateHistoryRepository plateHistoryRepository;
+
+    private final EntityManager entityManager;
+
+    public PlateDocuments(PlateRepository plateRepository, PlateHistoryRepository plateHistoryRepository, EntityManager entityManager) {
+        this.plateRepository = plateRepository;
+        this.plateHistoryRepository = plateHistoryRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Build the documents of plates, as they are committed.
+     * <p>
+     * The holders are the intervals started now. The intervals starting later are held by the documents once their
+     * plates are indexed again, which {@link SearchIndexOutbox#indexAt(Class, Long, Instant)} records when they are saved.
+     *
+     * @param ids the ids of the plates, the missing ones are skipped.
+     * @return the documents, by the id of their plate.
+     */
+    public Map<Long, PlateDocument> load(Collection<Long> ids) {
+        Map<Long, PlateHistory> holders = plateHistoryRepository.findAllLastByPlateIdIn(ids, Instant.now()).stream()
+            .collect(Collectors.toMap(plateHistory -> plateHistory.getPlate().getId(), Function.identity(),
+                // Intervals starting at the same instant, which only an import can write
+                (first, second) -> first.getId() > second.getId() ? first : second));
+        Map<Long, PlateDocument> documents = new HashMap<>();
+        for (Plate plate : plateRepository.findAllForSearchByIdIn(ids)) {
+            documents.put(plate.getId(), new PlateDocument(plate, holders.get(plate.getId())));
+        }
+        return documents;
+    }
+
+    /**
+     * Check whether the documents of plates include the entities of a class.
+     *
+     * @param entityClass the class of the entities.
+     * @return {@code true} if plates are to be indexed again when these entities change.
+     */
+    public boolean include(Class<?> entityClass) {
+        return PLATES_OF.containsKey(entityClass);
+    }
+
+    /**
+     * Find the plates whose documents include entities.
+     *
+     * @param entityClass the class of the entities.
+     * @param ids the ids of the entities.
+     * @return the ids of the plates.
+     */
+    public Set<Long> platesOf(Class<?> entityClass, Collection<Long> ids) {
+        Set<Long> plateIds = new HashSet<>();
+        if (ids.isEmpty()) {
+            return plateIds;
+        }
+        for (String query : PLATES_OF.getOrDefault(entityClass, Collections.emptyList())) {
+            plateIds.addAll(entityManager.createQuery(query, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        }
+        return plateIds;
+    }
+}
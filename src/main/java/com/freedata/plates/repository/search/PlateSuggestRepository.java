@@ -0,0 +1,186 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.BoundedExpiringCache;
+import com.freedata.plates.domain.Plate;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Search;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests plates to the operators typing the beginning of a plate title or of the last name of its person.
+ * <p>
+ * The prefix is matched against the {@code suggest} sub-fields of the {@code plate} index, analyzed in edge n-grams
+ * when the plates are indexed, so a search only looks up terms instead of scanning them. Only the few fields shown in
+ * the suggestions are fetched. The suggestions of the short prefixes, typed first by every operator, are kept for a
+ * few seconds.
+ */
+@Repository
+public class PlateSuggestRepository {
+
+    /**
+     * Number of suggestions of a prefix.
+     */
+    public static final int SIZE = 10;
+
+    /**
+     * Time Elasticsearch has to answer, with the suggestions found so far past it.
+     */
+    static final long TIMEOUT_MS = 200;
+
+    /**
+     * Longest prefix whose suggestions are cached. Longer ones are rarer, and cheaper to search.
+     */
+    static final int MAX_CACHED_PREFIX_LENGTH = 4;
+
+    /**
+     * Bound of the suggestion cache. Past it, each new prefix evicts the least recently used one.
+     */
+    static final int MAX_CACHED_PREFIXES = 1_000;
+
+    /**
+     * Time the suggestions of a prefix are kept, which new plates may not appear in.
+     */
+    static final long CACHE_TTL_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final String[] FIELDS = { "id", "plateTitle", "personName" };
+
+    private final Logger log = LoggerFactory.getLogger(PlateSuggestRepository.class);
+
+    private final JestClient jestClient;
+
+    private final BoundedExpiringCache<String, List<Suggestion>> cache = new BoundedExpiringCache<>(MAX_CACHED_PREFIXES);
+
+    public PlateSuggestRepository(JestClient jestClient) {
+        this.jestClient = jestClient;
+    }
+
+    /**
+     * Suggest plates whose title, or the last name of whose person, starts with each word of a prefix.
+     *
+     * @param prefix the words typed so far.
+     * @return at most {@link #SIZE} suggestions, best first, none if Elasticsearch could not answer.
+     */
+    public List<Suggestion> suggest(String prefix) {
+        String normalized = prefix == null ? "" : prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (normalized.length() > MAX_CACHED_PREFIX_LENGTH) {
+            List<Suggestion> suggestions = search(normalized);
+            return suggestions == null ? Collections.emptyList() : suggestions;
+        }
+        long now = System.currentTimeMillis();
+        List<Suggestion> suggestions = cache.get(normalized, now);
+        if (suggestions != null) {
+            return suggestions;
+        }
+        suggestions = search(normalized);
+        if (suggestions == null) {
+            return Collections.emptyList();
+        }
+        cache.put(normalized, suggestions, now + CACHE_TTL_MS);
+        return suggestions;
+    }
+
+    /**
+     * @return the suggestions, or {@code null} if Elasticsearch could not answer.
+     */
+    private List<Suggestion> search(String prefix) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(QueryBuilders.multiMatchQuery(prefix, "plateTitle.suggest", "person.lastName.suggest")
+                .type(MultiMatchQueryBuilder.Type.CROSS_FIELDS)
+                .operator(Operator.AND))
+            .fetchSource(FIELDS, null)
+            .size(SIZE)
+            .timeout(TimeValue.timeValueMillis(TIMEOUT_MS));
+        String indexName = SearchIndexer.indexName(Plate.class);
+        JestResult result;
+        try {
+            result = jestClient.execute(new Search.Builder(source.toString())
+                .addIndex(indexName)
+                .addType(SearchIndexer.indexType(Plate.class))
+                .build());
+        } catch (IOException e) {
+            log.warn("Could not suggest plates for {}: {}", prefix, e.getMessage());
+            return null;
+        }
+        if (!result.isSucceeded()) {
+            log.warn("Could not suggest plates for {}: {}", prefix, result.getErrorMessage());
+            return null;
+        }
+        List<Suggestion> suggestions = new ArrayList<>(SIZE);
+        JsonObject hits = result.getJsonObject().getAsJsonObject("hits");
+        JsonArray hitArray = hits == null ? null : hits.getAsJsonArray("hits");
+        if (hitArray != null) {
+            for (JsonElement hit : hitArray) {
+                JsonObject document = hit.getAsJsonObject().getAsJsonObject("_source");
+                suggestions.add(new Suggestion(document.get("id").getAsLong(), string(document, "plateTitle"),
+                    string(document, "personName")));
+            }
+        }
+        return Collections.unmodifiableList(suggestions);
+    }
+
+    private static String string(JsonObject document, String field) {
+        JsonElement value = document.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * A suggested plate.
+     */
+    public static final class Suggestion {
+
+        private final Long id;
+
+        private final String plateTitle;
+
+        private final String personName;
+
+        public Suggestion(Long id, String plateTitle, String personName) {
+            this.id = id;
+            this.plateTitle = plateTitle;
+            this.personName = personName;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getPlateTitle() {
+            return plateTitle;
+        }
+
+        public String getPersonName() {
+            return personName;
+        }
+
+        @Override
+        public String toString() {
+            return "Suggestion{" +
+                "id=" + id +
+                ", plateTitle='" + plateTitle + "'" +
+                ", personName='" + personName + "'" +
+                "}";
+        }
+    }
+}
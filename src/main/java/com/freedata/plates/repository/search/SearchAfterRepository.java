@@ -0,0 +1,192 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.repository.Keyset;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Search;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Keyset pagination over the Elasticsearch index of any entity with a {@code Long id}, the search counterpart of
+ * {@link com.freedata.plates.repository.KeysetRepository}.
+ * <p>
+ * Hits are sorted by one property with the id as tie-breaker, and a page starts right after the {@link Keyset} of the
+ * previous one, through {@code search_after}. Unlike {@code from}/{@code size} paging, the cost of a page does not
+ * depend on its depth, and the {@code index.max_result_window} does not bound the results that can be reached. String
+ * properties are sorted on their {@code keyword} sub-field. As hits are never sorted on their score, queries run in
+ * filter context, where Elasticsearch neither scores them nor recomputes the clauses it cached.
+ * <p>
+ * Documents without a value are sorted first in ascending order and last in descending order, as in
+ * {@link com.freedata.plates.repository.KeysetRepository}.
+ */
+@Repository
+public class SearchAfterRepository {
+
+    /**
+     * Number of hits fetched at once when all of them are read.
+     */
+    static final int BATCH_SIZE = 1_000;
+
+    private static final String ID = "id";
+
+    private final JestClient jestClient;
+
+    private final CustomEntityMapper entityMapper;
+
+    public SearchAfterRepository(JestClient jestClient, CustomEntityMapper entityMapper) {
+        this.jestClient = jestClient;
+        this.entityMapper = entityMapper;
+    }
+
+    /**
+     * Get a page of the entities matching a query.
+     *
+     * @param domainClass the entity class, with a {@link org.springframework.data.elasticsearch.annotations.Document}.
+     * @param query the query.
+     * @param order the sort order, on {@code id} or on a property indexed with a single value.
+     * @param after the keyset of the last hit of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @param <T> the entity type.
+     * @return the page, telling whether another one follows.
+     */
+    public <T> Slice<T> search(Class<T> domainClass, QueryBuilder query, Sort.Order order, Keyset after, int size) {
+        List<T> content = fetch(domainClass, query, order, after, size + 1);
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by(order)), hasNext);
+    }
+
+    /**
+     * Get all the entities matching a query, by id, reading {@link #BATCH_SIZE} hits at once.
+     *
+     * @param domainClass the entity class, with a {@link org.springframework.data.elasticsearch.annotations.Document}.
+     * @param query the query.
+     * @param <T> the entity type.
+     * @return the entities.
+     */
+    public <T> List<T> searchAll(Class<T> domainClass, QueryBuilder query) {
+        Sort.Order order = Sort.Order.asc(ID);
+        List<T> entities = new ArrayList<>();
+        Keyset after = null;
+        while (true) {
+            List<T> batch = fetch(domainClass, query, order, after, BATCH_SIZE);
+            entities.addAll(batch);
+            if (batch.size() < BATCH_SIZE) {
+                return entities;
+            }
+            after = Keyset.of(batch.get(batch.size() - 1), order);
+        }
+    }
+
+    private <T> List<T> fetch(Class<T> domainClass, QueryBuilder query, Sort.Order order, Keyset after, int size) {
+        QueryBuilder filtered = boolQuery().filter(query);
+        boolean ascending = order.isAscending();
+        SortOrder sortOrder = ascending ? SortOrder.ASC : SortOrder.DESC;
+        SearchSourceBuilder source = new SearchSourceBuilder().size(size);
+        if (ID.equals(order.getProperty())) {
+            source.query(filtered).sort(ID, sortOrder);
+            if (after != null) {
+                source.searchAfter(new Object[] { after.getId() });
+            }
+        } else {
+            PropertyDescriptor property = BeanUtils.getPropertyDescriptor(domainClass, order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("No property " + order.getProperty() + " on " + domainClass.getSimpleName());
+            }
+            String field = String.class.equals(property.getPropertyType()) ? property.getName() + ".keyword" : property.getName();
+            source.sort(SortBuilders.fieldSort(field).order(sortOrder).missing(ascending ? "_first" : "_last")).sort(ID, sortOrder);
+            if (after == null) {
+                source.query(filtered);
+            } else if (after.getValue() == null) {
+                // search_after cannot seek past a missing value: filter the rest of the hits instead
+                BoolQueryBuilder sameValue = boolQuery().mustNot(existsQuery(field))
+                    .filter(ascending ? rangeQuery(ID).gt(after.getId()) : rangeQuery(ID).lt(after.getId()));
+                source.query(boolQuery().filter(query)
+                    .filter(ascending ? boolQuery().should(sameValue).should(existsQuery(field)) : sameValue));
+            } else {
+                source.query(filtered).searchAfter(new Object[] { sortValue(after.getValue(), property.getPropertyType()), after.getId() });
+            }
+        }
+        return hits(domainClass, execute(domainClass, source));
+    }
+
+    /**
+     * Convert the value of a keyset to the sort value of Elasticsearch, in milliseconds for the dates.
+     */
+    private static Object sortValue(String value, Class<?> type) {
+        if (Instant.class.equals(type)) {
+            return Instant.parse(value).toEpochMilli();
+        }
+        if (LocalDate.class.equals(type)) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+        if (Long.class.equals(type) || Integer.class.equals(type) || long.class.equals(type) || int.class.equals(type)) {
+            return Long.valueOf(value);
+        }
+        return value;
+    }
+
+    private JestResult execute(Class<?> domainClass, SearchSourceBuilder source) {
+        JestResult result;
+        try {
+            result = jestClient.execute(new Search.Builder(source.toString())
+                .addIndex(SearchIndexer.indexName(domainClass))
+                .addType(SearchIndexer.indexType(domainClass))
+                .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException("Elasticsearch answered Search with " + result.getResponseCode() + ": " +
+                result.getErrorMessage());
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> hits(Class<T> domainClass, JestResult result) {
+        Map<String, Object> response;
+        try {
+            response = entityMapper.mapToObject(result.getJsonString(), Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> hits = (Map<String, Object>) response.get("hits");
+        List<Map<String, Object>> hitList = hits == null ? null : (List<Map<String, Object>>) hits.get("hits");
+        if (hitList == null) {
+            return Collections.emptyList();
+        }
+        List<T> entities = new ArrayList<>(hitList.size());
+        for (Map<String, Object> hit : hitList) {
+            entities.add(entityMapper.readObject((Map<String, Object>) hit.get("_source"), domainClass));
+        }
+        return entities;
+    }
+}
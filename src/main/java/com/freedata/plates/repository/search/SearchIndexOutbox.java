@@ -0,0 +1,231 @@
+package com.freedata.plates.repository.search;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code search_outbox} table, listing the entities to index in, or delete from, Elasticsearch.
+ * <p>
+ * Rows are written in the transaction of the caller, which commits them with the entities they are about, or rolls
+ * them back. {@link SearchIndexer} sends them to Elasticsearch and deletes them.
+ * <p>
+ * The {@code created_millis} of an entry is when it is due: when it is recorded, or later for the entries of
+ * {@link #indexAt(Class, Long, Instant)}, which are neither sent nor counted in the lag before then.
+ */
+@Repository
+public class SearchIndexOutbox {
+
+    /**
+     * What to do with the document of an entity.
+     */
+    public enum Operation {
+        INDEX, DELETE
+    }
+
+    private static final RowMapper<Entry> ENTRY_MAPPER = (rs, rowNum) -> new Entry(rs.getLong("id"), rs.getString("entity_type"),
+        rs.getLong("entity_id"), Operation.valueOf(rs.getString("operation")), rs.getLong("created_millis"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    public SearchIndexOutbox(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Index an entity, once the current transaction commits.
+     *
+     * @param entityClass the class of the entity.
+     * @param id the id of the entity.
+     */
+    public void index(Class<?> entityClass, Long id) {
+        record(entityClass, Collections.singletonList(id), Operation.INDEX);
+    }
+
+    /**
+     * Index entities, once the current transaction commits.
+     *
+     * @param entityClass the class of the entities.
+     * @param ids the ids of the entities.
+     */
+    public void indexAll(Class<?> entityClass, Collection<Long> ids) {
+        record(entityClass, ids, Operation.INDEX);
+    }
+
+    /**
+     * Index an entity again at an instant, for its document to catch up with the time, such as the holder of a plate
+     * once the interval of the holder starts.
+     *
+     * @param entityClass the class of the entity.
+     * @param id the id of the entity.
+     * @param instant the instant to index the entity at, as soon as the transaction commits if already past.
+     */
+    public void indexAt(Class<?> entityClass, Long id, Instant instant) {
+        record(entityClass, Collections.singletonList(id), Operation.INDEX, Math.max(instant.toEpochMilli(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Delete the document of an entity, once the current transaction commits.
+     *
+     * @param entityClass the class of the entity.
+     * @param id the id of the entity.
+     */
+    public void delete(Class<?> entityClass, Long id) {
+        record(entityClass, Collections.singletonList(id), Operation.DELETE);
+    }
+
+    /**
+     * Delete the documents of entities, once the current transaction commits.
+     *
+     * @param entityClass the class of the entities.
+     * @param ids the ids of the entities.
+     */
+    public void deleteAll(Class<?> entityClass, Collection<Long> ids) {
+        record(entityClass, ids, Operation.DELETE);
+    }
+
+    private void record(Class<?> entityClass, Collection<Long> ids, Operation operation) {
+        record(entityClass, ids, operation, System.currentTimeMillis());
+    }
+
+    private void record(Class<?> entityClass, Collection<Long> ids, Operation operation, long dueMillis) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String entityType = entityType(entityClass);
+        jdbcTemplate.batchUpdate("insert into search_outbox (entity_type, entity_id, operation, created_millis) values (?, ?, ?, ?)",
+            new ArrayList<>(ids), ids.size(), (ps, id) -> {
+                ps.setString(1, entityType);
+                ps.setLong(2, Objects.requireNonNull(id));
+                ps.setString(3, operation.name());
+                ps.setLong(4, dueMillis);
+            });
+    }
+
+    /**
+     * Get the pending entries of an entity class, oldest first.
+     *
+     * @param entityClass the class of the entities.
+     * @return the entries.
+     */
+    public List<Entry> findAll(Class<?> entityClass) {
+        return jdbcTemplate.query("select id, entity_type, entity_id, operation, created_millis from search_outbox" +
+            " where entity_type = ? order by id", ENTRY_MAPPER, entityType(entityClass));
+    }
+
+    /**
+     * Read and lock the oldest entries which are due, until the current transaction ends.
+     */
+    List<Entry> lockOldest(int limit) {
+        return jdbcTemplate.query("select id, entity_type, entity_id, operation, created_millis from search_outbox" +
+            " where created_millis <= ? order by id limit ? for update", ENTRY_MAPPER, System.currentTimeMillis(), limit);
+    }
+
+    /**
+     * Read and lock the entries of some entities which are due, until the current transaction ends.
+     */
+    List<Entry> lock(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.add(entityType(entityClass));
+        args.addAll(ids);
+        args.add(System.currentTimeMillis());
+        return jdbcTemplate.query("select id, entity_type, entity_id, operation, created_millis from search_outbox" +
+            " where entity_type = ? and entity_id in (" + placeholders + ") and created_millis <= ? order by id for update",
+            ENTRY_MAPPER, args.toArray());
+    }
+
+    void remove(List<Entry> entries) {
+        jdbcTemplate.batchUpdate("delete from search_outbox where id = ?", entries, entries.size(),
+            (ps, entry) -> ps.setLong(1, entry.getId()));
+    }
+
+    /**
+     * @return the number of pending entries which are due and the due date of the oldest one, in epoch millis, if any.
+     */
+    long[] countAndOldest() {
+        return jdbcTemplate.queryForObject("select count(*), min(created_millis) from search_outbox where created_millis <= ?",
+            (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }, System.currentTimeMillis());
+    }
+
+    String entityType(Class<?> entityClass) {
+        return entityManager.getMetamodel().entity(entityClass).getName();
+    }
+
+    Optional<Class<?>> entityClass(String entityType) {
+        return entityManager.getMetamodel().getEntities().stream()
+            .filter(entity -> entity.getName().equals(entityType))
+            .<Class<?>>map(entity -> entity.getJavaType())
+            .findFirst();
+    }
+
+    /**
+     * A row of the outbox.
+     */
+    public static final class Entry {
+
+        private final long id;
+
+        private final String entityType;
+
+        private final long entityId;
+
+        private final Operation operation;
+
+        private final long createdMillis;
+
+        Entry(long id, String entityType, long entityId, Operation operation, long createdMillis) {
+            this.id = id;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.operation = operation;
+            this.createdMillis = createdMillis;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public long getEntityId() {
+            return entityId;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "id=" + id +
+                ", entityType='" + entityType + "'" +
+                ", entityId=" + entityId +
+                ", operation=" + operation +
+                "}";
+        }
+    }
+}
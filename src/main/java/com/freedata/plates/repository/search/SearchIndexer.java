@@ -0,0 +1,388 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.BulkResult;
+import io.searchbox.params.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the entries of the {@link SearchIndexOutbox} to Elasticsearch.
+ * <p>
+ * Every {@code application.search-indexing.poll-interval-ms}, the oldest entries are locked, up to
+ * {@code application.search-indexing.batch-size}, and the entries of the same entity coalesced: each entity is read
+ * once, in its committed state, and indexed or deleted by one {@code _bulk} request. The entries are deleted in the
+ * same transaction, or kept for the next poll if Elasticsearch could not take them. The locks serialize the indexers
+ * of all the instances, so that an older state of a document never overwrites a newer one.
+ * <p>
+ * Callers which need to read their writes from Elasticsearch use {@link #indexNow(Class, Collection)} once their
+ * transaction is committed.
+ * <p>
+ * The documents of plates include the entities around them, see {@link PlateDocument}. When such entities change,
+ * their plates are recorded in the outbox, to be indexed again by the next batches.
+ * <p>
+ * The indices being rebuilt by {@link SearchReindexer}, on any instance, are read from {@link SearchReindexes} by each
+ * batch, which also writes to them.
+ */
+@Component
+public class SearchIndexer implements InitializingBean, DisposableBean {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final SearchReindexes searchReindexes;
+
+    private final JestClient jestClient;
+
+    private final CustomEntityMapper entityMapper;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final ApplicationProperties.SearchIndexing searchIndexing;
+
+    /**
+     * Loaders of the documents which are not the entity itself, by id.
+     */
+    private final Map<Class<?>, Function<Collection<Long>, Map<Long, ?>>> loaders = new HashMap<>();
+
+    private final PlateDocuments plateDocuments;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer delay;
+
+    private final Counter failed;
+
+    private ScheduledFuture<?> polling;
+
+    public SearchIndexer(SearchIndexOutbox searchIndexOutbox, SearchReindexes searchReindexes, JestClient jestClient,
+            CustomEntityMapper entityMapper, EntityManager entityManager, PlatformTransactionManager transactionManager,
+            TaskScheduler taskScheduler, ApplicationProperties applicationProperties, MeterRegistry meterRegistry,
+            PlateDocuments plateDocuments) {
+        this.searchIndexOutbox = searchIndexOutbox;
+        this.searchReindexes = searchReindexes;
+        this.jestClient = jestClient;
+        this.entityMapper = entityMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // No gap locks, which would hold back the transactions recording new entries during the bulk request
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.taskScheduler = taskScheduler;
+        this.searchIndexing = applicationProperties.getSearchIndexing();
+        this.plateDocuments = plateDocuments;
+        this.loaders.put(Plate.class, plateDocuments::load);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("search.outbox.pending", pending, AtomicLong::get)
+            .description("Entries of the search outbox waiting to be sent to Elasticsearch")
+            .register(meterRegistry);
+        Gauge.builder("search.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+            .description("Age of the oldest entry of the search outbox")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.delay = Timer.builder("search.outbox.delay")
+            .description("Time between the recording of an entry and its indexing")
+            .register(meterRegistry);
+        this.failed = Counter.builder("search.outbox.failed")
+            .description("Documents rejected by Elasticsearch, whose entries are dropped")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (searchIndexing.isEnabled()) {
+            polling = taskScheduler.scheduleWithFixedDelay(this::poll, Duration.ofMillis(searchIndexing.getPollIntervalMs()));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (polling != null) {
+            polling.cancel(false);
+        }
+    }
+
+    /**
+     * Send the outbox to Elasticsearch until it is empty.
+     */
+    void poll() {
+        try {
+            while (drain(() -> searchIndexOutbox.lockOldest(searchIndexing.getBatchSize()), false) >= searchIndexing.getBatchSize()) {
+                log.debug("Search outbox drained by a full batch, draining it again");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not send the search outbox to Elasticsearch, retrying in {} ms: {}",
+                searchIndexing.getPollIntervalMs(), e.getMessage());
+        } finally {
+            updateLag();
+        }
+    }
+
+    /**
+     * Index or delete the documents of some entities now, as they are committed, and wait for them to be searchable.
+     *
+     * @param entityClass the class of the entities.
+     * @param ids the ids of the entities, deleted from the index if they do not exist anymore.
+     */
+    public void indexNow(Class<?> entityClass, Collection<Long> ids) {
+        String entityType = searchIndexOutbox.entityType(entityClass);
+        drain(() -> {
+            List<Entry> entries = new ArrayList<>(searchIndexOutbox.lock(entityClass, ids));
+            // Documents the outbox had already sent are sent again, to be refreshed
+            ids.forEach(id -> entries.add(new Entry(0, entityType, id, Operation.INDEX, System.currentTimeMillis())));
+            return entries;
+        }, true);
+    }
+
+    private int drain(Supplier<List<Entry>> locker, boolean refresh) {
+        Integer drained = transactionTemplate.execute(status -> {
+            List<Entry> entries = locker.get();
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            Map<String, Map<Long, Operation>> operations = coalesce(entries);
+            send(operations, refresh);
+            indexPlatesOf(operations);
+            List<Entry> removed = new ArrayList<>(entries.size());
+            long now = System.currentTimeMillis();
+            for (Entry entry : entries) {
+                if (entry.getId() > 0) {
+                    removed.add(entry);
+                    delay.record(now - entry.getCreatedMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+            searchIndexOutbox.remove(removed);
+            return entries.size();
+        });
+        return drained == null ? 0 : drained;
+    }
+
+    /**
+     * Keep the last entry of each entity, by entity type.
+     */
+    private Map<String, Map<Long, Operation>> coalesce(List<Entry> entries) {
+        Map<String, Map<Long, Operation>> operations = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            operations.computeIfAbsent(entry.getEntityType(), entityType -> new LinkedHashMap<>())
+                .put(entry.getEntityId(), entry.getOperation());
+        }
+        return operations;
+    }
+
+    /**
+     * Record the plates whose documents include the entities which changed, for the next batches to index them. The
+     * plates indexed by this batch already have the committed state of the entities.
+     */
+    private void indexPlatesOf(Map<String, Map<Long, Operation>> operations) {
+        Set<Long> plateIds = new HashSet<>();
+        for (Map.Entry<String, Map<Long, Operation>> byType : operations.entrySet()) {
+            Optional<Class<?>> entityClass = searchIndexOutbox.entityClass(byType.getKey());
+            if (entityClass.isPresent() && plateDocuments.include(entityClass.get())) {
+                plateIds.addAll(plateDocuments.platesOf(entityClass.get(), byType.getValue().keySet()));
+            }
+        }
+        plateIds.removeAll(operations.getOrDefault(searchIndexOutbox.entityType(Plate.class), Collections.emptyMap()).keySet());
+        if (!plateIds.isEmpty()) {
+            log.debug("Indexing again {} plates including entities which changed", plateIds.size());
+            searchIndexOutbox.indexAll(Plate.class, plateIds);
+        }
+    }
+
+    /**
+     * Send the operations of the outbox, also to the indices being rebuilt. Documents Elasticsearch rejects, which
+     * would be rejected again, are dropped.
+     */
+    private void send(Map<String, Map<Long, Operation>> operations, boolean refresh) {
+        Map<String, String> rebuilds = searchReindexes.running();
+        StreamingBulk.Builder bulk = new StreamingBulk.Builder(entityMapper.writer());
+        if (refresh) {
+            bulk.setParameter(Parameters.REFRESH, "wait_for");
+        }
+        int indexed = 0;
+        int deleted = 0;
+        for (Map.Entry<String, Map<Long, Operation>> byType : operations.entrySet()) {
+            Optional<Class<?>> entityClass = searchIndexOutbox.entityClass(byType.getKey());
+            if (!entityClass.isPresent() || document(entityClass.get()) == null) {
+                log.warn("Dropping the search outbox entries of {}, which is not an indexed entity", byType.getKey());
+                continue;
+            }
+            String indexName = indexName(entityClass.get());
+            String indexType = indexType(entityClass.get());
+            String rebuildName = rebuilds.get(indexName);
+            List<Long> deletedFromRebuild = new ArrayList<>();
+            Map<Long, Object> entities = load(entityClass.get(), byType.getValue().entrySet().stream()
+                .filter(operation -> operation.getValue() == Operation.INDEX)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList()));
+            for (Map.Entry<Long, Operation> operation : byType.getValue().entrySet()) {
+                String id = operation.getKey().toString();
+                Object entity = entities.get(operation.getKey());
+                // Also deleted when the entity was deleted after its entry was recorded
+                boolean index = operation.getValue() == Operation.INDEX && entity != null;
+                if (index) {
+                    bulk.index(indexName, indexType, id, entity);
+                } else {
+                    bulk.delete(indexName, indexType, id);
+                }
+                if (rebuildName != null) {
+                    if (index) {
+                        bulk.index(rebuildName, indexType, id, entity);
+                    } else {
+                        bulk.delete(rebuildName, indexType, id);
+                        deletedFromRebuild.add(operation.getKey());
+                    }
+                }
+                if (index) {
+                    indexed++;
+                } else {
+                    deleted++;
+                }
+            }
+            if (!deletedFromRebuild.isEmpty()) {
+                // Committed with the removal of the entries, for the rebuild to delete them again once it is live
+                searchReindexes.recordDeleted(indexName, deletedFromRebuild);
+            }
+        }
+        if (indexed + deleted > 0) {
+            execute(bulk.build(), false);
+            // Only once sent, as the entries of a failed request are sent again
+            meterRegistry.counter("search.outbox.sent", "operation", "index").increment(indexed);
+            meterRegistry.counter("search.outbox.sent", "operation", "delete").increment(deleted);
+        }
+    }
+
+    /**
+     * Index entities, in their committed state, in an index being rebuilt. Documents the outbox wrote meanwhile,
+     * which are more recent, are kept.
+     *
+     * @param entityClass the class of the entities.
+     * @param indexName the name of the index.
+     * @param ids the ids of the entities, the missing ones are skipped.
+     * @return the number of documents written.
+     */
+    int indexInto(Class<?> entityClass, String indexName, Collection<Long> ids) {
+        String indexType = indexType(entityClass);
+        StreamingBulk.Builder bulk = new StreamingBulk.Builder(entityMapper.writer());
+        Map<Long, Object> documents = load(entityClass, ids);
+        for (Map.Entry<Long, Object> document : documents.entrySet()) {
+            bulk.create(indexName, indexType, document.getKey().toString(), document.getValue());
+        }
+        if (documents.isEmpty()) {
+            return 0;
+        }
+        return documents.size() - execute(bulk.build(), true);
+    }
+
+    /**
+     * Send a bulk request, failing if Elasticsearch could not take all of it.
+     *
+     * @return the number of documents which already existed, when created with {@code op_type=create}.
+     */
+    private int execute(StreamingBulk bulk, boolean create) {
+        BulkResult result;
+        try {
+            result = jestClient.execute(bulk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (result.getResponseCode() != 200) {
+            throw new IllegalStateException("Elasticsearch answered the bulk request with " + result.getResponseCode() +
+                ": " + result.getErrorMessage());
+        }
+        for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+            if (item.status == 429 || item.status >= 500) {
+                throw new IllegalStateException("Elasticsearch could not take the bulk request: " + item.error);
+            }
+        }
+        int existing = 0;
+        for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+            if (create && item.status == 409) {
+                existing++;
+            } else {
+                log.error("Elasticsearch rejected the document {}/{}: {}", item.index, item.id, item.error);
+                failed.increment();
+            }
+        }
+        return existing;
+    }
+
+    static Document document(Class<?> entityClass) {
+        return AnnotatedElementUtils.findMergedAnnotation(entityClass, Document.class);
+    }
+
+    static String indexName(Class<?> entityClass) {
+        return document(entityClass).indexName();
+    }
+
+    static String indexType(Class<?> entityClass) {
+        String type = document(entityClass).type();
+        // The default type of Spring Data Elasticsearch
+        return type.isEmpty() ? entityClass.getSimpleName().toLowerCase(Locale.ROOT) : type;
+    }
+
+    private Map<Long, Object> load(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Function<Collection<Long>, Map<Long, ?>> loader = loaders.get(entityClass);
+        if (loader != null) {
+            return new HashMap<Long, Object>(loader.apply(ids));
+        }
+        Map<Long, Object> entities = new HashMap<>();
+        for (Object entity : entityManager.createQuery("select entity from " + searchIndexOutbox.entityType(entityClass) + " entity where entity.id in :ids")
+                .setParameter("ids", ids)
+                .getResultList()) {
+            entities.put((Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity), entity);
+        }
+        return entities;
+    }
+
+    private void updateLag() {
+        try {
+            long[] countAndOldest = transactionTemplate.execute(status -> searchIndexOutbox.countAndOldest());
+            pending.set(countAndOldest[0]);
+            lagMillis.set(countAndOldest[0] == 0 ? 0 : Math.max(0, System.currentTimeMillis() - countAndOldest[1]));
+        } catch (RuntimeException e) {
+            log.debug("Could not measure the search outbox: {}", e.getMessage());
+        }
+    }
+}
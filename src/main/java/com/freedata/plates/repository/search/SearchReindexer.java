@@ -0,0 +1,558 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.config.ReadReplicaRoutingDataSource;
+
+import com.github.vanroy.springdata.jest.JestElasticsearchTemplate;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.Refresh;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.AliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.mapping.GetMapping;
+import io.searchbox.indices.settings.GetSettings;
+import io.searchbox.indices.settings.UpdateSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the Elasticsearch index of an entity from the database, while the application keeps searching and
+ * indexing.
+ * <p>
+ * Entities are mapped to an alias. A rebuild creates a new index, named after the alias and the time it started, with
+ * the mappings and analysis of the live index, no replica and no refresh. The analysis and mappings an entity
+ * declares with {@link Setting} and {@link Mapping} take precedence, so that a rebuild applies them to an index
+ * created before them. The table is split in
+ * {@code application.search-indexing.reindex-workers} id ranges, loaded in parallel in bulk requests of
+ * {@code application.search-indexing.reindex-batch-size} documents. Meanwhile, {@link SearchIndexer} writes the
+ * outbox to both indices, and the rebuild only creates the documents the outbox did not write: the new index ends up
+ * as recent as the live one. The replicas and refresh of the live index are then restored, and one {@code _aliases}
+ * request points the alias to the new index and deletes the old one. A failed rebuild deletes its index and leaves
+ * the alias as it was.
+ * <p>
+ * Rebuilds are recorded in {@link SearchReindexes}, which all the instances share: an alias is rebuilt by one
+ * instance at a time, and the outbox is written to the new index whichever instance sends it.
+ * <p>
+ * The entities are read from the primary: the outbox entries of the rows a replica has not caught up on may already
+ * have been sent to the live index, and would not be sent again to the new one.
+ */
+@Component
+public class SearchReindexer implements DisposableBean {
+
+    /**
+     * The state of a rebuild.
+     */
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexer.class);
+
+    private final SearchIndexer searchIndexer;
+
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final SearchReindexes searchReindexes;
+
+    private final JestClient jestClient;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final ApplicationProperties.SearchIndexing searchIndexing;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The indexed entities, by alias.
+     */
+    private final Map<String, Class<?>> entityClasses = new TreeMap<>();
+
+    /**
+     * The last rebuild of each alias run by this instance.
+     */
+    private final Map<String, Reindex> reindexes = new ConcurrentHashMap<>();
+
+    private final ThreadPoolTaskExecutor coordinators;
+
+    private final ThreadPoolTaskExecutor workers;
+
+    public SearchReindexer(SearchIndexer searchIndexer, SearchIndexOutbox searchIndexOutbox, SearchReindexes searchReindexes,
+            JestClient jestClient, EntityManager entityManager, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchIndexer = searchIndexer;
+        this.searchIndexOutbox = searchIndexOutbox;
+        this.searchReindexes = searchReindexes;
+        this.jestClient = jestClient;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.searchIndexing = applicationProperties.getSearchIndexing();
+        this.meterRegistry = meterRegistry;
+        for (EntityType<?> entityType : entityManager.getMetamodel().getEntities()) {
+            if (SearchIndexer.document(entityType.getJavaType()) != null) {
+                entityClasses.put(SearchIndexer.indexName(entityType.getJavaType()), entityType.getJavaType());
+            }
+        }
+        this.coordinators = new ThreadPoolTaskExecutor();
+        this.coordinators.setCorePoolSize(Math.max(1, entityClasses.size()));
+        this.coordinators.setThreadNamePrefix("search-reindex-");
+        this.coordinators.initialize();
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(Math.max(1, searchIndexing.getReindexWorkers()));
+        this.workers.setThreadNamePrefix("search-reindex-worker-");
+        this.workers.initialize();
+    }
+
+    @Override
+    public void destroy() {
+        coordinators.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * @return the aliases the entities are indexed under.
+     */
+    public Set<String> getAliases() {
+        return Collections.unmodifiableSet(entityClasses.keySet());
+    }
+
+    /**
+     * @return the last rebuild of each alias, if any, whichever instance ran it.
+     */
+    public Collection<Reindex> getReindexes() {
+        return readOnlyTransactionTemplate.execute(status -> searchReindexes.findAll());
+    }
+
+    /**
+     * Start rebuilding the index of an alias, in the background.
+     *
+     * @param alias the alias of the index.
+     * @return the rebuild, which is updated as it runs.
+     * @throws IllegalArgumentException if no entity is indexed under this alias.
+     * @throws IllegalStateException if the index of this alias is already being rebuilt, by any instance.
+     */
+    public Reindex reindex(String alias) {
+        Class<?> entityClass = entityClasses.get(alias);
+        if (entityClass == null) {
+            throw new IllegalArgumentException("No entity is indexed under " + alias);
+        }
+        Reindex reindex = new Reindex(alias, alias + "_" + System.currentTimeMillis());
+        boolean started;
+        try {
+            started = Boolean.TRUE.equals(transactionTemplate.execute(status -> searchReindexes.start(reindex)));
+        } catch (DuplicateKeyException e) {
+            // Another instance started the first rebuild of this alias meanwhile
+            started = false;
+        }
+        if (!started) {
+            throw new IllegalStateException("The index of " + alias + " is already being rebuilt");
+        }
+        reindexes.put(alias, reindex);
+        coordinators.execute(() -> run(reindex, entityClass));
+        return reindex;
+    }
+
+    private void run(Reindex reindex, Class<?> entityClass) {
+        String alias = reindex.alias;
+        String indexName = reindex.indexName;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter documents = Counter.builder("search.reindex.documents")
+            .description("Documents written by the rebuilds of the Elasticsearch indices")
+            .tag("index", alias)
+            .register(meterRegistry);
+        Gauge.builder("search.reindex.progress", reindexes, all -> Optional.ofNullable(all.get(alias)).map(Reindex::getProgress).orElse(0.0))
+            .description("Progress of the last rebuild of the Elasticsearch index, from 0 to 1")
+            .tag("index", alias)
+            .register(meterRegistry);
+        log.info("Rebuilding the Elasticsearch index of {} as {}", alias, indexName);
+        boolean created = false;
+        try {
+            JsonObject liveSettings = firstIndex(executeOrNotFound(new GetSettings.Builder().addIndex(alias).build()), "settings");
+            JsonObject liveMappings = firstIndex(executeOrNotFound(new GetMapping.Builder().addIndex(alias).build()), "mappings");
+            List<String> liveIndices = liveIndices(alias);
+            createIndex(indexName, entityClass, liveSettings, liveMappings);
+            created = true;
+
+            long[] range = ReadReplicaRoutingDataSource.onPrimary(() -> readOnlyTransactionTemplate.execute(status -> idRange(entityClass)));
+            reindex.total = range[2];
+            transactionTemplate.execute(status -> {
+                searchReindexes.total(reindex);
+                return null;
+            });
+            if (range[2] > 0) {
+                load(reindex, entityClass, range[0], range[1], documents);
+            }
+
+            String replicas = setting(liveSettings, "number_of_replicas").orElse("1");
+            execute(new UpdateSettings.Builder("{\"index\":{\"number_of_replicas\":" + replicas + ",\"refresh_interval\":null}}")
+                .addIndex(indexName).build());
+            execute(new Refresh.Builder().addIndex(indexName).build());
+            List<AliasMapping> swap = new ArrayList<>();
+            swap.add(new AddAliasMapping.Builder(indexName, alias).build());
+            liveIndices.forEach(liveIndex -> swap.add(new RemoveIndexMapping(liveIndex)));
+            execute(new ModifyAliases.Builder(swap).build());
+
+            transactionTemplate.execute(status -> {
+                // Documents deleted by the outbox before the rebuild created them, now deleted from the alias
+                searchIndexOutbox.deleteAll(entityClass, searchReindexes.deletedIds(alias));
+                searchReindexes.finish(reindex, State.COMPLETED);
+                return null;
+            });
+            reindex.finishedAt = Instant.now();
+            reindex.state = State.COMPLETED;
+            log.info("Rebuilt the Elasticsearch index of {} as {}: {} documents, replacing {}", alias, indexName,
+                reindex.documents.get(), liveIndices);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the Elasticsearch index of {}: {}", alias, e.getMessage(), e);
+            reindex.error = e.getMessage();
+            try {
+                transactionTemplate.execute(status -> {
+                    searchReindexes.finish(reindex, State.FAILED);
+                    return null;
+                });
+            } catch (RuntimeException finishFailure) {
+                log.warn("Could not record the failure of the rebuild of {}, it will be taken as abandoned: {}", alias,
+                    finishFailure.getMessage());
+            }
+            if (created) {
+                try {
+                    execute(new DeleteIndex.Builder(indexName).build());
+                } catch (RuntimeException deleteFailure) {
+                    log.warn("Could not delete the index {} of the failed rebuild: {}", indexName, deleteFailure.getMessage());
+                }
+            }
+            reindex.finishedAt = Instant.now();
+            reindex.state = State.FAILED;
+        } finally {
+            sample.stop(Timer.builder("search.reindex.duration")
+                .description("Duration of the rebuilds of the Elasticsearch indices")
+                .tag("index", alias)
+                .tag("state", reindex.state.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Load the id ranges in parallel, failing as soon as one of them fails.
+     */
+    private void load(Reindex reindex, Class<?> entityClass, long minId, long maxId, Counter documents) {
+        int rangeCount = (int) Math.max(1, Math.min(searchIndexing.getReindexWorkers(), maxId - minId + 1));
+        long rangeSize = (maxId - minId) / rangeCount + 1;
+        List<Future<?>> ranges = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            long fromId = minId + i * rangeSize;
+            long toId = Math.min(maxId, fromId + rangeSize - 1);
+            ranges.add(workers.submit(() -> loadRange(reindex, entityClass, fromId, toId, documents)));
+        }
+        try {
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebuild of " + reindex.alias + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() :
+                new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            ranges.forEach(range -> range.cancel(true));
+        }
+    }
+
+    private void loadRange(Reindex reindex, Class<?> entityClass, long fromId, long toId, Counter documents) {
+        String entityName = searchIndexOutbox.entityType(entityClass);
+        long afterId = fromId - 1;
+        while (!Thread.currentThread().isInterrupted()) {
+            long after = afterId;
+            List<Long> ids = ReadReplicaRoutingDataSource.onPrimary(() -> readOnlyTransactionTemplate.execute(status -> {
+                List<Long> chunk = entityManager.createQuery("select entity.id from " + entityName + " entity" +
+                    " where entity.id > :afterId and entity.id <= :toId order by entity.id", Long.class)
+                    .setParameter("afterId", after)
+                    .setParameter("toId", toId)
+                    .setMaxResults(searchIndexing.getReindexBatchSize())
+                    .getResultList();
+                if (!chunk.isEmpty()) {
+                    documents.increment(searchIndexer.indexInto(entityClass, reindex.indexName, chunk));
+                }
+                return chunk;
+            }));
+            if (ids.isEmpty()) {
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+            reindex.documents.addAndGet(ids.size());
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> searchReindexes.progress(reindex, ids.size())))) {
+                throw new IllegalStateException("Rebuild of " + reindex.alias + " taken over by another instance");
+            }
+        }
+        throw new IllegalStateException("Rebuild of " + reindex.alias + " interrupted");
+    }
+
+    /**
+     * @return the min id, max id and number of rows of an entity table.
+     */
+    private long[] idRange(Class<?> entityClass) {
+        Object[] range = entityManager.createQuery("select min(entity.id), max(entity.id), count(entity) from " +
+            searchIndexOutbox.entityType(entityClass) + " entity", Object[].class).getSingleResult();
+        return range[0] == null ? new long[] { 0, 0, 0 } :
+            new long[] { ((Number) range[0]).longValue(), ((Number) range[1]).longValue(), ((Number) range[2]).longValue() };
+    }
+
+    private void createIndex(String indexName, Class<?> entityClass, JsonObject liveSettings, JsonObject liveMappings) {
+        JsonObject index = new JsonObject();
+        setting(liveSettings, "number_of_shards").ifPresent(shards -> index.addProperty("number_of_shards", shards));
+        // Nothing to replicate nor to refresh until the index is loaded
+        index.addProperty("number_of_replicas", 0);
+        index.addProperty("refresh_interval", "-1");
+        if (liveSettings != null && liveSettings.getAsJsonObject("index").has("analysis")) {
+            index.add("analysis", liveSettings.getAsJsonObject("index").get("analysis"));
+        }
+        Setting setting = AnnotatedElementUtils.findMergedAnnotation(entityClass, Setting.class);
+        if (setting != null && !setting.settingPath().isEmpty()) {
+            JsonObject declared = classpathJson(setting.settingPath());
+            JsonObject declaredIndex = declared.has("index") ? declared.getAsJsonObject("index") : declared;
+            if (declaredIndex.has("analysis")) {
+                index.add("analysis", declaredIndex.get("analysis"));
+            }
+        }
+        JsonObject mappings = liveMappings == null ? new JsonObject() : liveMappings;
+        Mapping mapping = AnnotatedElementUtils.findMergedAnnotation(entityClass, Mapping.class);
+        if (mapping != null && !mapping.mappingPath().isEmpty()) {
+            String indexType = SearchIndexer.indexType(entityClass);
+            if (!mappings.has(indexType)) {
+                mappings.add(indexType, new JsonObject());
+            }
+            merge(mappings.getAsJsonObject(indexType), classpathJson(mapping.mappingPath()));
+        }
+        JsonObject settings = new JsonObject();
+        settings.add("index", index);
+        JsonObject payload = new JsonObject();
+        payload.add("settings", settings);
+        if (mappings.size() > 0) {
+            payload.add("mappings", mappings);
+        }
+        execute(new CreateIndex.Builder(indexName).payload(payload.toString()).build());
+    }
+
+    private static JsonObject classpathJson(String path) {
+        return new JsonParser().parse(JestElasticsearchTemplate.readFileFromClasspath(path)).getAsJsonObject();
+    }
+
+    /**
+     * Merge the fields of a declared mapping into a live one, the declared fields replacing the live ones.
+     */
+    private static void merge(JsonObject live, JsonObject declared) {
+        for (Map.Entry<String, JsonElement> field : declared.entrySet()) {
+            JsonElement liveField = live.get(field.getKey());
+            if (liveField != null && liveField.isJsonObject() && field.getValue().isJsonObject() &&
+                    (field.getKey().equals("properties") || field.getValue().getAsJsonObject().has("properties"))) {
+                merge(liveField.getAsJsonObject(), field.getValue().getAsJsonObject());
+            } else {
+                live.add(field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the indices behind an alias, or the index named like it, which the alias will replace.
+     */
+    private List<String> liveIndices(String alias) {
+        JestResult result = executeOrNotFound(new GetAliases.Builder().addIndex(alias).build());
+        return result == null ? Collections.emptyList() : new ArrayList<>(result.getJsonObject().keySet());
+    }
+
+    /**
+     * @return a section of the first index of a response keyed by index, such as its settings or mappings.
+     */
+    private static JsonObject firstIndex(JestResult result, String section) {
+        if (result == null) {
+            return null;
+        }
+        for (Map.Entry<String, JsonElement> index : result.getJsonObject().entrySet()) {
+            JsonElement value = index.getValue().getAsJsonObject().get(section);
+            if (value != null && value.isJsonObject()) {
+                return value.getAsJsonObject();
+            }
+        }
+        return null;
+    }
+
+    private static Optional<String> setting(JsonObject settings, String name) {
+        if (settings == null || !settings.has("index") || !settings.getAsJsonObject("index").has(name)) {
+            return Optional.empty();
+        }
+        return Optional.of(settings.getAsJsonObject("index").get(name).getAsString());
+    }
+
+    private JestResult execute(Action<JestResult> action) {
+        JestResult result = executeOrNotFound(action);
+        if (result == null) {
+            throw new IllegalStateException("Elasticsearch answered " + action.getRestMethodName() + " " +
+                action.getClass().getSimpleName() + " with 404");
+        }
+        return result;
+    }
+
+    /**
+     * @return the result of the action, or null if Elasticsearch answered 404.
+     */
+    private JestResult executeOrNotFound(Action<JestResult> action) {
+        JestResult result;
+        try {
+            result = jestClient.execute(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (result.getResponseCode() == 404) {
+            return null;
+        }
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException("Elasticsearch answered " + action.getClass().getSimpleName() + " with " +
+                result.getResponseCode() + ": " + result.getErrorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * A rebuild of the index of an alias.
+     */
+    public static final class Reindex {
+
+        private final String alias;
+
+        private final String indexName;
+
+        private final Instant startedAt;
+
+        private final AtomicLong documents;
+
+        private volatile long total;
+
+        private volatile State state;
+
+        private volatile Instant finishedAt;
+
+        private volatile String error;
+
+        private Reindex(String alias, String indexName) {
+            this(alias, indexName, State.RUNNING, Instant.now(), null, 0, 0, null);
+        }
+
+        Reindex(String alias, String indexName, State state, Instant startedAt, Instant finishedAt, long documents, long total,
+                String error) {
+            this.alias = alias;
+            this.indexName = indexName;
+            this.state = state;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.documents = new AtomicLong(documents);
+            this.total = total;
+            this.error = error;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public String getIndexName() {
+            return indexName;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        /**
+         * @return the entities read so far.
+         */
+        public long getDocuments() {
+            return documents.get();
+        }
+
+        /**
+         * @return the entities in the table when the rebuild started.
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * @return the part of the entities read so far, from 0 to 1.
+         */
+        public double getProgress() {
+            if (state == State.COMPLETED) {
+                return 1;
+            }
+            return total == 0 ? 0 : Math.min(1, (double) documents.get() / total);
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * The {@code remove_index} action of {@code _aliases}, which deletes an index in the same atomic request.
+     */
+    private static final class RemoveIndexMapping extends AliasMapping {
+
+        private RemoveIndexMapping(String indexName) {
+            indices.add(indexName);
+        }
+
+        @Override
+        public String getType() {
+            return "remove_index";
+        }
+
+        @Override
+        public List<Map<String, Object>> getData() {
+            return Collections.singletonList(Collections.singletonMap(getType(), Collections.singletonMap("index", indices.get(0))));
+        }
+    }
+}
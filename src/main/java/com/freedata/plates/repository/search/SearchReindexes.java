@@ -0,0 +1,159 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.repository.search.SearchReindexer.Reindex;
+import com.freedata.plates.repository.search.SearchReindexer.State;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code search_reindex} table, with the last rebuild of each alias, and the {@code search_reindex_deleted} table,
+ * with the documents deleted from the indices being rebuilt.
+ * <p>
+ * They are shared by all the instances: the one which starts a rebuild locks the row of its alias, the
+ * {@link SearchIndexer} of each instance reads the indices being rebuilt to also write to them, and records the
+ * documents it deletes from them. Rows are written in the transaction of the caller.
+ */
+@Repository
+public class SearchReindexes {
+
+    /**
+     * A running rebuild whose progress was not recorded for this long is taken as abandoned, by an instance which
+     * stopped.
+     */
+    static final long ABANDONED_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String COLUMNS = "alias, index_name, state, documents, total, error, started_millis, updated_millis, finished_millis";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchReindexes(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the last rebuild of each alias, by alias.
+     */
+    List<Reindex> findAll() {
+        return jdbcTemplate.query("select " + COLUMNS + " from search_reindex order by alias", (rs, rowNum) -> reindex(rs));
+    }
+
+    /**
+     * Record the start of a rebuild, unless another rebuild of its alias is running. The row of the alias is locked
+     * until the end of the current transaction.
+     *
+     * @param reindex the rebuild.
+     * @return false if another rebuild of the alias is running.
+     * @throws org.springframework.dao.DuplicateKeyException if another instance recorded the first rebuild of the
+     * alias meanwhile.
+     */
+    boolean start(Reindex reindex) {
+        List<Reindex> current = jdbcTemplate.query("select " + COLUMNS + " from search_reindex where alias = ? for update",
+            (rs, rowNum) -> reindex(rs), reindex.getAlias());
+        if (!current.isEmpty() && current.get(0).getState() == State.RUNNING) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (current.isEmpty()) {
+            jdbcTemplate.update("insert into search_reindex (" + COLUMNS + ") values (?, ?, ?, 0, 0, null, ?, ?, null)",
+                reindex.getAlias(), reindex.getIndexName(), State.RUNNING.name(), reindex.getStartedAt().toEpochMilli(), now);
+        } else {
+            jdbcTemplate.update("update search_reindex set index_name = ?, state = ?, documents = 0, total = 0, error = null," +
+                " started_millis = ?, updated_millis = ?, finished_millis = null where alias = ?",
+                reindex.getIndexName(), State.RUNNING.name(), reindex.getStartedAt().toEpochMilli(), now, reindex.getAlias());
+        }
+        jdbcTemplate.update("delete from search_reindex_deleted where alias = ?", reindex.getAlias());
+        return true;
+    }
+
+    /**
+     * @return the names of the indices being rebuilt, by alias.
+     */
+    Map<String, String> running() {
+        Map<String, String> running = new HashMap<>();
+        jdbcTemplate.query("select alias, index_name from search_reindex where state = ? and updated_millis >= ?",
+            rs -> {
+                running.put(rs.getString("alias"), rs.getString("index_name"));
+            }, State.RUNNING.name(), System.currentTimeMillis() - ABANDONED_AFTER_MILLIS);
+        return running;
+    }
+
+    /**
+     * Record the number of rows of the table of a running rebuild.
+     */
+    void total(Reindex reindex) {
+        jdbcTemplate.update("update search_reindex set total = ?, updated_millis = ? where alias = ? and index_name = ?",
+            reindex.getTotal(), System.currentTimeMillis(), reindex.getAlias(), reindex.getIndexName());
+    }
+
+    /**
+     * Record documents written by a running rebuild, which also tells it is not abandoned.
+     *
+     * @return false if another rebuild of the alias started meanwhile, taking this one as abandoned.
+     */
+    boolean progress(Reindex reindex, int documents) {
+        return 1 == jdbcTemplate.update("update search_reindex set documents = documents + ?, updated_millis = ? where alias = ? and index_name = ?",
+            documents, System.currentTimeMillis(), reindex.getAlias(), reindex.getIndexName());
+    }
+
+    /**
+     * Record the end of a rebuild, completed or failed.
+     *
+     * @param reindex the rebuild, still running in this instance.
+     * @param state the state it ends in.
+     */
+    void finish(Reindex reindex, State state) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("update search_reindex set state = ?, documents = ?, error = ?, updated_millis = ?, finished_millis = ?" +
+            " where alias = ? and index_name = ?", state.name(), reindex.getDocuments(),
+            reindex.getError() == null ? null : StringUtils.abbreviate(reindex.getError(), MAX_ERROR_LENGTH), now, now,
+            reindex.getAlias(), reindex.getIndexName());
+    }
+
+    /**
+     * Record documents deleted from the index being rebuilt of an alias.
+     */
+    void recordDeleted(String alias, Collection<Long> ids) {
+        jdbcTemplate.batchUpdate("insert into search_reindex_deleted (alias, entity_id) values (?, ?)", new ArrayList<>(ids), ids.size(),
+            (ps, id) -> {
+                ps.setString(1, alias);
+                ps.setLong(2, Objects.requireNonNull(id));
+            });
+    }
+
+    /**
+     * @return the ids of the documents deleted from the index being rebuilt of an alias.
+     */
+    Set<Long> deletedIds(String alias) {
+        return new HashSet<>(jdbcTemplate.queryForList("select entity_id from search_reindex_deleted where alias = ?", Long.class, alias));
+    }
+
+    private static Reindex reindex(ResultSet rs) throws SQLException {
+        State state = State.valueOf(rs.getString("state"));
+        String error = rs.getString("error");
+        if (state == State.RUNNING && rs.getLong("updated_millis") < System.currentTimeMillis() - ABANDONED_AFTER_MILLIS) {
+            state = State.FAILED;
+            error = "Abandoned, without progress since " + Instant.ofEpochMilli(rs.getLong("updated_millis"));
+        }
+        long finishedMillis = rs.getLong("finished_millis");
+        Instant finishedAt = rs.wasNull() ? null : Instant.ofEpochMilli(finishedMillis);
+        return new Reindex(rs.getString("alias"), rs.getString("index_name"), state, Instant.ofEpochMilli(rs.getLong("started_millis")),
+            finishedAt, rs.getLong("documents"), rs.getLong("total"), error);
+    }
+}
@@ -0,0 +1,131 @@
+package com.freedata.plates.repository.search;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.gson.Gson;
+import io.searchbox.core.Bulk;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@code _bulk} request whose body is generated in one pass.
+ * <p>
+ * The {@link Bulk} of Jest takes each document as a string of its own, and serializes the action lines with Gson
+ * before copying everything into the body. Here the action lines and the documents are written by the same Jackson
+ * generator, straight into the body, once the request is sent.
+ */
+final class StreamingBulk extends Bulk {
+
+    /**
+     * Rough size of a document, to allocate the body once for most requests.
+     */
+    private static final int DOCUMENT_SIZE = 512;
+
+    private final ObjectWriter writer;
+
+    private final List<Item> items;
+
+    private StreamingBulk(Builder builder) {
+        super(builder.bulk);
+        this.writer = builder.writer;
+        this.items = builder.items;
+    }
+
+    @Override
+    public String getData(Gson gson) {
+        StringWriter body = new StringWriter(items.size() * DOCUMENT_SIZE);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(body)) {
+            // One action or document per line
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            for (Item item : items) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart(item.method);
+                generator.writeStringField("_id", item.id);
+                generator.writeStringField("_index", item.indexName);
+                generator.writeStringField("_type", item.indexType);
+                generator.writeEndObject();
+                generator.writeEndObject();
+                if (item.document != null) {
+                    writer.writeValue(generator, item.document);
+                }
+            }
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return body.toString();
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    private static final class Item {
+
+        private final String method;
+
+        private final String indexName;
+
+        private final String indexType;
+
+        private final String id;
+
+        private final Object document;
+
+        private Item(String method, String indexName, String indexType, String id, Object document) {
+            this.method = method;
+            this.indexName = indexName;
+            this.indexType = indexType;
+            this.id = id;
+            this.document = document;
+        }
+    }
+
+    static final class Builder {
+
+        private final Bulk.Builder bulk = new Bulk.Builder();
+
+        private final List<Item> items = new ArrayList<>();
+
+        private final ObjectWriter writer;
+
+        Builder(ObjectWriter writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Index a document, replacing the existing one.
+         */
+        Builder index(String indexName, String indexType, String id, Object document) {
+            items.add(new Item("index", indexName, indexType, id, document));
+            return this;
+        }
+
+        /**
+         * Index a document, unless one with the same id exists, which Elasticsearch answers with a {@code 409}.
+         */
+        Builder create(String indexName, String indexType, String id, Object document) {
+            items.add(new Item("create", indexName, indexType, id, document));
+            return this;
+        }
+
+        Builder delete(String indexName, String indexType, String id) {
+            items.add(new Item("delete", indexName, indexType, id, null));
+            return this;
+        }
+
+        Builder setParameter(String parameter, Object value) {
+            bulk.setParameter(parameter, value);
+            return this;
+        }
+
+        StreamingBulk build() {
+            return new StreamingBulk(this);
+        }
+    }
+}
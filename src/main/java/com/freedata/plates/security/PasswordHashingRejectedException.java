@@ -0,0 +1,13 @@
+package com.freedata.plates.security;
+
+/**
+ * This exception is thrown when the password hashing executor is saturated, see {@link BoundedPasswordEncoder}.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message, Throwable t) {
+        super(message, t);
+    }
+}
@@ -2,6 +2,8 @@ package com.freedata.plates.security.jwt;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -16,11 +18,19 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import com.freedata.plates.config.BoundedExpiringCache;
+
 import io.github.freedata.config.freedataProperties;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * Creates the JWT tokens of the users, and turns the tokens of the requests back into authentications.
+ * <p>
+ * Verifying a token costs an HMAC and a JSON parse, on every request. The authentications are kept until their token
+ * expires, by digest of the token, so that a client sending the same token again is only checked against the cache.
+ */
 @Component
 public class TokenProvider {
 
@@ -28,8 +38,17 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    /**
+     * Bound of the authentication cache. Past it, each new token evicts the least recently used one.
+     */
+    static final int MAX_CACHED_AUTHENTICATIONS = 10_000;
+
     private Key key;
 
+    private JwtParser jwtParser;
+
+    private final BoundedExpiringCache<String, VerifiedToken> verifiedTokens = new BoundedExpiringCache<>(MAX_CACHED_AUTHENTICATIONS);
+
     private long tokenValidityInMilliseconds;
 
     private long tokenValidityInMillisecondsForRememberMe;
@@ -53,6 +72,7 @@ public class TokenProvider {
             keyBytes = Decoders.BASE64.decode(freedataProperties.getSecurity().getAuthentication().getJwt().getBase64Secret());
         }
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
         this.tokenValidityInMilliseconds =
             1000 * freedataProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
@@ -82,12 +102,57 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-            .setSigningKey(key)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+        return verify(jwtParser.parseClaimsJws(token).getBody()).toAuthentication(token);
+    }
+
+    public boolean validateToken(String authToken) {
+        return parse(authToken) != null;
+    }
+
+    /**
+     * Get the authentication of a token, from the cache or by verifying it.
+     *
+     * @param token the JWT token.
+     * @return the authentication, or empty if the token is invalid or expired.
+     */
+    public Optional<Authentication> resolveAuthentication(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken verifiedToken = verifiedTokens.get(digest, now);
+        if (verifiedToken != null) {
+            return Optional.of(verifiedToken.toAuthentication(token));
+        }
+        verifiedToken = authenticate(token);
+        if (verifiedToken == null) {
+            return Optional.empty();
+        }
+        if (verifiedToken.expiration != Long.MAX_VALUE) {
+            verifiedTokens.put(digest, verifiedToken, verifiedToken.expiration);
+        }
+        return Optional.of(verifiedToken.toAuthentication(token));
+    }
 
+    /**
+     * Verify a token, bypassing the cache.
+     *
+     * @return the verified token, or {@code null} if it is invalid or expired.
+     */
+    VerifiedToken authenticate(String token) {
+        Claims claims = parse(token);
+        return claims != null ? verify(claims) : null;
+    }
+
+    private Claims parse(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.info("Invalid JWT token.");
+            log.trace("Invalid JWT token trace.", e);
+        }
+        return null;
+    }
+
+    private static VerifiedToken verify(Claims claims) {
         Collection<? extends GrantedAuthority> authorities =
             Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                 .map(SimpleGrantedAuthority::new)
@@ -95,17 +160,38 @@ public class TokenProvider {
 
         User principal = new User(claims.getSubject(), "", authorities);
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(principal, authorities, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
     }
 
-    public boolean validateToken(String authToken) {
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            log.info("Invalid JWT token.");
-            log.trace("Invalid JWT token trace.", e);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The principal of a verified token. Each request gets an authentication of its own, holding its own token.
+     */
+    static final class VerifiedToken {
+
+        private final User principal;
+
+        private final Collection<? extends GrantedAuthority> authorities;
+
+        private final long expiration;
+
+        private VerifiedToken(User principal, Collection<? extends GrantedAuthority> authorities, long expiration) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiration = expiration;
+        }
+
+        Authentication toAuthentication(String token) {
+            return new UsernamePasswordAuthenticationToken(principal, token, authorities);
         }
-        return false;
     }
 }
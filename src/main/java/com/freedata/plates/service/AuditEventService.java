@@ -7,9 +7,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -33,27 +35,33 @@ public class AuditEventService {
 
     private final AuditEventConverter auditEventConverter;
 
+    private final BatchJobRunner batchJobRunner;
+
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
-        AuditEventConverter auditEventConverter, freedataProperties freedataProperties) {
+        AuditEventConverter auditEventConverter, freedataProperties freedataProperties, BatchJobRunner batchJobRunner) {
 
         this.persistenceAuditEventRepository = persistenceAuditEventRepository;
         this.auditEventConverter = auditEventConverter;
         this.freedataProperties = freedataProperties;
+        this.batchJobRunner = batchJobRunner;
     }
 
     /**
      * Old audit events should be automatically deleted after 30 days.
      *
-     * This is scheduled to get fired at 12:00 (am).
+     * This is scheduled to get fired at 12:00 (am). They are deleted in chunks, each in a transaction of its own, by the
+     * {@link BatchJobRunner}.
      */
     @Scheduled(cron = "0 0 12 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeOldAuditEvents() {
-        persistenceAuditEventRepository
-            .findByAuditEventDateBefore(Instant.now().minus(freedataProperties.getAuditEvents().getRetentionPeriod(), ChronoUnit.DAYS))
-            .forEach(auditEvent -> {
-                log.debug("Deleting audit data {}", auditEvent);
-                persistenceAuditEventRepository.delete(auditEvent);
+        Instant before = Instant.now().minus(freedataProperties.getAuditEvents().getRetentionPeriod(), ChronoUnit.DAYS);
+        batchJobRunner.run("removeOldAuditEvents",
+            (afterId, chunkSize) -> persistenceAuditEventRepository.findIdsByAuditEventDateBefore(before, afterId, PageRequest.of(0, chunkSize)),
+            ids -> {
+                log.debug("Deleting {} audit events", ids.size());
+                persistenceAuditEventRepository.deleteAll(persistenceAuditEventRepository.findAllById(ids));
             });
     }
 
@@ -0,0 +1,227 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the maintenance jobs, which go over a table by id, in chunks of {@code application.batch-jobs.chunk-size} items.
+ * <p>
+ * Each chunk is read and processed in a transaction of its own, which also records the last id processed in the
+ * {@code batch_job_checkpoint} table: a job which is stopped resumes after its last committed chunk, and only reads
+ * one chunk at a time whatever the size of the table. Jobs are slowed down to
+ * {@code application.batch-jobs.max-items-per-second} when it is set.
+ * <p>
+ * The checkpoint row of a job is locked by each chunk, which resumes from it: instances running the same job at once
+ * take turns chunk by chunk, none processing the chunk of another, and they all stop once one of them completes it.
+ * <p>
+ * Run in a transaction, a job joins it with all its chunks.
+ */
+@Service
+public class BatchJobRunner {
+
+    /**
+     * Reads the ids of the next chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkReader {
+
+        /**
+         * @param afterId the last id of the previous chunk, or 0.
+         * @param chunkSize the most ids to read.
+         * @return the ids following {@code afterId}, in ascending order, empty when there are no more.
+         */
+        List<Long> read(long afterId, int chunkSize);
+    }
+
+    /**
+     * Processes the items of a chunk, in the transaction of the chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkProcessor {
+
+        void process(List<Long> ids);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(BatchJobRunner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Items processed by the current, or last, run of each job, resumed runs included.
+     */
+    private final Map<String, AtomicLong> progress = new ConcurrentHashMap<>();
+
+    public BatchJobRunner(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run a job until its reader has no more ids, resuming it if it was stopped.
+     *
+     * @param jobName the name of the job, which its checkpoint and metrics are recorded under.
+     * @param reader reads the ids of each chunk.
+     * @param processor processes each chunk.
+     * @return the number of items processed by this run.
+     */
+    public long run(String jobName, ChunkReader reader, ChunkProcessor processor) {
+        int chunkSize = applicationProperties.getBatchJobs().getChunkSize();
+        Counter items = Counter.builder("batch.job.items")
+            .description("Items processed by the batch jobs")
+            .tag("job", jobName)
+            .register(meterRegistry);
+        Timer chunks = Timer.builder("batch.job.chunks")
+            .description("Chunks processed by the batch jobs")
+            .tag("job", jobName)
+            .register(meterRegistry);
+        AtomicLong jobProgress = progress.computeIfAbsent(jobName,
+            name -> meterRegistry.gauge("batch.job.progress", Tags.of("job", name), new AtomicLong()));
+
+        long[] resumed = createCheckpoint(jobName);
+        long lastId = resumed[0];
+        long total = resumed[1];
+        if (lastId > 0) {
+            log.info("Resuming batch job {} after id {}, {} items already processed", jobName, lastId, total);
+        }
+        jobProgress.set(total);
+        long start = System.nanoTime();
+        long processed = 0;
+        while (true) {
+            long afterId = lastId;
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long[] checkpoint = new long[2];
+            List<Long> ids = transactionTemplate.execute(status -> {
+                long[] current = lockCheckpoint(jobName);
+                if (current == null || current[0] < afterId) {
+                    return null;
+                }
+                System.arraycopy(current, 0, checkpoint, 0, 2);
+                List<Long> chunk = reader.read(current[0], chunkSize);
+                if (chunk.isEmpty()) {
+                    jdbcTemplate.update("delete from batch_job_checkpoint where job_name = ?", jobName);
+                } else {
+                    processor.process(chunk);
+                    writeCheckpoint(jobName, chunk.get(chunk.size() - 1), current[1] + chunk.size());
+                }
+                return chunk;
+            });
+            if (ids == null) {
+                log.info("Batch job {} completed by another instance, after {} items processed by this one", jobName, processed);
+                return processed;
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            if (checkpoint[0] > afterId) {
+                log.debug("Batch job {} resumes after id {}, reached by another instance", jobName, checkpoint[0]);
+            }
+            sample.stop(chunks);
+            lastId = ids.get(ids.size() - 1);
+            processed += ids.size();
+            total = checkpoint[1] + ids.size();
+            items.increment(ids.size());
+            jobProgress.set(total);
+            log.debug("Batch job {} processed {} items, up to id {}", jobName, total, lastId);
+            if (!throttle(processed, start)) {
+                log.warn("Batch job {} interrupted after id {}, it will resume from there", jobName, lastId);
+                return processed;
+            }
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Batch job {} completed: {} items in {} ms ({} items/s)", jobName, processed, millis, processed * 1000 / millis);
+        return processed;
+    }
+
+    /**
+     * Sleep long enough for the job to keep under its rate limit.
+     *
+     * @return false if the thread was interrupted.
+     */
+    private boolean throttle(long processed, long start) {
+        int maxItemsPerSecond = applicationProperties.getBatchJobs().getMaxItemsPerSecond();
+        if (maxItemsPerSecond <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        long ahead = TimeUnit.SECONDS.toNanos(processed) / maxItemsPerSecond - (System.nanoTime() - start);
+        try {
+            if (ahead > 0) {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Read the checkpoint of a job, creating it in a transaction of its own if it does not exist yet, so that it can
+     * be locked.
+     */
+    private long[] createCheckpoint(String jobName) {
+        long[] checkpoint = readCheckpoint(jobName, "");
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+        try {
+            newTransactionTemplate.execute(status -> jdbcTemplate.update(
+                "insert into batch_job_checkpoint (job_name, last_id, items, updated_millis) values (?, 0, 0, ?)",
+                jobName, System.currentTimeMillis()));
+        } catch (DuplicateKeyException e) {
+            log.debug("Batch job {} was started by another instance", jobName);
+        }
+        checkpoint = readCheckpoint(jobName, "");
+        return checkpoint == null ? new long[] { 0, 0 } : checkpoint;
+    }
+
+    /**
+     * Read the checkpoint of a job and lock it until the end of the transaction.
+     *
+     * @return the last id and the items processed, or {@code null} if the job was completed.
+     */
+    private long[] lockCheckpoint(String jobName) {
+        return readCheckpoint(jobName, " for update");
+    }
+
+    private long[] readCheckpoint(String jobName, String lock) {
+        List<long[]> checkpoints = jdbcTemplate.query("select last_id, items from batch_job_checkpoint where job_name = ?" + lock,
+            (rs, rowNum) -> new long[] { rs.getLong("last_id"), rs.getLong("items") }, jobName);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    private void writeCheckpoint(String jobName, long lastId, long items) {
+        jdbcTemplate.update("update batch_job_checkpoint set last_id = ?, items = ?, updated_millis = ? where job_name = ?",
+            lastId, items, System.currentTimeMillis(), jobName);
+    }
+}
@@ -0,0 +1,349 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.config.Constants;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.PersonRepository;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting plates, people and plate histories in full.
+ * <p>
+ * Rows are streamed from the database with a JDBC fetch size, written as soon as they are read and evicted from the
+ * persistence context right after, so that memory stays flat whatever the size of the export. An export can also be
+ * split in id ranges read in parallel, each in its own read-only transaction: rows are then written in no particular
+ * order.
+ * <p>
+ * Exports run outside of the request thread, so their transactions go to the read replica when there is one, which
+ * they are meant to offload: an export is as of the replica, and nothing of it is cached or kept by the application.
+ * Read-only work whose result is cached or persisted reads the primary instead, see
+ * {@link com.freedata.plates.config.ReadReplicaRoutingDataSource#onPrimary}.
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] END_OF_RANGE = new byte[0];
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Dataset<Plate> plates;
+
+    private final Dataset<Person> people;
+
+    private final Dataset<PlateHistory> plateHistories;
+
+    public ExportService(PlateRepository plateRepository, PersonRepository personRepository, PlateHistoryRepository plateHistoryRepository,
+                         EntityManager entityManager, ObjectMapper objectMapper, ApplicationProperties applicationProperties,
+                         PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(applicationProperties.getExport().getMaxPartitions());
+        this.executor.setThreadNamePrefix("plates-export-");
+        this.executor.initialize();
+        this.plates = new Dataset<>("plates", plateRepository::streamAllByIdBetween, plateRepository::findMinId, plateRepository::findMaxId,
+            new String[]{"id", "uuid", "plateTitle", "personId"},
+            plate -> new Object[]{plate.getId(), plate.getUuid(), plate.getPlateTitle(), id(plate.getPerson(), Person::getId)});
+        this.people = new Dataset<>("people", personRepository::streamAllByIdBetween, personRepository::findMinId, personRepository::findMaxId,
+            new String[]{"id", "uuid", "firstName", "lastName", "email", "phoneNumber", "hireDate", "salary", "commissionPct", "managerId", "departmentId"},
+            person -> new Object[]{person.getId(), person.getUuid(), person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getPhoneNumber(), person.getHireDate(), person.getSalary(), person.getCommissionPct(),
+                id(person.getManager(), Person::getId), id(person.getDepartment(), Department::getId)});
+        this.plateHistories = new Dataset<>("plateHistories", plateHistoryRepository::streamAllByIdBetween, plateHistoryRepository::findMinId,
+            plateHistoryRepository::findMaxId,
+            new String[]{"id", "uuid", "startDate", "endDate", "plateId", "departmentId", "personId"},
+            plateHistory -> new Object[]{plateHistory.getId(), plateHistory.getUuid(), plateHistory.getStartDate(), plateHistory.getEndDate(),
+                id(plateHistory.getPlate(), Plate::getId), id(plateHistory.getDepartment(), Department::getId),
+                id(plateHistory.getPerson(), Person::getId)});
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Export all the plates.
+     *
+     * @param format the export format.
+     * @param partitions the number of id ranges read in parallel, capped by the configuration.
+     * @param out the stream the export is written to, it is not closed.
+     * @return the number of exported rows.
+     * @throws IOException if the export cannot be written.
+     */
+    public long exportPlates(Format format, int partitions, OutputStream out) throws IOException {
+        return export(plates, format, partitions, out);
+    }
+
+    /**
+     * Export all the people.
+     *
+     * @param format the export format.
+     * @param partitions the number of id ranges read in parallel, capped by the configuration.
+     * @param out the stream the export is written to, it is not closed.
+     * @return the number of exported rows.
+     * @throws IOException if the export cannot be written.
+     */
+    public long exportPeople(Format format, int partitions, OutputStream out) throws IOException {
+        return export(people, format, partitions, out);
+    }
+
+    /**
+     * Export all the plate histories.
+     *
+     * @param format the export format.
+     * @param partitions the number of id ranges read in parallel, capped by the configuration.
+     * @param out the stream the export is written to, it is not closed.
+     * @return the number of exported rows.
+     * @throws IOException if the export cannot be written.
+     */
+    public long exportPlateHistories(Format format, int partitions, OutputStream out) throws IOException {
+        return export(plateHistories, format, partitions, out);
+    }
+
+    private <T> long export(Dataset<T> dataset, Format format, int partitions, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        if (format == Format.CSV) {
+            writeCsvLine(dataset.csvHeader, out);
+        }
+        Optional<Long> minId = readOnlyTransactionTemplate.execute(status -> dataset.minId.get());
+        Optional<Long> maxId = readOnlyTransactionTemplate.execute(status -> dataset.maxId.get());
+        if (!minId.isPresent() || !maxId.isPresent()) {
+            return 0;
+        }
+        int rangeCount = (int) Math.max(1, Math.min(Math.min(partitions, applicationProperties.getExport().getMaxPartitions()),
+            maxId.get() - minId.get() + 1));
+        long rows;
+        if (rangeCount == 1) {
+            rows = exportRange(dataset, format, minId.get(), maxId.get(), out);
+        } else {
+            rows = exportRanges(dataset, format, minId.get(), maxId.get(), rangeCount, out);
+        }
+        log.debug("Exported {} {} as {} in {} ms", rows, dataset.name, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private <T> long exportRanges(Dataset<T> dataset, Format format, long minId, long maxId, int rangeCount, OutputStream out) throws IOException {
+        BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(rangeCount * 2);
+        long rangeSize = (maxId - minId) / rangeCount + 1;
+        List<Future<Long>> ranges = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            long fromId = minId + i * rangeSize;
+            long toId = Math.min(maxId, fromId + rangeSize - 1);
+            ranges.add(executor.submit(() -> {
+                try (ChunkOutputStream chunkOut = new ChunkOutputStream(chunks)) {
+                    return exportRange(dataset, format, fromId, toId, chunkOut);
+                }
+            }));
+        }
+        boolean completed = false;
+        try {
+            int running = rangeCount;
+            while (running > 0) {
+                byte[] chunk = chunks.take();
+                if (chunk == END_OF_RANGE) {
+                    running--;
+                } else {
+                    out.write(chunk);
+                }
+            }
+            long rows = 0;
+            for (Future<Long> range : ranges) {
+                rows += range.get();
+            }
+            completed = true;
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export of " + dataset.name + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Export of " + dataset.name + " failed", e.getCause());
+        } finally {
+            if (!completed) {
+                // Unblock the ranges still waiting for room in the queue
+                ranges.forEach(range -> range.cancel(true));
+            }
+        }
+    }
+
+    private <T> long exportRange(Dataset<T> dataset, Format format, long fromId, long toId, OutputStream out) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            long rows = 0;
+            try (Stream<T> stream = dataset.stream.apply(fromId, toId)) {
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    T entity = iterator.next();
+                    if (format == Format.CSV) {
+                        writeCsvLine(dataset.csvRow.apply(entity), out);
+                    } else {
+                        out.write(objectMapper.writeValueAsBytes(entity));
+                        out.write('\n');
+                    }
+                    entityManager.detach(entity);
+                    if (++rows % Constants.EXPORT_FETCH_SIZE == 0) {
+                        // Also drop the associated entities loaded along with the last rows
+                        entityManager.clear();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+    }
+
+    private static void writeCsvLine(Object[] values, OutputStream out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] != null) {
+                String value = values[i].toString();
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    line.append('"').append(value.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(value);
+                }
+            }
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> Long id(T entity, Function<T, Long> id) {
+        return entity == null ? null : id.apply(entity);
+    }
+
+    /**
+     * An exportable entity: how to stream it by id range, and its CSV columns.
+     */
+    private static final class Dataset<T> {
+
+        private final String name;
+
+        private final BiFunction<Long, Long, Stream<T>> stream;
+
+        private final Supplier<Optional<Long>> minId;
+
+        private final Supplier<Optional<Long>> maxId;
+
+        private final String[] csvHeader;
+
+        private final Function<T, Object[]> csvRow;
+
+        private Dataset(String name, BiFunction<Long, Long, Stream<T>> stream, Supplier<Optional<Long>> minId,
+                        Supplier<Optional<Long>> maxId, String[] csvHeader, Function<T, Object[]> csvRow) {
+            this.name = name;
+            this.stream = stream;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.csvHeader = csvHeader;
+            this.csvRow = csvRow;
+        }
+    }
+
+    /**
+     * Buffers the rows of one id range and hands them over to the response writer in chunks.
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+
+        private final BlockingQueue<byte[]> chunks;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE);
+
+        private ChunkOutputStream(BlockingQueue<byte[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            flushIfFull();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.write(b, off, len);
+            flushIfFull();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (buffer.size() > 0) {
+                    chunks.put(buffer.toByteArray());
+                }
+                chunks.put(END_OF_RANGE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void flushIfFull() throws IOException {
+            if (buffer.size() >= CHUNK_SIZE) {
+                try {
+                    chunks.put(buffer.toByteArray());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Export interrupted", e);
+                }
+                buffer.reset();
+            }
+        }
+    }
+}
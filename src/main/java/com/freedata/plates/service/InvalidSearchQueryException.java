@@ -0,0 +1,11 @@
+package com.freedata.plates.service;
+
+public class InvalidSearchQueryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+
+}
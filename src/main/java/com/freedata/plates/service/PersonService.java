@@ -0,0 +1,79 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.repository.Keyset;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.Optional;
+
+/**
+ * Service Interface for managing {@link Person}.
+ */
+public interface PersonService {
+
+    /**
+     * Save a person.
+     *
+     * @param person the entity to save.
+     * @return the persisted entity.
+     */
+    Person save(Person person);
+
+    /**
+     * Get all the people.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Person> findAll(Pageable pageable);
+
+    /**
+     * Get a keyset page of the people.
+     *
+     * @param order the sort order.
+     * @param after the keyset of the last person of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<Person> findAll(Sort.Order order, Keyset after, int size);
+
+    /**
+     * Get the "id" person.
+     *
+     * @param id the id of the entity.
+     * @return the entity.
+     */
+    Optional<Person> findOne(Long id);
+
+    /**
+     * Delete the "id" person.
+     *
+     * @param id the id of the entity.
+     */
+    void delete(Long id);
+
+    /**
+     * Search for the person corresponding to the query.
+     *
+     * @param query the query of the search.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Person> search(String query, Pageable pageable);
+
+    /**
+     * Search for a keyset page of the people corresponding to the query.
+     *
+     * @param query the query of the search.
+     * @param order the sort order.
+     * @param after the keyset of the last person of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<Person> search(String query, Sort.Order order, Keyset after, int size);
+}
@@ -0,0 +1,11 @@
+package com.freedata.plates.service;
+
+public class PlateHistoryOverlapException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PlateHistoryOverlapException() {
+        super("The interval overlaps another one of the same plate");
+    }
+
+}
@@ -1,10 +1,14 @@
 package com.freedata.plates.service;
 
 import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.Keyset;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
+import java.time.Instant;
 import java.util.Optional;
 
 /**
@@ -17,6 +21,7 @@ public interface PlateHistoryService {
      *
      * @param plateHistory the entity to save.
      * @return the persisted entity.
+     * @throws PlateHistoryOverlapException if its interval overlaps another one of the same plate.
      */
     PlateHistory save(PlateHistory plateHistory);
 
@@ -28,6 +33,25 @@ public interface PlateHistoryService {
      */
     Page<PlateHistory> findAll(Pageable pageable);
 
+    /**
+     * Get a keyset page of the plateHistories.
+     *
+     * @param order the sort order.
+     * @param after the keyset of the last plateHistory of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<PlateHistory> findAll(Sort.Order order, Keyset after, int size);
+
+
+    /**
+     * Get the plateHistory of a plate at an instant.
+     *
+     * @param plateId the id of the plate.
+     * @param instant the instant.
+     * @return the entity whose interval contains the instant.
+     */
+    Optional<PlateHistory> findAsOf(Long plateId, Instant instant);
 
     /**
      * Get the "id" plateHistory.
@@ -53,4 +77,15 @@ public interface PlateHistoryService {
      * @return the list of entities.
      */
     Page<PlateHistory> search(String query, Pageable pageable);
+
+    /**
+     * Search for a keyset page of the plateHistories corresponding to the query.
+     *
+     * @param query the query of the search.
+     * @param order the sort order.
+     * @param after the keyset of the last plateHistory of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<PlateHistory> search(String query, Sort.Order order, Keyset after, int size);
 }
@@ -0,0 +1,175 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.service.dto.PlateImportRowDTO;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a bulk plate import one line at a time, so that only the current row is held in memory.
+ * <p>
+ * CSV payloads must start with a header line naming the {@link PlateImportRowDTO} properties; NDJSON payloads
+ * contain one JSON object per line. Blank lines are skipped in both formats.
+ */
+class PlateImportReader implements Closeable {
+
+    private static final char CSV_SEPARATOR = ',';
+
+    private static final char CSV_QUOTE = '"';
+
+    private final BufferedReader reader;
+
+    private final PlateImportService.Format format;
+
+    private final ObjectReader jsonReader;
+
+    private String[] csvHeader;
+
+    private long line;
+
+    PlateImportReader(BufferedReader reader, PlateImportService.Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.jsonReader = objectMapper.readerFor(PlateImportRowDTO.class);
+    }
+
+    /**
+     * Read the next row.
+     *
+     * @return the next row, or {@code null} once the end of the payload is reached.
+     * @throws MalformedRowException if the current line cannot be parsed; reading may continue with the next line.
+     * @throws IOException if the underlying stream fails.
+     */
+    PlateImportRowDTO next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.trim().isEmpty());
+
+        if (format == PlateImportService.Format.NDJSON) {
+            return readJson(text);
+        }
+        if (csvHeader == null) {
+            csvHeader = splitCsv(text).toArray(new String[0]);
+            for (int i = 0; i < csvHeader.length; i++) {
+                csvHeader[i] = csvHeader[i].trim();
+            }
+            return next();
+        }
+        return readCsv(text);
+    }
+
+    private PlateImportRowDTO readJson(String text) {
+        try {
+            PlateImportRowDTO row = jsonReader.readValue(text);
+            row.setLine(line);
+            return row;
+        } catch (JsonProcessingException e) {
+            throw new MalformedRowException(line, "Invalid JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new MalformedRowException(line, e.getMessage());
+        }
+    }
+
+    private PlateImportRowDTO readCsv(String text) {
+        List<String> values = splitCsv(text);
+        if (values.size() > csvHeader.length) {
+            throw new MalformedRowException(line, "Expected at most " + csvHeader.length + " columns but found " + values.size());
+        }
+        PlateImportRowDTO row = new PlateImportRowDTO();
+        row.setLine(line);
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (csvHeader[i]) {
+                case "plateTitle":
+                    row.setPlateTitle(value);
+                    break;
+                case "personFirstName":
+                    row.setPersonFirstName(value);
+                    break;
+                case "personLastName":
+                    row.setPersonLastName(value);
+                    break;
+                case "personEmail":
+                    row.setPersonEmail(value);
+                    break;
+                case "noteTitle":
+                    row.setNoteTitle(value);
+                    break;
+                case "noteDescription":
+                    row.setNoteDescription(value);
+                    break;
+                default:
+                    // Unknown columns are ignored, like unknown JSON properties
+                    break;
+            }
+        }
+        return row;
+    }
+
+    private List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == CSV_QUOTE && i + 1 < text.length() && text.charAt(i + 1) == CSV_QUOTE) {
+                    current.append(CSV_QUOTE);
+                    i++;
+                } else if (c == CSV_QUOTE) {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == CSV_QUOTE) {
+                quoted = true;
+            } else if (c == CSV_SEPARATOR) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new MalformedRowException(line, "Unterminated quoted value");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Thrown when a single line of the payload cannot be parsed.
+     */
+    static class MalformedRowException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        MalformedRowException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        long getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.NoteRepository;
+import com.freedata.plates.repository.PersonRepository;
+import com.freedata.plates.repository.PlateRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.service.dto.PlateImportErrorDTO;
+import com.freedata.plates.service.dto.PlateImportRowDTO;
+import com.freedata.plates.service.dto.PlateImportSummaryDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service for importing plates, with their holder and notes, in bulk.
+ * <p>
+ * The payload is streamed: rows are read one by one and written in fixed-size chunks, each in its own transaction,
+ * so that the JDBC batch size configured for Hibernate is used and memory stays bounded by the chunk size.
+ * Each chunk records its plates, people and notes in the {@link SearchIndexOutbox}, which indexes them with bulk
+ * requests.
+ */
+@Service
+public class PlateImportService {
+
+    /**
+     * Supported payload formats.
+     */
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final Logger log = LoggerFactory.getLogger(PlateImportService.class);
+
+    private final PlateRepository plateRepository;
+
+    private final PersonRepository personRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PlateImportService(PlateRepository plateRepository, PersonRepository personRepository, NoteRepository noteRepository,
+                              SearchIndexOutbox searchIndexOutbox, ObjectMapper objectMapper,
+                              ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager) {
+        this.plateRepository = plateRepository;
+        this.personRepository = personRepository;
+        this.noteRepository = noteRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Import plates from a CSV or NDJSON payload.
+     * <p>
+     * Rows that cannot be parsed or validated, and all rows of a chunk that fails to be written, are reported to
+     * {@code errorListener} as soon as they are detected; the import then continues with the next row.
+     *
+     * @param input the payload, already decompressed.
+     * @param format the payload format.
+     * @param errorListener receives one error per rejected row.
+     * @return the import summary.
+     * @throws IOException if the payload cannot be read.
+     */
+    public PlateImportSummaryDTO importPlates(InputStream input, Format format, Consumer<PlateImportErrorDTO> errorListener) throws IOException {
+        long start = System.currentTimeMillis();
+        int chunkSize = applicationProperties.getBulkImport().getChunkSize();
+        PlateImportSummaryDTO summary = new PlateImportSummaryDTO();
+        List<PlateImportRowDTO> chunk = new ArrayList<>(chunkSize);
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (PlateImportReader reader = new PlateImportReader(bufferedReader, format, objectMapper)) {
+            while (true) {
+                PlateImportRowDTO row;
+                try {
+                    row = reader.next();
+                } catch (PlateImportReader.MalformedRowException e) {
+                    summary.setRowsRead(summary.getRowsRead() + 1);
+                    reject(summary, errorListener, e.getLine(), e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                summary.setRowsRead(summary.getRowsRead() + 1);
+                String error = validate(row);
+                if (error != null) {
+                    reject(summary, errorListener, row.getLine(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, summary, errorListener);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, summary, errorListener);
+            }
+        }
+        summary.setDurationMillis(System.currentTimeMillis() - start);
+        log.info("Plate import finished: {}", summary);
+        return summary;
+    }
+
+    private String validate(PlateImportRowDTO row) {
+        if (!StringUtils.hasText(row.getPlateTitle())) {
+            return "plateTitle is required";
+        }
+        if (row.getNoteTitle() == null && row.getNoteDescription() != null) {
+            return "noteTitle is required when noteDescription is set";
+        }
+        if (row.getPersonEmail() != null) {
+            row.setPersonEmail(row.getPersonEmail().trim().toLowerCase(Locale.ROOT));
+        }
+        return null;
+    }
+
+    private void reject(PlateImportSummaryDTO summary, Consumer<PlateImportErrorDTO> errorListener, long line, String message) {
+        summary.setRowsFailed(summary.getRowsFailed() + 1);
+        errorListener.accept(new PlateImportErrorDTO(line, message));
+    }
+
+    private void writeChunk(List<PlateImportRowDTO> chunk, PlateImportSummaryDTO summary, Consumer<PlateImportErrorDTO> errorListener) {
+        ChunkResult result;
+        try {
+            result = transactionTemplate.execute(status -> persistChunk(chunk));
+        } catch (RuntimeException e) {
+            log.warn("Plate import chunk ending at line {} failed: {}", chunk.get(chunk.size() - 1).getLine(), e.getMessage());
+            chunk.forEach(row -> reject(summary, errorListener, row.getLine(), "Chunk rolled back: " + e.getMessage()));
+            return;
+        }
+        summary.setPlatesCreated(summary.getPlatesCreated() + result.plateIds.size());
+        summary.setPeopleCreated(summary.getPeopleCreated() + result.peopleCreated);
+        summary.setNotesCreated(summary.getNotesCreated() + result.notesCreated);
+    }
+
+    private ChunkResult persistChunk(List<PlateImportRowDTO> chunk) {
+        Map<String, Person> peopleByEmail = new HashMap<>();
+        Set<String> emails = new HashSet<>();
+        chunk.stream().map(PlateImportRowDTO::getPersonEmail).filter(Objects::nonNull).forEach(emails::add);
+        if (!emails.isEmpty()) {
+            personRepository.findAllByEmailIn(emails).forEach(person -> peopleByEmail.put(person.getEmail(), person));
+        }
+
+        List<Person> newPeople = new ArrayList<>();
+        List<Note> newNotes = new ArrayList<>();
+        List<Plate> plates = new ArrayList<>(chunk.size());
+        for (PlateImportRowDTO row : chunk) {
+            Plate plate = new Plate().plateTitle(row.getPlateTitle());
+            plate.setPerson(resolvePerson(row, peopleByEmail, newPeople));
+            if (row.getNoteTitle() != null) {
+                Note note = new Note().title(row.getNoteTitle()).description(row.getNoteDescription());
+                plate.addNote(note);
+                newNotes.add(note);
+            }
+            plates.add(plate);
+        }
+        personRepository.saveAll(newPeople);
+        noteRepository.saveAll(newNotes);
+        plateRepository.saveAll(plates);
+
+        ChunkResult result = new ChunkResult();
+        plates.forEach(plate -> result.plateIds.add(plate.getId()));
+        searchIndexOutbox.indexAll(Plate.class, result.plateIds);
+        searchIndexOutbox.indexAll(Person.class, newPeople.stream().map(Person::getId).collect(Collectors.toList()));
+        searchIndexOutbox.indexAll(Note.class, newNotes.stream().map(Note::getId).collect(Collectors.toList()));
+        result.peopleCreated = newPeople.size();
+        result.notesCreated = newNotes.size();
+        return result;
+    }
+
+    private Person resolvePerson(PlateImportRowDTO row, Map<String, Person> peopleByEmail, List<Person> newPeople) {
+        if (row.getPersonEmail() == null && row.getPersonFirstName() == null && row.getPersonLastName() == null) {
+            return null;
+        }
+        if (row.getPersonEmail() != null && peopleByEmail.containsKey(row.getPersonEmail())) {
+            return peopleByEmail.get(row.getPersonEmail());
+        }
+        Person person = new Person()
+            .firstName(row.getPersonFirstName())
+            .lastName(row.getPersonLastName())
+            .email(row.getPersonEmail());
+        if (row.getPersonEmail() != null) {
+            peopleByEmail.put(row.getPersonEmail(), person);
+        }
+        newPeople.add(person);
+        return person;
+    }
+
+    private static class ChunkResult {
+
+        private final List<Long> plateIds = new ArrayList<>();
+
+        private int peopleCreated;
+
+        private int notesCreated;
+    }
+}
@@ -0,0 +1,132 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.search.PlateSuggestRepository.Suggestion;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service Interface for managing {@link Plate}.
+ */
+public interface PlateService {
+
+    /**
+     * Save a plate.
+     *
+     * @param plate the entity to save.
+     * @return the persisted entity.
+     */
+    Plate save(Plate plate);
+
+    /**
+     * Get all the plates.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Plate> findAll(Pageable pageable);
+
+    /**
+     * Get all the plates with eager load of many-to-many relationships.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Plate> findAllWithEagerRelationships(Pageable pageable);
+
+    /**
+     * Get a keyset page of the plates.
+     *
+     * @param order the sort order.
+     * @param after the keyset of the last plate of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<Plate> findAll(Sort.Order order, Keyset after, int size);
+
+    /**
+     * Transfer the "id" plate to a person: close the current interval of its history, open one for the person and
+     * their department, and set the person of the plate. The plate is reindexed once the transaction is committed.
+     *
+     * @param id the id of the plate.
+     * @param person the person the plate is transferred to.
+     * @return the transferred plate, or empty if it does not exist.
+     * @throws PlateHistoryOverlapException if the current interval of the plate starts in the future.
+     */
+    Optional<Plate> transfer(Long id, Person person);
+
+    /**
+     * Get the "id" plate.
+     *
+     * @param id the id of the entity.
+     * @return the entity.
+     */
+    Optional<Plate> findOne(Long id);
+
+    /**
+     * Delete the "id" plate.
+     *
+     * @param id the id of the entity.
+     */
+    void delete(Long id);
+
+    /**
+     * Search for the plate corresponding to the query.
+     *
+     * @param query the query of the search.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Plate> search(String query, Pageable pageable);
+
+    /**
+     * Search for a keyset page of the plates corresponding to the query.
+     *
+     * @param query the query of the search.
+     * @param order the sort order.
+     * @param after the keyset of the last plate of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    Slice<Plate> search(String query, Sort.Order order, Keyset after, int size);
+
+    /**
+     * Search for the plates matching a structured search.
+     *
+     * @param request the filters and the text of the search.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     * @throws InvalidSearchQueryException if a range is empty.
+     */
+    Page<Plate> search(PlateSearchRequestDTO request, Pageable pageable);
+
+    /**
+     * Search for a keyset page of the plates matching a structured search.
+     *
+     * @param request the filters and the text of the search.
+     * @param order the sort order.
+     * @param after the keyset of the last plate of the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     * @throws InvalidSearchQueryException if a range is empty.
+     */
+    Slice<Plate> search(PlateSearchRequestDTO request, Sort.Order order, Keyset after, int size);
+
+    /**
+     * Suggest the plates whose title, or the last name of whose person, starts with a prefix.
+     *
+     * @param prefix the words typed so far.
+     * @return the suggestions, best first.
+     */
+    List<Suggestion> suggest(String prefix);
+}
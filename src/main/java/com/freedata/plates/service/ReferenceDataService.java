@@ -0,0 +1,181 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.config.CacheInvalidationBus;
+import com.freedata.plates.config.ReadReplicaRoutingDataSource;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Location;
+import com.freedata.plates.domain.Region;
+import com.freedata.plates.repository.CountryRepository;
+import com.freedata.plates.repository.DepartmentRepository;
+import com.freedata.plates.repository.LocationRepository;
+import com.freedata.plates.repository.RegionRepository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service serving the reference data, {@link Region}, {@link Country}, {@link Location} and {@link Department}, as one
+ * snapshot serialized once.
+ * <p>
+ * The snapshot is dropped when a transaction writing reference data commits, here or, through the
+ * {@link CacheInvalidationBus} when there is one, on another instance. The next read builds it again, from data
+ * committed on the primary only.
+ */
+@Service
+public class ReferenceDataService {
+
+    /**
+     * The cache regions of the reference data, whose invalidations by another instance drop the snapshot.
+     */
+    private static final List<String> REGIONS = Arrays.asList(
+        Region.class.getName(), Country.class.getName(), Location.class.getName(), Department.class.getName());
+
+    private final Logger log = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    private final RegionRepository regionRepository;
+
+    private final CountryRepository countryRepository;
+
+    private final LocationRepository locationRepository;
+
+    private final DepartmentRepository departmentRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataService(RegionRepository regionRepository, CountryRepository countryRepository,
+            LocationRepository locationRepository, DepartmentRepository departmentRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager, ObjectProvider<CacheInvalidationBus> cacheInvalidationBus) {
+        this.regionRepository = regionRepository;
+        this.countryRepository = countryRepository;
+        this.locationRepository = locationRepository;
+        this.departmentRepository = departmentRepository;
+        this.objectMapper = objectMapper;
+        // Never joins the transaction of the caller, which may not commit what the snapshot would show
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        cacheInvalidationBus.ifAvailable(bus -> bus.subscribe(invalidation -> {
+            if (REGIONS.contains(invalidation.getCacheName())) {
+                evict();
+            }
+        }));
+    }
+
+    /**
+     * Get the current snapshot of the reference data, building it if needed.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null) {
+                long builtGeneration = generation.get();
+                // Kept until the next write of reference data, so it is never read from a replica which may lag
+                current = ReadReplicaRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> build()));
+                // A write committed meanwhile may not be in it, so it only serves the reads which asked for it
+                if (builtGeneration == generation.get()) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build() {
+        Map<String, List<?>> referenceData = new LinkedHashMap<>();
+        referenceData.put("regions", regionRepository.findAll());
+        referenceData.put("countries", countryRepository.findAll());
+        referenceData.put("locations", locationRepository.findAll());
+        referenceData.put("departments", departmentRepository.findAll());
+        try {
+            Snapshot built = new Snapshot(objectMapper.writeValueAsBytes(referenceData));
+            log.debug("Built the reference data snapshot {}", built.getETag());
+            return built;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drop the snapshot once the current transaction, if any, commits.
+     */
+    public void evictAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evict();
+                }
+            });
+        } else {
+            evict();
+        }
+    }
+
+    private void evict() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * The reference data serialized as a JSON object, with one array per entity.
+     */
+    public static final class Snapshot {
+
+        private final byte[] json;
+
+        private final String eTag;
+
+        private Snapshot(byte[] json) {
+            this.json = json;
+            this.eTag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+
+        /**
+         * Get the JSON of the snapshot, shared by all its readers, which must not modify it.
+         *
+         * @return the JSON bytes, in UTF-8.
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * Get the strong ETag of the snapshot, derived from its content so that all the instances agree on it.
+         *
+         * @return the quoted ETag.
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.freedata.plates.service;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+
+/**
+ * Builds the Elasticsearch queries of the free-form {@code query} parameters of the search endpoints.
+ * <p>
+ * The query string syntax lets a few characters run queries which visit every term of the index: a wildcard
+ * starting a term, as in {@code *123} or {@code ?}, and a regular expression, as in {@code /AB[0-9]+/}. These are
+ * rejected, a wildcard ending a term stays allowed. A lone {@code *}, which asks for everything, is searched as such,
+ * without any query to parse.
+ */
+public final class SearchQueries {
+
+    private static final String MATCH_ALL = "*";
+
+    /**
+     * Characters after which a term starts.
+     */
+    private static final String TERM_STARTS = "(:[{";
+
+    /**
+     * Operators which may prefix a term.
+     */
+    private static final String PREFIX_OPERATORS = "+-!";
+
+    /**
+     * Characters which end a term.
+     */
+    private static final String TERM_ENDS = ")]}";
+
+    private SearchQueries() {
+    }
+
+    /**
+     * Build the query of a query string.
+     *
+     * @param query the query string.
+     * @return the query.
+     * @throws InvalidSearchQueryException if a term starts with a wildcard or is a regular expression.
+     */
+    public static QueryBuilder queryString(String query) {
+        if (MATCH_ALL.equals(query.trim())) {
+            return QueryBuilders.matchAllQuery();
+        }
+        checkTerms(query);
+        return QueryBuilders.queryStringQuery(query).allowLeadingWildcard(false);
+    }
+
+    private static void checkTerms(String query) {
+        boolean quoted = false;
+        boolean termStart = true;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '\\') {
+                // An escaped character is part of a term
+                i++;
+                termStart = false;
+            } else if (c == '"') {
+                quoted = !quoted;
+                termStart = false;
+            } else if (!quoted) {
+                // A lone * is a field existence or range bound Elasticsearch handles itself, a lone ? is not
+                if (termStart && (c == '?' || c == '*' && i + 1 < query.length() && isTermPart(query.charAt(i + 1)))) {
+                    throw new InvalidSearchQueryException("Terms cannot start with a wildcard");
+                }
+                if (termStart && c == '/') {
+                    throw new InvalidSearchQueryException("Regular expressions are not supported");
+                }
+                termStart = Character.isWhitespace(c) || TERM_STARTS.indexOf(c) >= 0 ||
+                    (termStart && PREFIX_OPERATORS.indexOf(c) >= 0);
+            }
+        }
+    }
+
+    private static boolean isTermPart(char c) {
+        return !Character.isWhitespace(c) && TERM_ENDS.indexOf(c) < 0;
+    }
+}
@@ -5,7 +5,7 @@ import com.freedata.plates.domain.Authority;
 import com.freedata.plates.domain.User;
 import com.freedata.plates.repository.AuthorityRepository;
 import com.freedata.plates.repository.UserRepository;
-import com.freedata.plates.repository.search.UserSearchRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import com.freedata.plates.security.AuthoritiesConstants;
 import com.freedata.plates.security.SecurityUtils;
 import com.freedata.plates.service.dto.UserDTO;
@@ -16,10 +16,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -40,18 +42,21 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchIndexOutbox searchIndexOutbox;
 
     private final AuthorityRepository authorityRepository;
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private final BatchJobRunner batchJobRunner;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SearchIndexOutbox searchIndexOutbox, AuthorityRepository authorityRepository, CacheManager cacheManager, BatchJobRunner batchJobRunner) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.userSearchRepository = userSearchRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.batchJobRunner = batchJobRunner;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -61,7 +66,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
+                searchIndexOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Activated user: {}", user);
                 return user;
@@ -125,7 +130,7 @@ public class UserService {
         authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
+        searchIndexOutbox.index(User.class, newUser.getId());
         this.clearUserCaches(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
@@ -169,7 +174,7 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
-        userSearchRepository.save(user);
+        searchIndexOutbox.index(User.class, user.getId());
         this.clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
         return user;
@@ -204,7 +209,7 @@ public class UserService {
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .forEach(managedAuthorities::add);
-                userSearchRepository.save(user);
+                searchIndexOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
@@ -215,7 +220,7 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            searchIndexOutbox.delete(User.class, user.getId());
             this.clearUserCaches(user);
             log.debug("Deleted User: {}", user);
         });
@@ -241,7 +246,7 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                userSearchRepository.save(user);
+                searchIndexOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
             });
@@ -282,17 +287,21 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am). They are deleted in chunks, each in a transaction of its
+     * own, by the {@link BatchJobRunner}.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-                userSearchRepository.delete(user);
-                this.clearUserCaches(user);
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        batchJobRunner.run("removeNotActivatedUsers",
+            (afterId, chunkSize) -> userRepository.findNotActivatedIdsCreatedBefore(createdBefore, afterId, PageRequest.of(0, chunkSize)),
+            ids -> {
+                List<User> users = userRepository.findAllById(ids);
+                log.debug("Deleting {} not activated users", users.size());
+                userRepository.deleteAll(users);
+                searchIndexOutbox.deleteAll(User.class, ids);
+                users.forEach(this::clearUserCaches);
             });
     }
 
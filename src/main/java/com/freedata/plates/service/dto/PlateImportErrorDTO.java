@@ -0,0 +1,32 @@
+package com.freedata.plates.service.dto;
+
+/**
+ * A DTO describing why a row of a bulk plate import was rejected.
+ */
+public class PlateImportErrorDTO {
+
+    private final long line;
+
+    private final String message;
+
+    public PlateImportErrorDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "PlateImportErrorDTO{" +
+            "line=" + line +
+            ", message='" + message + '\'' +
+            "}";
+    }
+}
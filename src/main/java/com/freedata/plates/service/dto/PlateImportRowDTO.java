@@ -0,0 +1,90 @@
+package com.freedata.plates.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A DTO representing one row of a bulk plate import: a plate, its holder and an optional note.
+ */
+public class PlateImportRowDTO {
+
+    @JsonIgnore
+    private long line;
+
+    private String plateTitle;
+
+    private String personFirstName;
+
+    private String personLastName;
+
+    private String personEmail;
+
+    private String noteTitle;
+
+    private String noteDescription;
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getPlateTitle() {
+        return plateTitle;
+    }
+
+    public void setPlateTitle(String plateTitle) {
+        this.plateTitle = plateTitle;
+    }
+
+    public String getPersonFirstName() {
+        return personFirstName;
+    }
+
+    public void setPersonFirstName(String personFirstName) {
+        this.personFirstName = personFirstName;
+    }
+
+    public String getPersonLastName() {
+        return personLastName;
+    }
+
+    public void setPersonLastName(String personLastName) {
+        this.personLastName = personLastName;
+    }
+
+    public String getPersonEmail() {
+        return personEmail;
+    }
+
+    public void setPersonEmail(String personEmail) {
+        this.personEmail = personEmail;
+    }
+
+    public String getNoteTitle() {
+        return noteTitle;
+    }
+
+    public void setNoteTitle(String noteTitle) {
+        this.noteTitle = noteTitle;
+    }
+
+    public String getNoteDescription() {
+        return noteDescription;
+    }
+
+    public void setNoteDescription(String noteDescription) {
+        this.noteDescription = noteDescription;
+    }
+
+    @Override
+    public String toString() {
+        return "PlateImportRowDTO{" +
+            "line=" + line +
+            ", plateTitle='" + plateTitle + '\'' +
+            ", personEmail='" + personEmail + '\'' +
+            ", noteTitle='" + noteTitle + '\'' +
+            "}";
+    }
+}
@@ -0,0 +1,79 @@
+package com.freedata.plates.service.dto;
+
+/**
+ * A DTO summarizing the outcome of a bulk plate import.
+ */
+public class PlateImportSummaryDTO {
+
+    private long rowsRead;
+
+    private long rowsFailed;
+
+    private long platesCreated;
+
+    private long peopleCreated;
+
+    private long notesCreated;
+
+    private long durationMillis;
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public void setRowsFailed(long rowsFailed) {
+        this.rowsFailed = rowsFailed;
+    }
+
+    public long getPlatesCreated() {
+        return platesCreated;
+    }
+
+    public void setPlatesCreated(long platesCreated) {
+        this.platesCreated = platesCreated;
+    }
+
+    public long getPeopleCreated() {
+        return peopleCreated;
+    }
+
+    public void setPeopleCreated(long peopleCreated) {
+        this.peopleCreated = peopleCreated;
+    }
+
+    public long getNotesCreated() {
+        return notesCreated;
+    }
+
+    public void setNotesCreated(long notesCreated) {
+        this.notesCreated = notesCreated;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PlateImportSummaryDTO{" +
+            "rowsRead=" + rowsRead +
+            ", rowsFailed=" + rowsFailed +
+            ", platesCreated=" + platesCreated +
+            ", peopleCreated=" + peopleCreated +
+            ", notesCreated=" + notesCreated +
+            ", durationMillis=" + durationMillis +
+            "}";
+    }
+}
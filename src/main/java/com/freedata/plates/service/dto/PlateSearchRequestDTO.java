@@ -0,0 +1,199 @@
+package com.freedata.plates.service.dto;
+
+import java.time.Instant;
+
+/**
+ * A DTO representing a structured search of plates: filters on the fields of their search documents, and an optional
+ * full-text clause.
+ * <p>
+ * The filters match exact values, or ranges of dates, and only select plates: they are not scored, and Elasticsearch
+ * caches them across searches. The plates matching all of them are ranked on the text, if any.
+ */
+public class PlateSearchRequestDTO {
+
+    private String text;
+
+    private String plateTitle;
+
+    private Long personId;
+
+    private String personName;
+
+    private String departmentName;
+
+    private String city;
+
+    private String countryName;
+
+    private String regionName;
+
+    private String noteTitle;
+
+    private String holderName;
+
+    private String holderDepartmentName;
+
+    private InstantRange holderStartDate;
+
+    private InstantRange holderEndDate;
+
+    /**
+     * @return the words to find in the title, the names of the person, department and holder, and the note titles.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getPlateTitle() {
+        return plateTitle;
+    }
+
+    public void setPlateTitle(String plateTitle) {
+        this.plateTitle = plateTitle;
+    }
+
+    public Long getPersonId() {
+        return personId;
+    }
+
+    public void setPersonId(Long personId) {
+        this.personId = personId;
+    }
+
+    /**
+     * @return the first and last names of the person, separated by a space.
+     */
+    public String getPersonName() {
+        return personName;
+    }
+
+    public void setPersonName(String personName) {
+        this.personName = personName;
+    }
+
+    public String getDepartmentName() {
+        return departmentName;
+    }
+
+    public void setDepartmentName(String departmentName) {
+        this.departmentName = departmentName;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    public void setCountryName(String countryName) {
+        this.countryName = countryName;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public void setRegionName(String regionName) {
+        this.regionName = regionName;
+    }
+
+    public String getNoteTitle() {
+        return noteTitle;
+    }
+
+    public void setNoteTitle(String noteTitle) {
+        this.noteTitle = noteTitle;
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    public void setHolderName(String holderName) {
+        this.holderName = holderName;
+    }
+
+    public String getHolderDepartmentName() {
+        return holderDepartmentName;
+    }
+
+    public void setHolderDepartmentName(String holderDepartmentName) {
+        this.holderDepartmentName = holderDepartmentName;
+    }
+
+    public InstantRange getHolderStartDate() {
+        return holderStartDate;
+    }
+
+    public void setHolderStartDate(InstantRange holderStartDate) {
+        this.holderStartDate = holderStartDate;
+    }
+
+    public InstantRange getHolderEndDate() {
+        return holderEndDate;
+    }
+
+    public void setHolderEndDate(InstantRange holderEndDate) {
+        this.holderEndDate = holderEndDate;
+    }
+
+    @Override
+    public String toString() {
+        return "PlateSearchRequestDTO{" +
+            "text='" + text + "'" +
+            ", plateTitle='" + plateTitle + "'" +
+            ", personId=" + personId +
+            ", personName='" + personName + "'" +
+            ", departmentName='" + departmentName + "'" +
+            ", city='" + city + "'" +
+            ", countryName='" + countryName + "'" +
+            ", regionName='" + regionName + "'" +
+            ", noteTitle='" + noteTitle + "'" +
+            ", holderName='" + holderName + "'" +
+            ", holderDepartmentName='" + holderDepartmentName + "'" +
+            ", holderStartDate=" + holderStartDate +
+            ", holderEndDate=" + holderEndDate +
+            "}";
+    }
+
+    /**
+     * A range of instants, from an included one to an excluded one, both optional.
+     */
+    public static class InstantRange {
+
+        private Instant from;
+
+        private Instant to;
+
+        public Instant getFrom() {
+            return from;
+        }
+
+        public void setFrom(Instant from) {
+            this.from = from;
+        }
+
+        public Instant getTo() {
+            return to;
+        }
+
+        public void setTo(Instant to) {
+            this.to = to;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + from + ", " + to + ")";
+        }
+    }
+}
@@ -1,21 +1,21 @@
 package com.freedata.plates.service.impl;
 
 import com.freedata.plates.service.CountryService;
+import com.freedata.plates.service.ReferenceDataService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.domain.Country;
 import com.freedata.plates.repository.CountryRepository;
-import com.freedata.plates.repository.search.CountrySearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * Service Implementation for managing {@link Country}.
@@ -28,18 +28,29 @@ public class CountryServiceImpl implements CountryService {
 
     private final CountryRepository countryRepository;
 
-    private final CountrySearchRepository countrySearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
 
-    public CountryServiceImpl(CountryRepository countryRepository, CountrySearchRepository countrySearchRepository) {
+    private final ReferenceDataService referenceDataService;
+
+    public CountryServiceImpl(CountryRepository countryRepository, SearchAfterRepository searchAfterRepository,
+            ReferenceDataService referenceDataService, SearchIndexOutbox searchIndexOutbox) {
         this.countryRepository = countryRepository;
-        this.countrySearchRepository = countrySearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.referenceDataService = referenceDataService;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
     @Override
     public Country save(Country country) {
         log.debug("Request to save Country : {}", country);
+        if (country.getId() != null) {
+            countryRepository.findById(country.getId()).map(Country::getUuid).ifPresent(country::setUuid);
+        }
         Country result = countryRepository.save(country);
-        countrySearchRepository.save(result);
+        searchIndexOutbox.index(Country.class, result.getId());
+        referenceDataService.evictAfterCommit();
         return result;
     }
 
@@ -62,15 +73,14 @@ public class CountryServiceImpl implements CountryService {
     public void delete(Long id) {
         log.debug("Request to delete Country : {}", id);
         countryRepository.deleteById(id);
-        countrySearchRepository.deleteById(id);
+        searchIndexOutbox.delete(Country.class, id);
+        referenceDataService.evictAfterCommit();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Country> search(String query) {
         log.debug("Request to search Countries for query {}", query);
-        return StreamSupport
-            .stream(countrySearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(Country.class, SearchQueries.queryString(query));
     }
 }
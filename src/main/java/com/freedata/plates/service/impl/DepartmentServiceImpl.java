@@ -1,21 +1,21 @@
 package com.freedata.plates.service.impl;
 
 import com.freedata.plates.service.DepartmentService;
+import com.freedata.plates.service.ReferenceDataService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.domain.Department;
 import com.freedata.plates.repository.DepartmentRepository;
-import com.freedata.plates.repository.search.DepartmentSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * Service Implementation for managing {@link Department}.
@@ -28,18 +28,29 @@ public class DepartmentServiceImpl implements DepartmentService {
 
     private final DepartmentRepository departmentRepository;
 
-    private final DepartmentSearchRepository departmentSearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
 
-    public DepartmentServiceImpl(DepartmentRepository departmentRepository, DepartmentSearchRepository departmentSearchRepository) {
+    private final ReferenceDataService referenceDataService;
+
+    public DepartmentServiceImpl(DepartmentRepository departmentRepository, SearchAfterRepository searchAfterRepository,
+            ReferenceDataService referenceDataService, SearchIndexOutbox searchIndexOutbox) {
         this.departmentRepository = departmentRepository;
-        this.departmentSearchRepository = departmentSearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.referenceDataService = referenceDataService;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
     @Override
     public Department save(Department department) {
         log.debug("Request to save Department : {}", department);
+        if (department.getId() != null) {
+            departmentRepository.findById(department.getId()).map(Department::getUuid).ifPresent(department::setUuid);
+        }
         Department result = departmentRepository.save(department);
-        departmentSearchRepository.save(result);
+        searchIndexOutbox.index(Department.class, result.getId());
+        referenceDataService.evictAfterCommit();
         return result;
     }
 
@@ -62,15 +73,14 @@ public class DepartmentServiceImpl implements DepartmentService {
     public void delete(Long id) {
         log.debug("Request to delete Department : {}", id);
         departmentRepository.deleteById(id);
-        departmentSearchRepository.deleteById(id);
+        searchIndexOutbox.delete(Department.class, id);
+        referenceDataService.evictAfterCommit();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Department> search(String query) {
         log.debug("Request to search Departments for query {}", query);
-        return StreamSupport
-            .stream(departmentSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(Department.class, SearchQueries.queryString(query));
     }
 }
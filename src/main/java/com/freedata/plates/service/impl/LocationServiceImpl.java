@@ -1,21 +1,21 @@
 package com.freedata.plates.service.impl;
 
 import com.freedata.plates.service.LocationService;
+import com.freedata.plates.service.ReferenceDataService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.domain.Location;
 import com.freedata.plates.repository.LocationRepository;
-import com.freedata.plates.repository.search.LocationSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * Service Implementation for managing {@link Location}.
@@ -28,18 +28,29 @@ public class LocationServiceImpl implements LocationService {
 
     private final LocationRepository locationRepository;
 
-    private final LocationSearchRepository locationSearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
 
-    public LocationServiceImpl(LocationRepository locationRepository, LocationSearchRepository locationSearchRepository) {
+    private final ReferenceDataService referenceDataService;
+
+    public LocationServiceImpl(LocationRepository locationRepository, SearchAfterRepository searchAfterRepository,
+            ReferenceDataService referenceDataService, SearchIndexOutbox searchIndexOutbox) {
         this.locationRepository = locationRepository;
-        this.locationSearchRepository = locationSearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.referenceDataService = referenceDataService;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
     @Override
     public Location save(Location location) {
         log.debug("Request to save Location : {}", location);
+        if (location.getId() != null) {
+            locationRepository.findById(location.getId()).map(Location::getUuid).ifPresent(location::setUuid);
+        }
         Location result = locationRepository.save(location);
-        locationSearchRepository.save(result);
+        searchIndexOutbox.index(Location.class, result.getId());
+        referenceDataService.evictAfterCommit();
         return result;
     }
 
@@ -62,15 +73,14 @@ public class LocationServiceImpl implements LocationService {
     public void delete(Long id) {
         log.debug("Request to delete Location : {}", id);
         locationRepository.deleteById(id);
-        locationSearchRepository.deleteById(id);
+        searchIndexOutbox.delete(Location.class, id);
+        referenceDataService.evictAfterCommit();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Location> search(String query) {
         log.debug("Request to search Locations for query {}", query);
-        return StreamSupport
-            .stream(locationSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(Location.class, SearchQueries.queryString(query));
     }
 }
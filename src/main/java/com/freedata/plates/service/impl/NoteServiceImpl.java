@@ -1,21 +1,20 @@
 package com.freedata.plates.service.impl;
 
 import com.freedata.plates.service.NoteService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.domain.Note;
 import com.freedata.plates.repository.NoteRepository;
-import com.freedata.plates.repository.search.NoteSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * Service Implementation for managing {@link Note}.
@@ -28,18 +27,24 @@ public class NoteServiceImpl implements NoteService {
 
     private final NoteRepository noteRepository;
 
-    private final NoteSearchRepository noteSearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
 
-    public NoteServiceImpl(NoteRepository noteRepository, NoteSearchRepository noteSearchRepository) {
+    public NoteServiceImpl(NoteRepository noteRepository, SearchAfterRepository searchAfterRepository, SearchIndexOutbox searchIndexOutbox) {
         this.noteRepository = noteRepository;
-        this.noteSearchRepository = noteSearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
     @Override
     public Note save(Note note) {
         log.debug("Request to save Note : {}", note);
+        if (note.getId() != null) {
+            noteRepository.findById(note.getId()).map(Note::getUuid).ifPresent(note::setUuid);
+        }
         Note result = noteRepository.save(note);
-        noteSearchRepository.save(result);
+        searchIndexOutbox.index(Note.class, result.getId());
         return result;
     }
 
@@ -62,15 +67,13 @@ public class NoteServiceImpl implements NoteService {
     public void delete(Long id) {
         log.debug("Request to delete Note : {}", id);
         noteRepository.deleteById(id);
-        noteSearchRepository.deleteById(id);
+        searchIndexOutbox.delete(Note.class, id);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Note> search(String query) {
         log.debug("Request to search Notes for query {}", query);
-        return StreamSupport
-            .stream(noteSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(Note.class, SearchQueries.queryString(query));
     }
 }
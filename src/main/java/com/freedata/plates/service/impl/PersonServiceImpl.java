@@ -0,0 +1,109 @@
+package com.freedata.plates.service.impl;
+
+import com.freedata.plates.service.PersonService;
+import com.freedata.plates.service.SearchQueries;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.KeysetRepository;
+import com.freedata.plates.repository.PersonRepository;
+import com.freedata.plates.repository.search.PersonSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Service Implementation for managing {@link Person}.
+ * <p>
+ * Reads run in read-only transactions: Hibernate neither keeps snapshots of the loaded entities nor flushes the
+ * session. Searches only query Elasticsearch and run outside of any transaction, so that they never hold a JDBC
+ * connection.
+ */
+@Service
+@Transactional
+public class PersonServiceImpl implements PersonService {
+
+    private final Logger log = LoggerFactory.getLogger(PersonServiceImpl.class);
+
+    private final PersonRepository personRepository;
+
+    private final PersonSearchRepository personSearchRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final KeysetRepository keysetRepository;
+
+    private final SearchAfterRepository searchAfterRepository;
+
+    public PersonServiceImpl(PersonRepository personRepository, PersonSearchRepository personSearchRepository, KeysetRepository keysetRepository,
+                             SearchAfterRepository searchAfterRepository, SearchIndexOutbox searchIndexOutbox) {
+        this.personRepository = personRepository;
+        this.personSearchRepository = personSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
+    }
+
+    @Override
+    public Person save(Person person) {
+        log.debug("Request to save Person : {}", person);
+        if (person.getId() != null) {
+            personRepository.findById(person.getId()).map(Person::getUuid).ifPresent(person::setUuid);
+        }
+        Person result = personRepository.save(person);
+        searchIndexOutbox.index(Person.class, result.getId());
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Person> findAll(Pageable pageable) {
+        log.debug("Request to get all People");
+        return personRepository.findAll(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Person> findAll(Sort.Order order, Keyset after, int size) {
+        log.debug("Request to get a keyset page of People after {}", after);
+        return keysetRepository.findAll(Person.class, order, after, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Person> findOne(Long id) {
+        log.debug("Request to get Person : {}", id);
+        return personRepository.findById(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        log.debug("Request to delete Person : {}", id);
+        personRepository.deleteById(id);
+        searchIndexOutbox.delete(Person.class, id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<Person> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of People for query {}", query);
+        return personSearchRepository.search(SearchQueries.queryString(query), pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Slice<Person> search(String query, Sort.Order order, Keyset after, int size) {
+        log.debug("Request to search for a keyset page of People for query {} after {}", query, after);
+        return searchAfterRepository.search(Person.class, SearchQueries.queryString(query), order, after, size);
+    }
+}
@@ -1,21 +1,31 @@
 package com.freedata.plates.service.impl;
 
+import com.freedata.plates.service.PlateHistoryOverlapException;
 import com.freedata.plates.service.PlateHistoryService;
+import com.freedata.plates.service.SearchQueries;
+import com.freedata.plates.domain.Plate;
 import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.KeysetRepository;
 import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
 import com.freedata.plates.repository.search.PlateHistorySearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
-import static org.elasticsearch.index.query.QueryBuilders.*;
-
 /**
  * Service Implementation for managing {@link PlateHistory}.
  */
@@ -27,18 +37,51 @@ public class PlateHistoryServiceImpl implements PlateHistoryService {
 
     private final PlateHistoryRepository plateHistoryRepository;
 
+    private final PlateRepository plateRepository;
+
     private final PlateHistorySearchRepository plateHistorySearchRepository;
 
-    public PlateHistoryServiceImpl(PlateHistoryRepository plateHistoryRepository, PlateHistorySearchRepository plateHistorySearchRepository) {
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final KeysetRepository keysetRepository;
+
+    private final SearchAfterRepository searchAfterRepository;
+
+    public PlateHistoryServiceImpl(PlateHistoryRepository plateHistoryRepository, PlateRepository plateRepository,
+                                   PlateHistorySearchRepository plateHistorySearchRepository, KeysetRepository keysetRepository,
+                                   SearchAfterRepository searchAfterRepository, SearchIndexOutbox searchIndexOutbox) {
         this.plateHistoryRepository = plateHistoryRepository;
+        this.plateRepository = plateRepository;
         this.plateHistorySearchRepository = plateHistorySearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The row of the plate is locked before the overlap is checked, as by the transfers of the plate, so that concurrent
+     * saves of its intervals cannot both pass the check.
+     * <p>
+     * An interval starting later has its plate indexed again once it starts, for the document of the plate to hold it.
+     */
     @Override
     public PlateHistory save(PlateHistory plateHistory) {
         log.debug("Request to save PlateHistory : {}", plateHistory);
+        if (plateHistory.getId() != null) {
+            plateHistoryRepository.findById(plateHistory.getId()).map(PlateHistory::getUuid).ifPresent(plateHistory::setUuid);
+        }
+        if (plateHistory.getPlate() != null && plateHistory.getStartDate() != null
+            && plateRepository.findOneForUpdate(plateHistory.getPlate().getId()).isPresent()
+            && plateHistoryRepository.existsOverlapping(plateHistory.getPlate().getId(), plateHistory.getId(), plateHistory.getStartDate(), plateHistory.getEndDate())) {
+            throw new PlateHistoryOverlapException();
+        }
         PlateHistory result = plateHistoryRepository.save(plateHistory);
-        plateHistorySearchRepository.save(result);
+        searchIndexOutbox.index(PlateHistory.class, result.getId());
+        if (result.getPlate() != null && result.getStartDate() != null && result.getStartDate().isAfter(Instant.now())) {
+            searchIndexOutbox.indexAt(Plate.class, result.getPlate().getId(), result.getStartDate());
+        }
         return result;
     }
 
@@ -49,6 +92,21 @@ public class PlateHistoryServiceImpl implements PlateHistoryService {
         return plateHistoryRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<PlateHistory> findAll(Sort.Order order, Keyset after, int size) {
+        log.debug("Request to get a keyset page of PlateHistories after {}", after);
+        return keysetRepository.findAll(PlateHistory.class, order, after, size);
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PlateHistory> findAsOf(Long plateId, Instant instant) {
+        log.debug("Request to get the PlateHistory of Plate {} as of {}", plateId, instant);
+        return plateHistoryRepository.findFirstByPlateIdAndStartDateLessThanEqualOrderByStartDateDesc(plateId, instant)
+            .filter(plateHistory -> plateHistory.getEndDate() == null || plateHistory.getEndDate().isAfter(instant));
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -60,13 +118,26 @@ public class PlateHistoryServiceImpl implements PlateHistoryService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete PlateHistory : {}", id);
+        // The plate of the interval, whose document includes its last interval, cannot be found once it is deleted
+        Optional<Long> plateId = plateHistoryRepository.findById(id)
+            .map(PlateHistory::getPlate)
+            .map(Plate::getId);
         plateHistoryRepository.deleteById(id);
-        plateHistorySearchRepository.deleteById(id);
+        searchIndexOutbox.delete(PlateHistory.class, id);
+        plateId.ifPresent(plate -> searchIndexOutbox.index(Plate.class, plate));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<PlateHistory> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of PlateHistories for query {}", query);
-        return plateHistorySearchRepository.search(queryStringQuery(query), pageable);    }
+        return plateHistorySearchRepository.search(SearchQueries.queryString(query), pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Slice<PlateHistory> search(String query, Sort.Order order, Keyset after, int size) {
+        log.debug("Request to search for a keyset page of PlateHistories for query {} after {}", query, after);
+        return searchAfterRepository.search(PlateHistory.class, SearchQueries.queryString(query), order, after, size);
+    }
 }
@@ -0,0 +1,256 @@
+package com.freedata.plates.service.impl;
+
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.service.PlateHistoryOverlapException;
+import com.freedata.plates.service.PlateService;
+import com.freedata.plates.service.InvalidSearchQueryException;
+import com.freedata.plates.service.SearchQueries;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO.InstantRange;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.KeysetRepository;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
+import com.freedata.plates.repository.search.PlateSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.PlateSuggestRepository;
+import com.freedata.plates.repository.search.PlateSuggestRepository.Suggestion;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Service Implementation for managing {@link Plate}.
+ * <p>
+ * Reads run in read-only transactions: Hibernate neither keeps snapshots of the loaded entities nor flushes the
+ * session. Searches only query Elasticsearch and run outside of any transaction, so that they never hold a JDBC
+ * connection.
+ */
+@Service
+@Transactional
+public class PlateServiceImpl implements PlateService {
+
+    /**
+     * Fields matched by the text of a structured search.
+     */
+    private static final String[] TEXT_FIELDS = { "plateTitle", "personName", "departmentName", "noteTitles", "holderName" };
+
+    private final Logger log = LoggerFactory.getLogger(PlateServiceImpl.class);
+
+    private final PlateRepository plateRepository;
+
+    private final PlateSearchRepository plateSearchRepository;
+
+    private final PlateSuggestRepository plateSuggestRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
+
+    private final KeysetRepository keysetRepository;
+
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final PlateHistoryRepository plateHistoryRepository;
+
+    public PlateServiceImpl(PlateRepository plateRepository, PlateSearchRepository plateSearchRepository, KeysetRepository keysetRepository,
+                            PlateHistoryRepository plateHistoryRepository, SearchIndexOutbox searchIndexOutbox,
+                            PlateSuggestRepository plateSuggestRepository, SearchAfterRepository searchAfterRepository) {
+        this.plateRepository = plateRepository;
+        this.plateSearchRepository = plateSearchRepository;
+        this.plateSuggestRepository = plateSuggestRepository;
+        this.keysetRepository = keysetRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.plateHistoryRepository = plateHistoryRepository;
+        this.searchIndexOutbox = searchIndexOutbox;
+    }
+
+    @Override
+    public Plate save(Plate plate) {
+        log.debug("Request to save Plate : {}", plate);
+        if (plate.getId() != null) {
+            plateRepository.findById(plate.getId()).map(Plate::getUuid).ifPresent(plate::setUuid);
+        }
+        Plate result = plateRepository.save(plate);
+        searchIndexOutbox.index(Plate.class, result.getId());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the row of the plate is locked, which serializes concurrent transfers of the same plate. The plate and its
+     * history are indexed from the search outbox, so that the lock is not held during the indexing.
+     */
+    @Override
+    public Optional<Plate> transfer(Long id, Person person) {
+        log.debug("Request to transfer Plate {} to Person {}", id, person);
+        Optional<Plate> locked = plateRepository.findOneForUpdate(id);
+        if (!locked.isPresent()) {
+            return locked;
+        }
+        Plate plate = locked.get();
+        if (person.equals(plate.getPerson())) {
+            return locked;
+        }
+        Instant now = Instant.now();
+        List<PlateHistory> plateHistories = new ArrayList<>(2);
+        Optional<PlateHistory> current = plateHistoryRepository.findFirstByPlateIdOrderByStartDateDesc(id)
+            .filter(plateHistory -> plateHistory.getEndDate() == null || plateHistory.getEndDate().isAfter(now));
+        if (current.isPresent()) {
+            PlateHistory plateHistory = current.get();
+            if (plateHistory.getStartDate() != null && plateHistory.getStartDate().isAfter(now)) {
+                throw new PlateHistoryOverlapException();
+            }
+            plateHistory.setEndDate(now);
+            plateHistories.add(plateHistory);
+        }
+        plateHistories.add(plateHistoryRepository.save(new PlateHistory()
+            .plate(plate)
+            .person(person)
+            .department(person.getDepartment())
+            .startDate(now)));
+        plate.setPerson(person);
+        searchIndexOutbox.index(Plate.class, plate.getId());
+        searchIndexOutbox.indexAll(PlateHistory.class, plateHistories.stream().map(PlateHistory::getId).collect(Collectors.toList()));
+        return locked;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Plate> findAll(Pageable pageable) {
+        log.debug("Request to get all Plates");
+        return plateRepository.findAll(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Plate> findAllWithEagerRelationships(Pageable pageable) {
+        log.debug("Request to get all Plates with eager relationships");
+        return plateRepository.findAllWithEagerRelationships(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Plate> findAll(Sort.Order order, Keyset after, int size) {
+        log.debug("Request to get a keyset page of Plates after {}", after);
+        return keysetRepository.findAll(Plate.class, order, after, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Plate> findOne(Long id) {
+        log.debug("Request to get Plate : {}", id);
+        return plateRepository.findOneWithEagerRelationships(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        log.debug("Request to delete Plate : {}", id);
+        plateRepository.deleteById(id);
+        searchIndexOutbox.delete(Plate.class, id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<Plate> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Plates for query {}", query);
+        return plateSearchRepository.search(SearchQueries.queryString(query), pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Slice<Plate> search(String query, Sort.Order order, Keyset after, int size) {
+        log.debug("Request to search for a keyset page of Plates for query {} after {}", query, after);
+        return searchAfterRepository.search(Plate.class, SearchQueries.queryString(query), order, after, size);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<Plate> search(PlateSearchRequestDTO request, Pageable pageable) {
+        log.debug("Request to search for a page of Plates for {}", request);
+        return plateSearchRepository.search(query(request), pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Slice<Plate> search(PlateSearchRequestDTO request, Sort.Order order, Keyset after, int size) {
+        log.debug("Request to search for a keyset page of Plates for {} after {}", request, after);
+        return searchAfterRepository.search(Plate.class, query(request), order, after, size);
+    }
+
+    /**
+     * Build the query of a structured search: the text is scored, the other criteria are filters.
+     */
+    private static QueryBuilder query(PlateSearchRequestDTO request) {
+        BoolQueryBuilder query = boolQuery();
+        if (StringUtils.hasText(request.getText())) {
+            query.must(multiMatchQuery(request.getText(), TEXT_FIELDS).operator(Operator.AND));
+        }
+        filter(query, "plateTitle.keyword", request.getPlateTitle());
+        filter(query, "person.id", request.getPersonId());
+        filter(query, "personName.keyword", request.getPersonName());
+        filter(query, "departmentName.keyword", request.getDepartmentName());
+        filter(query, "city.keyword", request.getCity());
+        filter(query, "countryName.keyword", request.getCountryName());
+        filter(query, "regionName.keyword", request.getRegionName());
+        filter(query, "noteTitles.keyword", request.getNoteTitle());
+        filter(query, "holderName.keyword", request.getHolderName());
+        filter(query, "holderDepartmentName.keyword", request.getHolderDepartmentName());
+        filter(query, "holderStartDate", request.getHolderStartDate());
+        filter(query, "holderEndDate", request.getHolderEndDate());
+        return query;
+    }
+
+    private static void filter(BoolQueryBuilder query, String field, Object value) {
+        if (value != null && !"".equals(value)) {
+            query.filter(termQuery(field, value));
+        }
+    }
+
+    private static void filter(BoolQueryBuilder query, String field, InstantRange range) {
+        if (range == null || (range.getFrom() == null && range.getTo() == null)) {
+            return;
+        }
+        if (range.getFrom() != null && range.getTo() != null && !range.getFrom().isBefore(range.getTo())) {
+            throw new InvalidSearchQueryException("The range of " + field + " is empty");
+        }
+        // Dates are indexed in milliseconds
+        RangeQueryBuilder filter = rangeQuery(field);
+        if (range.getFrom() != null) {
+            filter.gte(range.getFrom().toEpochMilli());
+        }
+        if (range.getTo() != null) {
+            filter.lt(range.getTo().toEpochMilli());
+        }
+        query.filter(filter);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Suggestion> suggest(String prefix) {
+        log.debug("Request to suggest Plates for prefix {}", prefix);
+        return plateSuggestRepository.suggest(prefix);
+    }
+}
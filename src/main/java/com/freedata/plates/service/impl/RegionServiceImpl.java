@@ -1,21 +1,21 @@
 package com.freedata.plates.service.impl;
 
 import com.freedata.plates.service.RegionService;
+import com.freedata.plates.service.ReferenceDataService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.domain.Region;
 import com.freedata.plates.repository.RegionRepository;
-import com.freedata.plates.repository.search.RegionSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * Service Implementation for managing {@link Region}.
@@ -28,18 +28,29 @@ public class RegionServiceImpl implements RegionService {
 
     private final RegionRepository regionRepository;
 
-    private final RegionSearchRepository regionSearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
+
+    private final SearchIndexOutbox searchIndexOutbox;
 
-    public RegionServiceImpl(RegionRepository regionRepository, RegionSearchRepository regionSearchRepository) {
+    private final ReferenceDataService referenceDataService;
+
+    public RegionServiceImpl(RegionRepository regionRepository, SearchAfterRepository searchAfterRepository,
+            ReferenceDataService referenceDataService, SearchIndexOutbox searchIndexOutbox) {
         this.regionRepository = regionRepository;
-        this.regionSearchRepository = regionSearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
+        this.referenceDataService = referenceDataService;
+        this.searchIndexOutbox = searchIndexOutbox;
     }
 
     @Override
     public Region save(Region region) {
         log.debug("Request to save Region : {}", region);
+        if (region.getId() != null) {
+            regionRepository.findById(region.getId()).map(Region::getUuid).ifPresent(region::setUuid);
+        }
         Region result = regionRepository.save(region);
-        regionSearchRepository.save(result);
+        searchIndexOutbox.index(Region.class, result.getId());
+        referenceDataService.evictAfterCommit();
         return result;
     }
 
@@ -62,15 +73,14 @@ public class RegionServiceImpl implements RegionService {
     public void delete(Long id) {
         log.debug("Request to delete Region : {}", id);
         regionRepository.deleteById(id);
-        regionSearchRepository.deleteById(id);
+        searchIndexOutbox.delete(Region.class, id);
+        referenceDataService.evictAfterCommit();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Region> search(String query) {
         log.debug("Request to search Regions for query {}", query);
-        return StreamSupport
-            .stream(regionSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(Region.class, SearchQueries.queryString(query));
     }
 }
@@ -0,0 +1,120 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.security.AuthoritiesConstants;
+import com.freedata.plates.service.ExportService;
+import com.freedata.plates.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller for exporting {@link com.freedata.plates.domain.Plate}, {@link com.freedata.plates.domain.Person}
+ * and {@link com.freedata.plates.domain.PlateHistory} in full.
+ * <p>
+ * Exports are streamed as they are read from the database, as CSV with a header line or as NDJSON, and gzipped when
+ * the client accepts it.
+ */
+@RestController
+@RequestMapping("/api")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class ExportResource {
+
+    private static final String ENTITY_NAME = "export";
+
+    private final Logger log = LoggerFactory.getLogger(ExportResource.class);
+
+    private final ExportService exportService;
+
+    public ExportResource(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * {@code GET  /_export/plates} : export all the plates.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param partitions the number of id ranges read in parallel; with more than one, rows are not sorted.
+     * @param acceptEncoding the encodings accepted by the client, the export is gzipped if {@code gzip} is one of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed export in body,
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/_export/plates")
+    public ResponseEntity<StreamingResponseBody> exportPlates(@RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(defaultValue = "1") int partitions,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export Plates as {}", format);
+        ExportService.Format exportFormat = parseFormat(format);
+        return export("plates", exportFormat, acceptEncoding, out -> exportService.exportPlates(exportFormat, partitions, out));
+    }
+
+    /**
+     * {@code GET  /_export/people} : export all the people.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param partitions the number of id ranges read in parallel; with more than one, rows are not sorted.
+     * @param acceptEncoding the encodings accepted by the client, the export is gzipped if {@code gzip} is one of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed export in body,
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/_export/people")
+    public ResponseEntity<StreamingResponseBody> exportPeople(@RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(defaultValue = "1") int partitions,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export People as {}", format);
+        ExportService.Format exportFormat = parseFormat(format);
+        return export("people", exportFormat, acceptEncoding, out -> exportService.exportPeople(exportFormat, partitions, out));
+    }
+
+    /**
+     * {@code GET  /_export/plate-histories} : export all the plateHistories.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param partitions the number of id ranges read in parallel; with more than one, rows are not sorted.
+     * @param acceptEncoding the encodings accepted by the client, the export is gzipped if {@code gzip} is one of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed export in body,
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/_export/plate-histories")
+    public ResponseEntity<StreamingResponseBody> exportPlateHistories(@RequestParam(defaultValue = "ndjson") String format,
+                                                                      @RequestParam(defaultValue = "1") int partitions,
+                                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export PlateHistories as {}", format);
+        ExportService.Format exportFormat = parseFormat(format);
+        return export("plate-histories", exportFormat, acceptEncoding, out -> exportService.exportPlateHistories(exportFormat, partitions, out));
+    }
+
+    private ExportService.Format parseFormat(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unsupported export format " + format, ENTITY_NAME, "formatnotsupported");
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, ExportService.Format format, String acceptEncoding, StreamingResponseBody body) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        String extension = format == ExportService.Format.CSV ? ".csv" : ".ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(format == ExportService.Format.CSV ? PlateImportResource.TEXT_CSV_VALUE : PlateImportResource.APPLICATION_NDJSON_VALUE))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment").filename(name + extension).build().toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(body);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(out -> {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+            body.writeTo(gzipOut);
+            gzipOut.finish();
+        });
+    }
+}
@@ -1,9 +1,11 @@
 package com.freedata.plates.web.rest;
 
 import com.freedata.plates.domain.Person;
-import com.freedata.plates.repository.PersonRepository;
-import com.freedata.plates.repository.search.PersonSearchRepository;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.search.SearchIndexer;
+import com.freedata.plates.service.PersonService;
 import com.freedata.plates.web.rest.errors.BadRequestAlertException;
+import com.freedata.plates.web.rest.util.KeysetPaginationUtil;
 
 import io.github.freedata.web.util.HeaderUtil;
 import io.github.freedata.web.util.PaginationUtil;
@@ -13,28 +15,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * REST controller for managing {@link com.freedata.plates.domain.Person}.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class PersonResource {
 
     private final Logger log = LoggerFactory.getLogger(PersonResource.class);
@@ -44,30 +44,39 @@ public class PersonResource {
     @Value("${freedata.clientApp.name}")
     private String applicationName;
 
-    private final PersonRepository personRepository;
+    /**
+     * Properties the people can be keyset paginated on, besides the id. Each one is indexed together with the id.
+     */
+    static final List<String> KEYSET_SORT_PROPERTIES = Arrays.asList("lastName", "hireDate");
 
-    private final PersonSearchRepository personSearchRepository;
+    private final PersonService personService;
 
-    public PersonResource(PersonRepository personRepository, PersonSearchRepository personSearchRepository) {
-        this.personRepository = personRepository;
-        this.personSearchRepository = personSearchRepository;
+    private final SearchIndexer searchIndexer;
+
+    public PersonResource(PersonService personService, SearchIndexer searchIndexer) {
+        this.personService = personService;
+        this.searchIndexer = searchIndexer;
     }
 
     /**
      * {@code POST  /people} : Create a new person.
      *
      * @param person the person to create.
+     * @param refresh wait for the person to be searchable before answering.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new person, or with status {@code 400 (Bad Request)} if the person has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/people")
-    public ResponseEntity<Person> createPerson(@RequestBody Person person) throws URISyntaxException {
+    public ResponseEntity<Person> createPerson(@RequestBody Person person,
+            @RequestParam(required = false, defaultValue = "false") boolean refresh) throws URISyntaxException {
         log.debug("REST request to save Person : {}", person);
         if (person.getId() != null) {
             throw new BadRequestAlertException("A new person cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Person result = personRepository.save(person);
-        personSearchRepository.save(result);
+        Person result = personService.save(person);
+        if (refresh) {
+            searchIndexer.indexNow(Person.class, Collections.singleton(result.getId()));
+        }
         return ResponseEntity.created(new URI("/api/people/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -77,19 +86,23 @@ public class PersonResource {
      * {@code PUT  /people} : Updates an existing person.
      *
      * @param person the person to update.
+     * @param refresh wait for the person to be searchable before answering.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated person,
      * or with status {@code 400 (Bad Request)} if the person is not valid,
      * or with status {@code 500 (Internal Server Error)} if the person couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/people")
-    public ResponseEntity<Person> updatePerson(@RequestBody Person person) throws URISyntaxException {
+    public ResponseEntity<Person> updatePerson(@RequestBody Person person,
+            @RequestParam(required = false, defaultValue = "false") boolean refresh) throws URISyntaxException {
         log.debug("REST request to update Person : {}", person);
         if (person.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Person result = personRepository.save(person);
-        personSearchRepository.save(result);
+        Person result = personService.save(person);
+        if (refresh) {
+            searchIndexer.indexNow(Person.class, Collections.singleton(result.getId()));
+        }
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, person.getId().toString()))
             .body(result);
@@ -104,11 +117,29 @@ public class PersonResource {
     @GetMapping("/people")
     public ResponseEntity<List<Person>> getAllPeople(Pageable pageable) {
         log.debug("REST request to get a page of People");
-        Page<Person> page = personRepository.findAll(pageable);
+        Page<Person> page = personService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /people?after=:cursor} : get a keyset page of the people.
+     *
+     * @param after the cursor of the last person of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of people in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/people", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Person>> getAllPeopleAfter(@RequestParam String after, Pageable pageable) {
+        log.debug("REST request to get a keyset page of People after {}", after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<Person> slice = personService.findAll(order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code GET  /people/:id} : get the "id" person.
      *
@@ -118,7 +149,7 @@ public class PersonResource {
     @GetMapping("/people/{id}")
     public ResponseEntity<Person> getPerson(@PathVariable Long id) {
         log.debug("REST request to get Person : {}", id);
-        Optional<Person> person = personRepository.findById(id);
+        Optional<Person> person = personService.findOne(id);
         return ResponseUtil.wrapOrNotFound(person);
     }
 
@@ -126,13 +157,16 @@ public class PersonResource {
      * {@code DELETE  /people/:id} : delete the "id" person.
      *
      * @param id the id of the person to delete.
+     * @param refresh wait for the person to be out of the search results before answering.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
     @DeleteMapping("/people/{id}")
-    public ResponseEntity<Void> deletePerson(@PathVariable Long id) {
+    public ResponseEntity<Void> deletePerson(@PathVariable Long id, @RequestParam(required = false, defaultValue = "false") boolean refresh) {
         log.debug("REST request to delete Person : {}", id);
-        personRepository.deleteById(id);
-        personSearchRepository.deleteById(id);
+        personService.delete(id);
+        if (refresh) {
+            searchIndexer.indexNow(Person.class, Collections.singleton(id));
+        }
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString())).build();
     }
 
@@ -147,8 +181,28 @@ public class PersonResource {
     @GetMapping("/_search/people")
     public ResponseEntity<List<Person>> searchPeople(@RequestParam String query, Pageable pageable) {
         log.debug("REST request to search for a page of People for query {}", query);
-        Page<Person> page = personSearchRepository.search(queryStringQuery(query), pageable);
+        Page<Person> page = personService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
         }
+
+    /**
+     * {@code SEARCH  /_search/people?query=:query&after=:cursor} : search for a keyset page of the people
+     * corresponding to the query.
+     *
+     * @param query the query of the person search.
+     * @param after the cursor of the last person of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of people in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/_search/people", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Person>> searchPeopleAfter(@RequestParam String query, @RequestParam String after, Pageable pageable) {
+        log.debug("REST request to search for a keyset page of People for query {} after {}", query, after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<Person> slice = personService.search(query, order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
 }
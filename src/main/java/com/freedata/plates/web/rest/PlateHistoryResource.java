@@ -1,8 +1,10 @@
 package com.freedata.plates.web.rest;
 
 import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.Keyset;
 import com.freedata.plates.service.PlateHistoryService;
 import com.freedata.plates.web.rest.errors.BadRequestAlertException;
+import com.freedata.plates.web.rest.util.KeysetPaginationUtil;
 
 import io.github.freedata.web.util.HeaderUtil;
 import io.github.freedata.web.util.PaginationUtil;
@@ -12,6 +14,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -20,6 +24,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.StreamSupport;
@@ -40,6 +46,11 @@ public class PlateHistoryResource {
     @Value("${freedata.clientApp.name}")
     private String applicationName;
 
+    /**
+     * Properties the plateHistories can be keyset paginated on, besides the id. Each one is indexed together with the id.
+     */
+    static final List<String> KEYSET_SORT_PROPERTIES = Collections.singletonList("startDate");
+
     private final PlateHistoryService plateHistoryService;
 
     public PlateHistoryResource(PlateHistoryService plateHistoryService) {
@@ -59,6 +70,7 @@ public class PlateHistoryResource {
         if (plateHistory.getId() != null) {
             throw new BadRequestAlertException("A new plateHistory cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        checkInterval(plateHistory);
         PlateHistory result = plateHistoryService.save(plateHistory);
         return ResponseEntity.created(new URI("/api/plate-histories/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -80,12 +92,19 @@ public class PlateHistoryResource {
         if (plateHistory.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        checkInterval(plateHistory);
         PlateHistory result = plateHistoryService.save(plateHistory);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, plateHistory.getId().toString()))
             .body(result);
     }
 
+    private void checkInterval(PlateHistory plateHistory) {
+        if (plateHistory.getStartDate() != null && plateHistory.getEndDate() != null && plateHistory.getEndDate().isBefore(plateHistory.getStartDate())) {
+            throw new BadRequestAlertException("The end date of a plateHistory cannot be before its start date", ENTITY_NAME, "invalidinterval");
+        }
+    }
+
     /**
      * {@code GET  /plate-histories} : get all the plateHistories.
      *
@@ -100,6 +119,39 @@ public class PlateHistoryResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /plate-histories?after=:cursor} : get a keyset page of the plateHistories.
+     *
+     * @param after the cursor of the last plateHistory of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plateHistories in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/plate-histories", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<PlateHistory>> getAllPlateHistoriesAfter(@RequestParam String after, Pageable pageable) {
+        log.debug("REST request to get a keyset page of PlateHistories after {}", after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<PlateHistory> slice = plateHistoryService.findAll(order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /plate-histories/as-of?plateId=:plateId&instant=:instant} : get the plateHistory of a plate at an instant.
+     *
+     * @param plateId the id of the plate.
+     * @param instant the instant, in ISO-8601 format.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the plateHistory whose interval contains the instant,
+     * or with status {@code 404 (Not Found)} if the plate was not held then.
+     */
+    @GetMapping("/plate-histories/as-of")
+    public ResponseEntity<PlateHistory> getPlateHistoryAsOf(@RequestParam Long plateId, @RequestParam Instant instant) {
+        log.debug("REST request to get the PlateHistory of Plate {} as of {}", plateId, instant);
+        Optional<PlateHistory> plateHistory = plateHistoryService.findAsOf(plateId, instant);
+        return ResponseUtil.wrapOrNotFound(plateHistory);
+    }
+
     /**
      * {@code GET  /plate-histories/:id} : get the "id" plateHistory.
      *
@@ -141,4 +193,24 @@ public class PlateHistoryResource {
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
         }
+
+    /**
+     * {@code SEARCH  /_search/plate-histories?query=:query&after=:cursor} : search for a keyset page of the plateHistories
+     * corresponding to the query.
+     *
+     * @param query the query of the plateHistory search.
+     * @param after the cursor of the last plateHistory of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plateHistories in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/_search/plate-histories", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<PlateHistory>> searchPlateHistoriesAfter(@RequestParam String query, @RequestParam String after, Pageable pageable) {
+        log.debug("REST request to search for a keyset page of PlateHistories for query {} after {}", query, after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<PlateHistory> slice = plateHistoryService.search(query, order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
 }
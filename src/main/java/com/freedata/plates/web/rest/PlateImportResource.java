@@ -0,0 +1,84 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.security.AuthoritiesConstants;
+import com.freedata.plates.service.PlateImportService;
+import com.freedata.plates.service.dto.PlateImportSummaryDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * REST controller for importing {@link com.freedata.plates.domain.Plate} in bulk.
+ */
+@RestController
+@RequestMapping("/api")
+public class PlateImportResource {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final Logger log = LoggerFactory.getLogger(PlateImportResource.class);
+
+    private final PlateImportService plateImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public PlateImportResource(PlateImportService plateImportService, ObjectMapper objectMapper) {
+        this.plateImportService = plateImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {@code POST  /_import/plates} : Import plates, with their holder and notes, in bulk.
+     * <p>
+     * The body is either CSV with a header line, or NDJSON, and may be sent with {@code Content-Encoding: gzip}.
+     * The response is NDJSON: one {@code {"error": ...}} line per rejected row, written as soon as it is detected,
+     * followed by a final {@code {"summary": ...}} line.
+     *
+     * @param request the HTTP request, whose body is streamed.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed import report in body.
+     */
+    @PostMapping(value = "/_import/plates", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE}, produces = APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<StreamingResponseBody> importPlates(HttpServletRequest request) throws IOException {
+        log.debug("REST request to import Plates from {}", request.getContentType());
+        PlateImportService.Format format = MediaType.parseMediaType(request.getContentType())
+            .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) ? PlateImportService.Format.CSV : PlateImportService.Format.NDJSON;
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        InputStream body = request.getInputStream();
+        StreamingResponseBody report = out -> {
+            InputStream input = gzip ? new GZIPInputStream(body) : body;
+            PlateImportSummaryDTO summary = plateImportService.importPlates(input, format, error -> {
+                try {
+                    writeLine(out, "error", error);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeLine(out, "summary", summary);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(report);
+    }
+
+    private void writeLine(OutputStream out, String key, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(Collections.singletonMap(key, value)));
+        out.write('\n');
+        out.flush();
+    }
+}
@@ -1,9 +1,16 @@
 package com.freedata.plates.web.rest;
 
+import com.freedata.plates.domain.Person;
 import com.freedata.plates.domain.Plate;
-import com.freedata.plates.repository.PlateRepository;
-import com.freedata.plates.repository.search.PlateSearchRepository;
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.repository.search.PlateSuggestRepository;
+import com.freedata.plates.repository.search.PlateSuggestRepository.Suggestion;
+import com.freedata.plates.repository.search.SearchIndexer;
+import com.freedata.plates.service.PersonService;
+import com.freedata.plates.service.PlateService;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO;
 import com.freedata.plates.web.rest.errors.BadRequestAlertException;
+import com.freedata.plates.web.rest.util.KeysetPaginationUtil;
 
 import io.github.freedata.web.util.HeaderUtil;
 import io.github.freedata.web.util.PaginationUtil;
@@ -13,28 +20,25 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * REST controller for managing {@link com.freedata.plates.domain.Plate}.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class PlateResource {
 
     private final Logger log = LoggerFactory.getLogger(PlateResource.class);
@@ -44,30 +48,42 @@ public class PlateResource {
     @Value("${freedata.clientApp.name}")
     private String applicationName;
 
-    private final PlateRepository plateRepository;
+    /**
+     * Properties the plates can be keyset paginated on, besides the id. Each one is indexed together with the id.
+     */
+    static final List<String> KEYSET_SORT_PROPERTIES = Collections.singletonList("plateTitle");
+
+    private final PlateService plateService;
+
+    private final PersonService personService;
 
-    private final PlateSearchRepository plateSearchRepository;
+    private final SearchIndexer searchIndexer;
 
-    public PlateResource(PlateRepository plateRepository, PlateSearchRepository plateSearchRepository) {
-        this.plateRepository = plateRepository;
-        this.plateSearchRepository = plateSearchRepository;
+    public PlateResource(PlateService plateService, PersonService personService, SearchIndexer searchIndexer) {
+        this.plateService = plateService;
+        this.personService = personService;
+        this.searchIndexer = searchIndexer;
     }
 
     /**
      * {@code POST  /plates} : Create a new plate.
      *
      * @param plate the plate to create.
+     * @param refresh wait for the plate to be searchable before answering.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new plate, or with status {@code 400 (Bad Request)} if the plate has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/plates")
-    public ResponseEntity<Plate> createPlate(@RequestBody Plate plate) throws URISyntaxException {
+    public ResponseEntity<Plate> createPlate(@RequestBody Plate plate,
+            @RequestParam(required = false, defaultValue = "false") boolean refresh) throws URISyntaxException {
         log.debug("REST request to save Plate : {}", plate);
         if (plate.getId() != null) {
             throw new BadRequestAlertException("A new plate cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Plate result = plateRepository.save(plate);
-        plateSearchRepository.save(result);
+        Plate result = plateService.save(plate);
+        if (refresh) {
+            searchIndexer.indexNow(Plate.class, Collections.singleton(result.getId()));
+        }
         return ResponseEntity.created(new URI("/api/plates/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -77,24 +93,48 @@ public class PlateResource {
      * {@code PUT  /plates} : Updates an existing plate.
      *
      * @param plate the plate to update.
+     * @param refresh wait for the plate to be searchable before answering.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated plate,
      * or with status {@code 400 (Bad Request)} if the plate is not valid,
      * or with status {@code 500 (Internal Server Error)} if the plate couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/plates")
-    public ResponseEntity<Plate> updatePlate(@RequestBody Plate plate) throws URISyntaxException {
+    public ResponseEntity<Plate> updatePlate(@RequestBody Plate plate,
+            @RequestParam(required = false, defaultValue = "false") boolean refresh) throws URISyntaxException {
         log.debug("REST request to update Plate : {}", plate);
         if (plate.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Plate result = plateRepository.save(plate);
-        plateSearchRepository.save(result);
+        Plate result = plateService.save(plate);
+        if (refresh) {
+            searchIndexer.indexNow(Plate.class, Collections.singleton(result.getId()));
+        }
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, plate.getId().toString()))
             .body(result);
     }
 
+    /**
+     * {@code POST  /plates/:id/transfer?personId=:personId} : Transfer the "id" plate to a person, closing the current
+     * interval of its history and opening a new one.
+     *
+     * @param id the id of the plate to transfer.
+     * @param personId the id of the person the plate is transferred to.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the transferred plate,
+     * or with status {@code 400 (Bad Request)} if the person does not exist,
+     * or with status {@code 404 (Not Found)} if the plate does not exist,
+     * or with status {@code 409 (Conflict)} if the plate is locked by another transfer for too long.
+     */
+    @PostMapping("/plates/{id}/transfer")
+    public ResponseEntity<Plate> transferPlate(@PathVariable Long id, @RequestParam Long personId) {
+        log.debug("REST request to transfer Plate {} to Person {}", id, personId);
+        Person person = personService.findOne(personId)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid person", ENTITY_NAME, "personnotfound"));
+        Optional<Plate> plate = plateService.transfer(id, person);
+        return ResponseUtil.wrapOrNotFound(plate, HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()));
+    }
+
     /**
      * {@code GET  /plates} : get all the plates.
      *
@@ -107,14 +147,32 @@ public class PlateResource {
         log.debug("REST request to get a page of Plates");
         Page<Plate> page;
         if (eagerload) {
-            page = plateRepository.findAllWithEagerRelationships(pageable);
+            page = plateService.findAllWithEagerRelationships(pageable);
         } else {
-            page = plateRepository.findAll(pageable);
+            page = plateService.findAll(pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /plates?after=:cursor} : get a keyset page of the plates.
+     *
+     * @param after the cursor of the last plate of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plates in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/plates", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Plate>> getAllPlatesAfter(@RequestParam String after, Pageable pageable) {
+        log.debug("REST request to get a keyset page of Plates after {}", after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<Plate> slice = plateService.findAll(order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code GET  /plates/:id} : get the "id" plate.
      *
@@ -124,7 +182,7 @@ public class PlateResource {
     @GetMapping("/plates/{id}")
     public ResponseEntity<Plate> getPlate(@PathVariable Long id) {
         log.debug("REST request to get Plate : {}", id);
-        Optional<Plate> plate = plateRepository.findOneWithEagerRelationships(id);
+        Optional<Plate> plate = plateService.findOne(id);
         return ResponseUtil.wrapOrNotFound(plate);
     }
 
@@ -132,13 +190,16 @@ public class PlateResource {
      * {@code DELETE  /plates/:id} : delete the "id" plate.
      *
      * @param id the id of the plate to delete.
+     * @param refresh wait for the plate to be out of the search results before answering.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
     @DeleteMapping("/plates/{id}")
-    public ResponseEntity<Void> deletePlate(@PathVariable Long id) {
+    public ResponseEntity<Void> deletePlate(@PathVariable Long id, @RequestParam(required = false, defaultValue = "false") boolean refresh) {
         log.debug("REST request to delete Plate : {}", id);
-        plateRepository.deleteById(id);
-        plateSearchRepository.deleteById(id);
+        plateService.delete(id);
+        if (refresh) {
+            searchIndexer.indexNow(Plate.class, Collections.singleton(id));
+        }
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString())).build();
     }
 
@@ -153,8 +214,78 @@ public class PlateResource {
     @GetMapping("/_search/plates")
     public ResponseEntity<List<Plate>> searchPlates(@RequestParam String query, Pageable pageable) {
         log.debug("REST request to search for a page of Plates for query {}", query);
-        Page<Plate> page = plateSearchRepository.search(queryStringQuery(query), pageable);
+        Page<Plate> page = plateService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
         }
+
+    /**
+     * {@code SEARCH  /_search/plates?query=:query&after=:cursor} : search for a keyset page of the plates
+     * corresponding to the query.
+     *
+     * @param query the query of the plate search.
+     * @param after the cursor of the last plate of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plates in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort order is not valid.
+     */
+    @GetMapping(value = "/_search/plates", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Plate>> searchPlatesAfter(@RequestParam String query, @RequestParam String after, Pageable pageable) {
+        log.debug("REST request to search for a keyset page of Plates for query {} after {}", query, after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<Plate> slice = plateService.search(query, order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code POST  /_search/plates} : search for the plates matching a structured search.
+     *
+     * @param request the filters and the text of the search.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plates in body,
+     * or with status {@code 400 (Bad Request)} if a range of the search is empty.
+     */
+    @PostMapping("/_search/plates")
+    public ResponseEntity<List<Plate>> searchPlatesWithRequest(@RequestBody PlateSearchRequestDTO request, Pageable pageable) {
+        log.debug("REST request to search for a page of Plates for {}", request);
+        Page<Plate> page = plateService.search(request, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code POST  /_search/plates?after=:cursor} : search for a keyset page of the plates matching a structured
+     * search. The next page is searched by posting the same search to the {@code next} link.
+     *
+     * @param request the filters and the text of the search.
+     * @param after the cursor of the last plate of the previous page, empty for the first page.
+     * @param pageable the page size and the sort order, on one of {@link #KEYSET_SORT_PROPERTIES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plates in body,
+     * or with status {@code 400 (Bad Request)} if the cursor, the sort order or a range of the search is not valid.
+     */
+    @PostMapping(value = "/_search/plates", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Plate>> searchPlatesWithRequestAfter(@RequestBody PlateSearchRequestDTO request, @RequestParam String after,
+                                                                   Pageable pageable) {
+        log.debug("REST request to search for a keyset page of Plates for {} after {}", request, after);
+        Keyset keyset = KeysetPaginationUtil.parseAfter(after, ENTITY_NAME);
+        Sort.Order order = KeysetPaginationUtil.resolveOrder(pageable, keyset, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        Slice<Plate> slice = plateService.search(request, order, keyset, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice, order);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code SUGGEST  /_suggest/plates?prefix=:prefix} : suggest the plates whose title, or the last name of whose
+     * person, starts with each word of the prefix.
+     *
+     * @param prefix the words typed so far.
+     * @return at most {@link PlateSuggestRepository#SIZE} suggestions, best first.
+     */
+    @GetMapping("/_suggest/plates")
+    public ResponseEntity<List<Suggestion>> suggestPlates(@RequestParam String prefix) {
+        log.debug("REST request to suggest Plates for prefix {}", prefix);
+        return ResponseEntity.ok(plateService.suggest(prefix));
+    }
 }
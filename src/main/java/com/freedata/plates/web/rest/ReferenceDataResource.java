@@ -0,0 +1,51 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.service.ReferenceDataService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller serving the reference data, {@link com.freedata.plates.domain.Region},
+ * {@link com.freedata.plates.domain.Country}, {@link com.freedata.plates.domain.Location} and
+ * {@link com.freedata.plates.domain.Department}, in one response.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReferenceDataResource {
+
+    private final Logger log = LoggerFactory.getLogger(ReferenceDataResource.class);
+
+    private final ReferenceDataService referenceDataService;
+
+    public ReferenceDataResource(ReferenceDataService referenceDataService) {
+        this.referenceDataService = referenceDataService;
+    }
+
+    /**
+     * {@code GET  /reference-data} : get all the regions, countries, locations and departments.
+     * <p>
+     * The response carries an ETag: sent back in {@code If-None-Match}, it gets a {@code 304 (Not Modified)} until the
+     * reference data changes.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the reference data in body, as an object with
+     * one array per entity, or with status {@code 304 (Not Modified)}.
+     */
+    @GetMapping("/reference-data")
+    public ResponseEntity<byte[]> getReferenceData() {
+        log.debug("REST request to get the reference data");
+        ReferenceDataService.Snapshot snapshot = referenceDataService.getSnapshot();
+        // The conditional request is answered by Spring from the ETag, without writing the body
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(CacheControl.noCache())
+            .eTag(snapshot.getETag())
+            .body(snapshot.getJson());
+    }
+}
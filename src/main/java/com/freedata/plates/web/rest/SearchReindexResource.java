@@ -0,0 +1,65 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.repository.search.SearchReindexer;
+import com.freedata.plates.security.AuthoritiesConstants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+
+/**
+ * REST controller for rebuilding the Elasticsearch indices from the database, see {@link SearchReindexer}.
+ */
+@RestController
+@RequestMapping("/api")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private final SearchReindexer searchReindexer;
+
+    public SearchReindexResource(SearchReindexer searchReindexer) {
+        this.searchReindexer = searchReindexer;
+    }
+
+    /**
+     * {@code POST  /_reindex/:index} : start rebuilding an index, searches keep using the current one meanwhile.
+     *
+     * @param index the name of the index, such as {@code plate}.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the started rebuild in body,
+     * with status {@code 409 (Conflict)} and the running rebuild in body if the index is already being rebuilt,
+     * or with status {@code 404 (Not Found)} if no entity is indexed under this name.
+     */
+    @PostMapping("/_reindex/{index}")
+    public ResponseEntity<SearchReindexer.Reindex> reindex(@PathVariable String index) {
+        log.debug("REST request to rebuild the index {}", index);
+        if (!searchReindexer.getAliases().contains(index)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchReindexer.reindex(index));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(searchReindexer.getReindexes().stream()
+                .filter(reindex -> reindex.getAlias().equals(index))
+                .findFirst()
+                .orElse(null));
+        }
+    }
+
+    /**
+     * {@code GET  /_reindex} : get the last rebuild of each index.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the rebuilds, running or not, in body.
+     */
+    @GetMapping("/_reindex")
+    public Collection<SearchReindexer.Reindex> getReindexes() {
+        log.debug("REST request to get the index rebuilds");
+        return searchReindexer.getReindexes();
+    }
+}
@@ -3,12 +3,13 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.config.Constants;
 import com.freedata.plates.domain.User;
 import com.freedata.plates.repository.UserRepository;
-import com.freedata.plates.repository.search.UserSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
 import com.freedata.plates.security.AuthoritiesConstants;
 import com.freedata.plates.service.MailService;
 import org.springframework.data.domain.Sort;
 import java.util.Collections;
 import com.freedata.plates.service.UserService;
+import com.freedata.plates.service.SearchQueries;
 import com.freedata.plates.service.dto.UserDTO;
 import com.freedata.plates.web.rest.errors.BadRequestAlertException;
 import com.freedata.plates.web.rest.errors.EmailAlreadyUsedException;
@@ -34,10 +35,6 @@ import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * REST controller for managing users.
@@ -79,13 +76,13 @@ public class UserResource {
 
     private final MailService mailService;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchAfterRepository searchAfterRepository;
 
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService, UserSearchRepository userSearchRepository) {
+    public UserResource(UserService userService, UserRepository userRepository, MailService mailService, SearchAfterRepository searchAfterRepository) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.userSearchRepository = userSearchRepository;
+        this.searchAfterRepository = searchAfterRepository;
     }
 
     /**
@@ -214,8 +211,6 @@ public class UserResource {
      */
     @GetMapping("/_search/users/{query}")
     public List<User> search(@PathVariable String query) {
-        return StreamSupport
-            .stream(userSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+        return searchAfterRepository.searchAll(User.class, SearchQueries.queryString(query));
     }
 }
@@ -7,8 +7,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -124,6 +126,43 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePlateHistoryOverlapException(com.freedata.plates.service.PlateHistoryOverlapException ex, NativeWebRequest request) {
+        BadRequestAlertException problem = new BadRequestAlertException(ex.getMessage(), "plateHistory", "intervaloverlap");
+        return create(problem, request, HeaderUtil.createFailureAlert(applicationName,  true, problem.getEntityName(), problem.getErrorKey(), problem.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidSearchQueryException(com.freedata.plates.service.InvalidSearchQueryException ex, NativeWebRequest request) {
+        BadRequestAlertException problem = new BadRequestAlertException(ex.getMessage(), "search", "invalidsearchquery");
+        return create(problem, request, HeaderUtil.createFailureAlert(applicationName,  true, problem.getEntityName(), problem.getErrorKey(), problem.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePasswordHashingRejectedException(com.freedata.plates.security.PasswordHashingRejectedException ex, NativeWebRequest request) {
+        Problem problem = Problem.builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail(ex.getMessage())
+            .build();
+        ResponseEntity<Problem> entity = create(ex, problem, request);
+        return ResponseEntity.status(entity.getStatusCode())
+            .headers(entity.getHeaders())
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(entity.getBody());
+    }
+
+    /**
+     * The authentication providers wrap the exceptions of the user lookup, which hashes a password when the user does
+     * not exist, so as to take as long as when it does.
+     */
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException ex, NativeWebRequest request) {
+        if (ex.getCause() instanceof com.freedata.plates.security.PasswordHashingRejectedException) {
+            return handlePasswordHashingRejectedException((com.freedata.plates.security.PasswordHashingRejectedException) ex.getCause(), request);
+        }
+        return handleAuthentication(ex, request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(ex, request, HeaderUtil.createFailureAlert(applicationName, true, ex.getEntityName(), ex.getErrorKey(), ex.getMessage()));
@@ -0,0 +1,95 @@
+package com.freedata.plates.web.rest.util;
+
+import com.freedata.plates.repository.Keyset;
+import com.freedata.plates.web.rest.errors.BadRequestAlertException;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Utility class for handling keyset pagination.
+ * <p>
+ * A keyset page is requested with an {@code after} parameter holding the opaque token of the last row of the previous
+ * page (empty for the first page), and links to the next page through a {@code Link} header with {@code rel="next"}.
+ * No total count is computed.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String ID = "id";
+
+    private KeysetPaginationUtil() {
+    }
+
+    /**
+     * Decode the {@code after} parameter.
+     *
+     * @param after the parameter value.
+     * @param entityName the entity name, used in error alerts.
+     * @return the keyset, or {@code null} for the first page.
+     * @throws BadRequestAlertException if the token is malformed.
+     */
+    public static Keyset parseAfter(String after, String entityName) {
+        if (after == null || after.isEmpty()) {
+            return null;
+        }
+        try {
+            return Keyset.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid keyset cursor", entityName, "invalidcursor");
+        }
+    }
+
+    /**
+     * Resolve the order of a keyset page: the order of the cursor if any, otherwise the first order of the pageable,
+     * otherwise {@code id} ascending.
+     *
+     * @param pageable the pagination information.
+     * @param after the keyset of the previous page, or {@code null}.
+     * @param allowedProperties the properties the entity can be sorted on, they must be indexed with the id.
+     * @param entityName the entity name, used in error alerts.
+     * @return the order.
+     * @throws BadRequestAlertException if the property is not allowed.
+     */
+    public static Sort.Order resolveOrder(Pageable pageable, Keyset after, Collection<String> allowedProperties, String entityName) {
+        Sort.Order order;
+        if (after != null) {
+            order = after.getOrder();
+        } else {
+            Iterator<Sort.Order> orders = pageable.getSort().iterator();
+            order = orders.hasNext() ? orders.next() : Sort.Order.asc(ID);
+        }
+        if (!ID.equals(order.getProperty()) && !allowedProperties.contains(order.getProperty())) {
+            throw new BadRequestAlertException("Keyset pagination is not supported on " + order.getProperty(), entityName, "sortnotallowed");
+        }
+        return order;
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page, if there is one.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param slice the current page.
+     * @param order the order of the page.
+     * @param <T> the type of the entities.
+     * @return the http headers.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice, Sort.Order order) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String token = Keyset.of(content.get(content.size() - 1), order).encode();
+            String link = uriBuilder.replaceQueryParam(AFTER_PARAMETER, token).replaceQueryParam("page").toUriString();
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Helpers shared by the REST controllers.
+ */
+package com.freedata.plates.web.rest.util;
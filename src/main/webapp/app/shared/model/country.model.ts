@@ -2,6 +2,7 @@ import { IRegion } from 'app/shared/model/region.model';
 
 export interface ICountry {
   id?: number;
+  uuid?: string;
   countryName?: string;
   region?: IRegion;
 }
@@ -3,6 +3,7 @@ import { IPerson } from 'app/shared/model/person.model';
 
 export interface IDepartment {
   id?: number;
+  uuid?: string;
   departmentName?: string;
   location?: ILocation;
   people?: IPerson[];
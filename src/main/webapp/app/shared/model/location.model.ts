@@ -2,6 +2,7 @@ import { ICountry } from 'app/shared/model/country.model';
 
 export interface ILocation {
   id?: number;
+  uuid?: string;
   streetAddress?: string;
   postalCode?: string;
   city?: string;
@@ -2,6 +2,7 @@ import { IPlate } from 'app/shared/model/plate.model';
 
 export interface INote {
   id?: number;
+  uuid?: string;
   title?: string;
   description?: string;
   plates?: IPlate[];
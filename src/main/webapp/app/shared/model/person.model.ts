@@ -4,6 +4,7 @@ import { IDepartment } from 'app/shared/model/department.model';
 
 export interface IPerson {
   id?: number;
+  uuid?: string;
   firstName?: string;
   lastName?: string;
   email?: string;
@@ -5,6 +5,7 @@ import { IPerson } from 'app/shared/model/person.model';
 
 export interface IPlateHistory {
   id?: number;
+  uuid?: string;
   startDate?: string;
   endDate?: string;
   plate?: IPlate;
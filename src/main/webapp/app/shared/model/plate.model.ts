@@ -3,6 +3,7 @@ import { IPerson } from 'app/shared/model/person.model';
 
 export interface IPlate {
   id?: number;
+  uuid?: string;
   plateTitle?: string;
   notes?: INote[];
   person?: IPerson;
@@ -1,5 +1,6 @@
 export interface IRegion {
   id?: number;
+  uuid?: string;
   regionName?: string;
 }
 
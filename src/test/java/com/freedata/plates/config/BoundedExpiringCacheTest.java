@@ -0,0 +1,54 @@
+package com.freedata.plates.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the {@link BoundedExpiringCache}.
+ */
+public class BoundedExpiringCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    public void keepsEachValueUntilItsExpiration() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10);
+        cache.put("short", "short-lived", NOW + 10);
+        cache.put("long", "long-lived", NOW + 1000);
+
+        assertThat(cache.get("short", NOW)).isEqualTo("short-lived");
+        assertThat(cache.get("short", NOW + 10)).isNull();
+        assertThat(cache.get("long", NOW + 10)).isEqualTo("long-lived");
+        assertThat(cache.get("missing", NOW)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntryWhenFull() {
+        BoundedExpiringCache<Integer, String> cache = new BoundedExpiringCache<>(3);
+        for (int i = 1; i <= 3; i++) {
+            cache.put(i, "value-" + i, NOW + 1000);
+        }
+        cache.get(1, NOW);
+
+        cache.put(4, "value-4", NOW + 1000);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(2, NOW)).isNull();
+        assertThat(cache.get(1, NOW)).isEqualTo("value-1");
+        assertThat(cache.get(3, NOW)).isEqualTo("value-3");
+        assertThat(cache.get(4, NOW)).isEqualTo("value-4");
+    }
+
+    @Test
+    public void keepsCachingNewEntriesWhenFullOfLiveOnes() {
+        BoundedExpiringCache<Integer, String> cache = new BoundedExpiringCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value-" + i, NOW + 1000);
+        }
+
+        assertThat(cache.size()).isEqualTo(100);
+        assertThat(cache.get(999, NOW)).isEqualTo("value-999");
+    }
+}
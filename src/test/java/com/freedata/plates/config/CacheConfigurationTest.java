@@ -0,0 +1,118 @@
+package com.freedata.plates.config;
+
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.Region;
+import io.github.freedata.config.freedataProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link com.freedata.plates.config.CacheConfiguration} class.
+ */
+public class CacheConfigurationTest {
+
+    @TempDir
+    Path diskPath;
+
+    private com.freedata.plates.config.CacheConfiguration cacheConfiguration;
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setup() {
+        freedataProperties freedataProperties = new freedataProperties();
+        freedataProperties.getCache().getEhcache().setMaxEntries(50);
+        freedataProperties.getCache().getEhcache().setTimeToLiveSeconds(3600);
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().setDiskPath(diskPath.toString());
+        ApplicationProperties.Cache.Region region = new ApplicationProperties.Cache.Region();
+        region.setMaxEntries(5L);
+        region.setTimeToLiveSeconds(60);
+        applicationProperties.getCache().getRegions().put(Region.class.getName(), region);
+        ApplicationProperties.Cache.Region plate = new ApplicationProperties.Cache.Region();
+        plate.setMaxEntries(10L);
+        plate.setOffHeapSizeMb(1);
+        plate.setDiskSizeMb(2);
+        applicationProperties.getCache().getRegions().put(Plate.class.getName(), plate);
+
+        cacheConfiguration = new com.freedata.plates.config.CacheConfiguration(freedataProperties, applicationProperties);
+
+        // A manager of its own, with a persistence directory for the disk tier
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        cacheManager = provider.getCacheManager(URI.create(CacheConfigurationTest.class.getName()),
+            new DefaultConfiguration(provider.getDefaultClassLoader(), new CacheManagerPersistenceConfiguration(diskPath.toFile())));
+        cacheConfiguration.cacheManagerCustomizer().customize(cacheManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    private CacheConfiguration<?, ?> ehcacheConfiguration(String cacheName) {
+        Eh107Configuration<?, ?> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheConfiguration.class);
+    }
+
+    @Test
+    public void regionsAreSizedFromTheirOwnProperties() {
+        ResourcePools defaults = ehcacheConfiguration(Plate.class.getName() + ".notes").getResourcePools();
+        assertThat(defaults.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertThat(defaults.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(50);
+
+        CacheConfiguration<?, ?> region = ehcacheConfiguration(Region.class.getName());
+        assertThat(region.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(5);
+        ExpiryPolicy<Object, Object> expiry = (ExpiryPolicy<Object, Object>) region.getExpiryPolicy();
+        assertThat(expiry.getExpiryForCreation(1L, new Object())).isEqualTo(Duration.ofSeconds(60));
+
+        ResourcePools plate = ehcacheConfiguration(Plate.class.getName()).getResourcePools();
+        assertThat(plate.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10);
+        assertThat(plate.getPoolForResource(ResourceType.Core.OFFHEAP).getSize()).isEqualTo(1);
+        assertThat(plate.getPoolForResource(ResourceType.Core.OFFHEAP).getUnit()).isEqualTo(MemoryUnit.MB);
+        assertThat(plate.getPoolForResource(ResourceType.Core.DISK).getSize()).isEqualTo(2);
+        assertThat(plate.getPoolForResource(ResourceType.Core.DISK).isPersistent()).isFalse();
+    }
+
+    @Test
+    public void tieredRegionHoldsMoreThanItsHeapAndReportsMetrics() {
+        Cache<Object, Object> plates = cacheManager.getCache(Plate.class.getName());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JCacheMetrics.monitor(meterRegistry, plates);
+
+        for (long id = 0; id < 1000; id++) {
+            plates.put(id, "plate " + id);
+        }
+        for (long id = 0; id < 1000; id++) {
+            assertThat(plates.get(id)).isEqualTo("plate " + id);
+        }
+        assertThat(plates.get(-1L)).isNull();
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1000);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.evictions").functionCounter().count()).isZero();
+    }
+}
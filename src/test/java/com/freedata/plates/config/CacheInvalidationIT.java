@@ -0,0 +1,182 @@
+package com.freedata.plates.config;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.UserRepository;
+import io.github.freedata.config.freedataProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link CacheInvalidationConfiguration}, with a peer started in the same JVM, on the same
+ * database: a second application context with the cache configuration of the application and nothing else.
+ */
+@SpringBootTest(classes = PlatesApp.class, properties = {
+    CacheInvalidationIT.ENABLED, CacheInvalidationIT.POLL_INTERVAL, CacheInvalidationIT.SCHEDULER_POOL
+})
+public class CacheInvalidationIT {
+
+    static final String ENABLED = "application.cache.invalidation.enabled=true";
+
+    static final String POLL_INTERVAL = "application.cache.invalidation.poll-interval-ms=50";
+
+    static final int SCHEDULER_POOL_SIZE = 2;
+
+    static final String SCHEDULER_POOL = "spring.task.scheduling.pool.size=" + SCHEDULER_POOL_SIZE;
+
+    private static ConfigurableApplicationContext peer;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @BeforeEach
+    public void startPeer() {
+        // Once the context of the application has created the cache_invalidation table
+        if (peer == null) {
+            peer = new SpringApplicationBuilder(PeerConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(ENABLED, POLL_INTERVAL, SCHEDULER_POOL)
+                .run();
+        }
+    }
+
+    @AfterAll
+    public static void stopPeer() {
+        if (peer != null) {
+            peer.close();
+            peer = null;
+        }
+    }
+
+    private Cache<Object, Object> peerCache(String cacheName) {
+        return peer.getBean(CacheManager.class).getCache(cacheName);
+    }
+
+    @Test
+    public void evictionsReachThePeer() throws Exception {
+        assertThat(peer.getBean(CacheManager.class)).isNotSameAs(cacheManager);
+        Cache<Object, Object> usersByLogin = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        Cache<Object, Object> peerUsersByLogin = peerCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        Cache<Object, Object> plates = cacheManager.getCache(Plate.class.getName());
+        Cache<Object, Object> peerPlates = peerCache(Plate.class.getName());
+        peerUsersByLogin.put("evicted-login", "peer");
+        peerUsersByLogin.put("kept-login", "peer");
+        peerPlates.put(42L, "peer");
+        peerPlates.put(43L, "peer");
+
+        // As UserService.clearUserCaches, and as Hibernate updating an entity
+        usersByLogin.put("evicted-login", "local");
+        usersByLogin.remove("evicted-login");
+        plates.put(42L, "before");
+        plates.put(42L, "after");
+
+        assertThat(eventually(() -> !peerUsersByLogin.containsKey("evicted-login") && !peerPlates.containsKey(42L))).isTrue();
+        assertThat(peerUsersByLogin.get("kept-login")).isEqualTo("peer");
+        assertThat(peerPlates.get(43L)).isEqualTo("peer");
+    }
+
+    @Test
+    public void evictionsAppliedForThePeerAreNotSentBack() throws Exception {
+        Cache<Object, Object> plates = cacheManager.getCache(Plate.class.getName());
+        Cache<Object, Object> peerPlates = peerCache(Plate.class.getName());
+        double sentByThePeer = sentByThePeer();
+        peerPlates.put(44L, "peer");
+
+        plates.put(44L, "local");
+        plates.put(44L, "local again");
+        assertThat(eventually(() -> !peerPlates.containsKey(44L))).isTrue();
+        // A few more exchanges, where the peer would send its eviction back
+        Thread.sleep(500);
+
+        assertThat(sentByThePeer()).isEqualTo(sentByThePeer);
+        assertThat(plates.get(44L)).isEqualTo("local again");
+    }
+
+    @Test
+    public void evictionsReachThePeerWhileTheScheduledJobsRun() throws Exception {
+        CountDownLatch jobsDone = new CountDownLatch(1);
+        try {
+            // Long jobs taking all the threads of the task schedulers, such as the search outbox draining a backlog
+            for (TaskScheduler scheduler : new TaskScheduler[] { taskScheduler, peer.getBean(TaskScheduler.class) }) {
+                for (int i = 0; i < SCHEDULER_POOL_SIZE; i++) {
+                    scheduler.schedule(() -> {
+                        try {
+                            jobsDone.await(1, TimeUnit.MINUTES);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }, new Date());
+                }
+            }
+            Cache<Object, Object> plates = cacheManager.getCache(Plate.class.getName());
+            Cache<Object, Object> peerPlates = peerCache(Plate.class.getName());
+            peerPlates.put(45L, "peer");
+
+            plates.put(45L, "local");
+            plates.put(45L, "local again");
+
+            assertThat(eventually(() -> !peerPlates.containsKey(45L))).isTrue();
+        } finally {
+            jobsDone.countDown();
+        }
+    }
+
+    private double sentByThePeer() {
+        return peer.getBean(MeterRegistry.class).get("cache.invalidations").tag("direction", "sent").counter().count();
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+
+    @Configuration
+    @EnableScheduling
+    @EnableConfigurationProperties({ApplicationProperties.class, freedataProperties.class})
+    @ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class, TaskSchedulingAutoConfiguration.class, CacheAutoConfiguration.class,
+        MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class
+    })
+    @Import({CacheConfiguration.class, CacheInvalidationConfiguration.class})
+    static class PeerConfiguration {
+    }
+}
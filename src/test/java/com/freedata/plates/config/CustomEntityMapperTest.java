@@ -0,0 +1,78 @@
+package com.freedata.plates.config;
+
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mapping.MappingException;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the {@link CustomEntityMapper}, which must map documents the way the JSON it used to write and parse did.
+ */
+public class CustomEntityMapperTest {
+
+    private ObjectMapper objectMapper;
+
+    private CustomEntityMapper entityMapper;
+
+    private Plate plate;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        entityMapper = new ElasticsearchConfiguration(objectMapper).getEntityMapper();
+        Department department = new Department().departmentName("Plates");
+        department.setId(3L);
+        Person person = new Person().firstName("Ada").lastName("Lovelace").salary(1000L)
+            .hireDate(Instant.parse("2020-05-01T10:15:30.123456789Z")).department(department);
+        person.setId(2L);
+        plate = new Plate().plateTitle("Analytical engine").person(person);
+        plate.setId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mapsEntitiesAsTheirJson() throws Exception {
+        Map<String, Object> document = entityMapper.mapObject(plate);
+
+        assertThat(document).isInstanceOf(HashMap.class);
+        assertThat(objectMapper.readTree(entityMapper.mapToString(document)))
+            .isEqualTo(objectMapper.readTree(entityMapper.mapToString(plate)));
+        // Without JSON text in between, numbers keep the type of their field
+        assertThat(document).containsEntry("id", 1L);
+        assertThat((Map<String, Object>) document.get("person")).containsEntry("hireDate", "2020-05-01T10:15:30.123456789Z");
+    }
+
+    @Test
+    public void readsEntitiesFromDocuments() throws Exception {
+        Plate read = entityMapper.readObject(entityMapper.mapObject(plate), Plate.class);
+
+        assertThat(read).isEqualTo(plate);
+        assertThat(read.getPlateTitle()).isEqualTo("Analytical engine");
+        assertThat(read.getPerson().getHireDate()).isEqualTo(plate.getPerson().getHireDate());
+        assertThat(read.getPerson().getDepartment().getDepartmentName()).isEqualTo("Plates");
+        assertThat(entityMapper.mapToString(read)).isEqualTo(entityMapper.mapToString(plate));
+    }
+
+    @Test
+    public void failsOnDocumentsWhichAreNotEntities() {
+        Map<String, Object> document = new HashMap<>();
+        document.put("hireDate", "yesterday");
+
+        assertThatThrownBy(() -> entityMapper.readObject(document, Person.class)).isInstanceOf(MappingException.class);
+    }
+}
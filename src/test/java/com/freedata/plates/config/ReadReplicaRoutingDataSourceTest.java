@@ -0,0 +1,162 @@
+package com.freedata.plates.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the {@link ReadReplicaRoutingDataSource}, against two H2 databases telling which one they are.
+ */
+public class ReadReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setup() {
+        primary = database("primary");
+        replica = database("replica");
+        meterRegistry = new SimpleMeterRegistry();
+        DataSource dataSource = ReadReplicaRoutingDataSource.lazy(primary, replica, meterRegistry);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        primary.close();
+        replica.close();
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-routing-test;DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists instance (name varchar(20))");
+        jdbcTemplate.execute("delete from instance");
+        jdbcTemplate.update("insert into instance (name) values (?)", name);
+        return dataSource;
+    }
+
+    private String instance() {
+        return jdbcTemplate.queryForObject("select name from instance", String.class);
+    }
+
+    private String instanceIn(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status -> instance());
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToTheReplica() {
+        double routedToPrimary = routed("primary");
+
+        assertThat(instanceIn(readOnly)).isEqualTo("replica");
+        assertThat(instanceIn(readWrite)).isEqualTo("primary");
+        assertThat(instance()).isEqualTo("primary");
+
+        assertThat(routed("replica")).isEqualTo(1);
+        assertThat(routed("primary")).isEqualTo(routedToPrimary + 2);
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get("datasource.routing.connections").tag("target", target).counter().count();
+    }
+
+    @Test
+    public void readOnlyTransactionsJoiningAReadWriteOneStayOnThePrimary() {
+        String instance = readWrite.execute(status -> {
+            jdbcTemplate.update("update instance set name = name");
+            return instanceIn(readOnly);
+        });
+
+        assertThat(instance).isEqualTo("primary");
+    }
+
+    @Test
+    public void requestReadsItsOwnWrites() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(instanceIn(readOnly)).isEqualTo("replica");
+
+        readWrite.execute(status -> jdbcTemplate.update("update instance set name = name"));
+        assertThat(instanceIn(readOnly)).isEqualTo("primary");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(instanceIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    public void readOnlyTransactionsOnThePrimaryStayOnThePrimary() {
+        assertThat(ReadReplicaRoutingDataSource.onPrimary(() -> instanceIn(readOnly))).isEqualTo("primary");
+        assertThat(ReadReplicaRoutingDataSource.onPrimary(() ->
+            ReadReplicaRoutingDataSource.onPrimary(() -> instanceIn(readOnly)) + " " + instanceIn(readOnly))).isEqualTo("primary primary");
+
+        assertThat(instanceIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    public void replicaIsOnlyConfiguredWhenItsUrlIsSet() {
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(ApplicationPropertiesConfiguration.class, ReplicaDataSourceConfiguration.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                "spring.datasource.url=jdbc:h2:mem:primary-configuration-test;DB_CLOSE_DELAY=-1",
+                "spring.datasource.hikari.maximum-pool-size=3",
+                "spring.datasource.hikari.auto-commit=false");
+
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean("replicaDataSource");
+            assertThat(context).getBean(DataSource.class).isInstanceOf(HikariDataSource.class);
+        });
+
+        contextRunner
+            .withPropertyValues("application.datasource.replica.url=jdbc:h2:mem:replica-configuration-test;DB_CLOSE_DELAY=-1")
+            .run(context -> {
+                assertThat(context).getBean(DataSource.class).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                HikariDataSource replicaDataSource = context.getBean("replicaDataSource", HikariDataSource.class);
+                assertThat(replicaDataSource.getJdbcUrl()).isEqualTo("jdbc:h2:mem:replica-configuration-test;DB_CLOSE_DELAY=-1");
+                assertThat(replicaDataSource.getPoolName()).isEqualTo("HikariReplica");
+                assertThat(replicaDataSource.getMaximumPoolSize()).isEqualTo(3);
+                assertThat(replicaDataSource.isAutoCommit()).isFalse();
+                assertThat(replicaDataSource.isReadOnly()).isTrue();
+            });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    static class ApplicationPropertiesConfiguration {
+    }
+}
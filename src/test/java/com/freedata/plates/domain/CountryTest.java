@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class CountryTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Country.class);
         Country country1 = new Country();
-        country1.setId(1L);
         Country country2 = new Country();
-        country2.setId(country1.getId());
+        country2.setUuid(country1.getUuid());
         assertThat(country1).isEqualTo(country2);
-        country2.setId(2L);
-        assertThat(country1).isNotEqualTo(country2);
-        country1.setId(null);
+        assertThat(country1.hashCode()).isEqualTo(country2.hashCode());
+        country2.setUuid(UUID.randomUUID());
         assertThat(country1).isNotEqualTo(country2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Country country = new Country();
+        int hashCode = country.hashCode();
+        country.setId(1L);
+        assertThat(country.hashCode()).isEqualTo(hashCode);
+        assertThat(new Country().hashCode()).isNotEqualTo(hashCode);
+    }
 }
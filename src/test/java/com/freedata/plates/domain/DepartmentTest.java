@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class DepartmentTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Department.class);
         Department department1 = new Department();
-        department1.setId(1L);
         Department department2 = new Department();
-        department2.setId(department1.getId());
+        department2.setUuid(department1.getUuid());
         assertThat(department1).isEqualTo(department2);
-        department2.setId(2L);
-        assertThat(department1).isNotEqualTo(department2);
-        department1.setId(null);
+        assertThat(department1.hashCode()).isEqualTo(department2.hashCode());
+        department2.setUuid(UUID.randomUUID());
         assertThat(department1).isNotEqualTo(department2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Department department = new Department();
+        int hashCode = department.hashCode();
+        department.setId(1L);
+        assertThat(department.hashCode()).isEqualTo(hashCode);
+        assertThat(new Department().hashCode()).isNotEqualTo(hashCode);
+    }
 }
@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class LocationTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Location.class);
         Location location1 = new Location();
-        location1.setId(1L);
         Location location2 = new Location();
-        location2.setId(location1.getId());
+        location2.setUuid(location1.getUuid());
         assertThat(location1).isEqualTo(location2);
-        location2.setId(2L);
-        assertThat(location1).isNotEqualTo(location2);
-        location1.setId(null);
+        assertThat(location1.hashCode()).isEqualTo(location2.hashCode());
+        location2.setUuid(UUID.randomUUID());
         assertThat(location1).isNotEqualTo(location2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Location location = new Location();
+        int hashCode = location.hashCode();
+        location.setId(1L);
+        assertThat(location.hashCode()).isEqualTo(hashCode);
+        assertThat(new Location().hashCode()).isNotEqualTo(hashCode);
+    }
 }
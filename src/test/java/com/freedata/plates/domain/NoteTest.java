@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class NoteTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Note.class);
         Note note1 = new Note();
-        note1.setId(1L);
         Note note2 = new Note();
-        note2.setId(note1.getId());
+        note2.setUuid(note1.getUuid());
         assertThat(note1).isEqualTo(note2);
-        note2.setId(2L);
-        assertThat(note1).isNotEqualTo(note2);
-        note1.setId(null);
+        assertThat(note1.hashCode()).isEqualTo(note2.hashCode());
+        note2.setUuid(UUID.randomUUID());
         assertThat(note1).isNotEqualTo(note2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Note note = new Note();
+        int hashCode = note.hashCode();
+        note.setId(1L);
+        assertThat(note.hashCode()).isEqualTo(hashCode);
+        assertThat(new Note().hashCode()).isNotEqualTo(hashCode);
+    }
 }
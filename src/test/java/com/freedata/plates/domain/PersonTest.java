@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class PersonTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Person.class);
         Person person1 = new Person();
-        person1.setId(1L);
         Person person2 = new Person();
-        person2.setId(person1.getId());
+        person2.setUuid(person1.getUuid());
         assertThat(person1).isEqualTo(person2);
-        person2.setId(2L);
-        assertThat(person1).isNotEqualTo(person2);
-        person1.setId(null);
+        assertThat(person1.hashCode()).isEqualTo(person2.hashCode());
+        person2.setUuid(UUID.randomUUID());
         assertThat(person1).isNotEqualTo(person2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Person person = new Person();
+        int hashCode = person.hashCode();
+        person.setId(1L);
+        assertThat(person.hashCode()).isEqualTo(hashCode);
+        assertThat(new Person().hashCode()).isNotEqualTo(hashCode);
+    }
 }
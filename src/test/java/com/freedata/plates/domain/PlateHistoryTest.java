@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class PlateHistoryTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(PlateHistory.class);
         PlateHistory plateHistory1 = new PlateHistory();
-        plateHistory1.setId(1L);
         PlateHistory plateHistory2 = new PlateHistory();
-        plateHistory2.setId(plateHistory1.getId());
+        plateHistory2.setUuid(plateHistory1.getUuid());
         assertThat(plateHistory1).isEqualTo(plateHistory2);
-        plateHistory2.setId(2L);
-        assertThat(plateHistory1).isNotEqualTo(plateHistory2);
-        plateHistory1.setId(null);
+        assertThat(plateHistory1.hashCode()).isEqualTo(plateHistory2.hashCode());
+        plateHistory2.setUuid(UUID.randomUUID());
         assertThat(plateHistory1).isNotEqualTo(plateHistory2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        PlateHistory plateHistory = new PlateHistory();
+        int hashCode = plateHistory.hashCode();
+        plateHistory.setId(1L);
+        assertThat(plateHistory.hashCode()).isEqualTo(hashCode);
+        assertThat(new PlateHistory().hashCode()).isNotEqualTo(hashCode);
+    }
 }
@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class PlateTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Plate.class);
         Plate plate1 = new Plate();
-        plate1.setId(1L);
         Plate plate2 = new Plate();
-        plate2.setId(plate1.getId());
+        plate2.setUuid(plate1.getUuid());
         assertThat(plate1).isEqualTo(plate2);
-        plate2.setId(2L);
-        assertThat(plate1).isNotEqualTo(plate2);
-        plate1.setId(null);
+        assertThat(plate1.hashCode()).isEqualTo(plate2.hashCode());
+        plate2.setUuid(UUID.randomUUID());
         assertThat(plate1).isNotEqualTo(plate2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Plate plate = new Plate();
+        int hashCode = plate.hashCode();
+        plate.setId(1L);
+        assertThat(plate.hashCode()).isEqualTo(hashCode);
+        assertThat(new Plate().hashCode()).isNotEqualTo(hashCode);
+    }
 }
@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.freedata.plates.web.rest.TestUtil;
 
+import java.util.UUID;
+
 public class RegionTest {
 
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Region.class);
         Region region1 = new Region();
-        region1.setId(1L);
         Region region2 = new Region();
-        region2.setId(region1.getId());
+        region2.setUuid(region1.getUuid());
         assertThat(region1).isEqualTo(region2);
-        region2.setId(2L);
-        assertThat(region1).isNotEqualTo(region2);
-        region1.setId(null);
+        assertThat(region1.hashCode()).isEqualTo(region2.hashCode());
+        region2.setUuid(UUID.randomUUID());
         assertThat(region1).isNotEqualTo(region2);
     }
+
+    @Test
+    public void hashCodeIsStableAcrossPersist() {
+        Region region = new Region();
+        int hashCode = region.hashCode();
+        region.setId(1L);
+        assertThat(region.hashCode()).isEqualTo(hashCode);
+        assertThat(new Region().hashCode()).isNotEqualTo(hashCode);
+    }
 }
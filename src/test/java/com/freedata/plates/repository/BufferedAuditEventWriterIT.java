@@ -0,0 +1,194 @@
+package com.freedata.plates.repository;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link BufferedAuditEventWriter}.
+ */
+@SpringBootTest(classes = PlatesApp.class)
+public class BufferedAuditEventWriterIT {
+
+    /**
+     * Events audited by the application meanwhile are written by its own writer, and not looked at.
+     */
+    private static final String EVENT_TYPE = "buffered-writer-test";
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private BufferedAuditEventWriter writer;
+
+    @BeforeEach
+    public void setup() {
+        persistenceAuditEventRepository.deleteAll();
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        if (writer != null) {
+            writer.destroy();
+        }
+        persistenceAuditEventRepository.deleteAll();
+    }
+
+    private BufferedAuditEventWriter createWriter() {
+        writer = new BufferedAuditEventWriter(persistenceAuditEventRepository, transactionManager, applicationProperties,
+            meterRegistry);
+        return writer;
+    }
+
+    private static PersistentAuditEvent event(String principal) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType(EVENT_TYPE);
+        event.setAuditEventDate(Instant.now());
+        event.setData(Collections.singletonMap("test-key", "test-value"));
+        return event;
+    }
+
+    private List<String> writtenPrincipals() {
+        return persistenceAuditEventRepository.findAll().stream()
+            .filter(event -> EVENT_TYPE.equals(event.getAuditEventType()))
+            .map(PersistentAuditEvent::getPrincipal)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void writesInTheBackground() throws InterruptedException {
+        applicationProperties.getAuditEvents().setFlushIntervalMs(50);
+        createWriter().afterPropertiesSet();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writtenPrincipals().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2");
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("audit.events.queued").gauge().value()).isZero();
+    }
+
+    @Test
+    public void writesInBatchesOfTheConfiguredSize() {
+        applicationProperties.getAuditEvents().setBatchSize(2);
+        createWriter();
+
+        for (int i = 1; i <= 5; i++) {
+            writer.write(event("user-" + i));
+        }
+        assertThat(meterRegistry.get("audit.events.queued").gauge().value()).isEqualTo(5);
+        writer.flush();
+
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2", "user-3", "user-4", "user-5");
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    public void writesTheBatchBeingFilledOnShutdown() throws InterruptedException {
+        // Long enough for the batch to still be filled when the writer is stopped
+        applicationProperties.getAuditEvents().setFlushIntervalMs(60000);
+        applicationProperties.getAuditEvents().setBatchSize(10);
+        createWriter().afterPropertiesSet();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("audit.events.queued").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        long stopping = System.currentTimeMillis();
+        writer.destroy();
+        writer = null;
+
+        assertThat(System.currentTimeMillis() - stopping).isLessThan(5000);
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2");
+    }
+
+    @Test
+    public void writesTheQueuedEventsOnShutdown() throws InterruptedException {
+        // Without its thread, the events stay queued until the writer is stopped
+        createWriter();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+        writer.destroy();
+        writer = null;
+
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2");
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void writesOnTheCallerThreadWhenFull() {
+        applicationProperties.getAuditEvents().setQueueCapacity(1);
+        applicationProperties.getAuditEvents().setOverflowPolicy(ApplicationProperties.AuditEvents.OverflowPolicy.CALLER_RUNS);
+        createWriter();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+
+        assertThat(writtenPrincipals()).containsExactly("user-2");
+        writer.flush();
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2");
+    }
+
+    @Test
+    public void dropsTheNewestEventWhenFull() {
+        applicationProperties.getAuditEvents().setQueueCapacity(2);
+        applicationProperties.getAuditEvents().setOverflowPolicy(ApplicationProperties.AuditEvents.OverflowPolicy.DROP_NEWEST);
+        createWriter();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+        writer.write(event("user-3"));
+        writer.flush();
+
+        assertThat(writtenPrincipals()).containsExactly("user-1", "user-2");
+        assertThat(meterRegistry.get("audit.events.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void dropsTheOldestEventWhenFull() {
+        applicationProperties.getAuditEvents().setQueueCapacity(2);
+        applicationProperties.getAuditEvents().setOverflowPolicy(ApplicationProperties.AuditEvents.OverflowPolicy.DROP_OLDEST);
+        createWriter();
+
+        writer.write(event("user-1"));
+        writer.write(event("user-2"));
+        writer.write(event("user-3"));
+        writer.flush();
+
+        assertThat(writtenPrincipals()).containsExactly("user-2", "user-3");
+        assertThat(meterRegistry.get("audit.events.dropped").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.repository.search.PlateSuggestRepository.Suggestion;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Search;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link PlateSuggestRepository}, against a mocked Elasticsearch.
+ */
+public class PlateSuggestRepositoryTest {
+
+    private static final String HITS = "{\"hits\":{\"total\":2,\"hits\":[" +
+        "{\"_id\":\"1\",\"_source\":{\"id\":1,\"plateTitle\":\"AB-123-CD\",\"personName\":\"Ada Lovelace\"}}," +
+        "{\"_id\":\"2\",\"_source\":{\"id\":2,\"plateTitle\":\"AB-456-EF\"}}]}}";
+
+    private JestClient jestClient;
+
+    private PlateSuggestRepository plateSuggestRepository;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        jestClient = mock(JestClient.class);
+        plateSuggestRepository = new PlateSuggestRepository(jestClient);
+        when(jestClient.execute(any())).thenReturn(result(200, HITS));
+    }
+
+    private static JestResult result(int responseCode, String json) {
+        JestResult result = new JestResult(new Gson());
+        result.setResponseCode(responseCode);
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(responseCode == 200);
+        return result;
+    }
+
+    @Test
+    public void searchesTheSuggestFieldsForAFewSuggestions() throws IOException {
+        List<Suggestion> suggestions = plateSuggestRepository.suggest("  AB   Love ");
+
+        ArgumentCaptor<Search> search = ArgumentCaptor.forClass(Search.class);
+        verify(jestClient).execute(search.capture());
+        JsonObject source = new JsonParser().parse(search.getValue().getData(new Gson())).getAsJsonObject();
+        assertThat(source.get("size").getAsInt()).isEqualTo(PlateSuggestRepository.SIZE);
+        assertThat(source.get("timeout").getAsString()).isEqualTo(PlateSuggestRepository.TIMEOUT_MS + "ms");
+        JsonObject query = source.getAsJsonObject("query").getAsJsonObject("multi_match");
+        assertThat(query.get("query").getAsString()).isEqualTo("ab love");
+        assertThat(query.get("fields").toString()).contains("plateTitle.suggest", "person.lastName.suggest");
+        assertThat(source.getAsJsonObject("_source").get("includes").toString()).contains("plateTitle", "personName");
+
+        assertThat(suggestions).extracting(Suggestion::getId).containsExactly(1L, 2L);
+        assertThat(suggestions.get(0).getPlateTitle()).isEqualTo("AB-123-CD");
+        assertThat(suggestions.get(0).getPersonName()).isEqualTo("Ada Lovelace");
+        assertThat(suggestions.get(1).getPersonName()).isNull();
+    }
+
+    @Test
+    public void cachesTheSuggestionsOfShortPrefixes() throws IOException {
+        List<Suggestion> suggestions = plateSuggestRepository.suggest("ab");
+
+        assertThat(plateSuggestRepository.suggest("AB ")).isSameAs(suggestions);
+        verify(jestClient, times(1)).execute(any());
+    }
+
+    @Test
+    public void keepsCachingNewPrefixesWhenTheCacheIsFull() throws IOException {
+        for (int i = 0; i <= PlateSuggestRepository.MAX_CACHED_PREFIXES; i++) {
+            plateSuggestRepository.suggest(Integer.toString(i, Character.MAX_RADIX));
+        }
+        String last = Integer.toString(PlateSuggestRepository.MAX_CACHED_PREFIXES, Character.MAX_RADIX);
+
+        plateSuggestRepository.suggest(last);
+
+        verify(jestClient, times(PlateSuggestRepository.MAX_CACHED_PREFIXES + 1)).execute(any());
+    }
+
+    @Test
+    public void searchesLongPrefixesEachTime() throws IOException {
+        plateSuggestRepository.suggest("ab-12");
+        plateSuggestRepository.suggest("ab-12");
+
+        verify(jestClient, times(2)).execute(any());
+    }
+
+    @Test
+    public void suggestsNothingForBlankPrefixes() {
+        assertThat(plateSuggestRepository.suggest(" ")).isEmpty();
+        assertThat(plateSuggestRepository.suggest(null)).isEmpty();
+        verifyNoInteractions(jestClient);
+    }
+
+    @Test
+    public void suggestsNothingWhenElasticsearchFails() throws IOException {
+        when(jestClient.execute(any())).thenReturn(result(503, "{\"error\":\"unavailable\"}"))
+            .thenThrow(new IOException("connection refused"))
+            .thenReturn(result(200, HITS));
+
+        assertThat(plateSuggestRepository.suggest("ab")).isEmpty();
+        assertThat(plateSuggestRepository.suggest("ab")).isEmpty();
+        // Failures are not cached
+        assertThat(plateSuggestRepository.suggest("ab")).hasSize(2);
+    }
+}
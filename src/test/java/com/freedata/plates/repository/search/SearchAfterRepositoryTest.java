@@ -0,0 +1,161 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.config.ElasticsearchConfiguration;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.repository.Keyset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Search;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link SearchAfterRepository}, against a mocked Elasticsearch.
+ */
+public class SearchAfterRepositoryTest {
+
+    private JestClient jestClient;
+
+    private SearchAfterRepository searchAfterRepository;
+
+    @BeforeEach
+    public void setup() {
+        jestClient = mock(JestClient.class);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        searchAfterRepository = new SearchAfterRepository(jestClient, new ElasticsearchConfiguration(objectMapper).getEntityMapper());
+    }
+
+    private static JestResult result(int responseCode, String json) {
+        JestResult result = new JestResult(new Gson());
+        result.setResponseCode(responseCode);
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(responseCode == 200);
+        return result;
+    }
+
+    private static JestResult hits(String sourceFormat, long... ids) {
+        String hits = LongStream.of(ids)
+            .mapToObj(id -> "{\"_id\":\"" + id + "\",\"_source\":" + String.format(sourceFormat, id) + "}")
+            .collect(Collectors.joining(","));
+        return result(200, "{\"hits\":{\"hits\":[" + hits + "]}}");
+    }
+
+    private List<JsonObject> requests(int count) throws IOException {
+        ArgumentCaptor<Search> search = ArgumentCaptor.forClass(Search.class);
+        verify(jestClient, times(count)).execute(search.capture());
+        return search.getAllValues().stream()
+            .map(each -> new JsonParser().parse(each.getData(new Gson())).getAsJsonObject())
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchesAPageSortedOnAKeywordWithTheIdTieBreaker() throws IOException {
+        when(jestClient.execute(any())).thenReturn(hits("{\"id\":%d,\"lastName\":\"Lovelace\"}", 1, 2, 3));
+
+        Slice<Person> slice = searchAfterRepository.search(Person.class, matchAllQuery(), Sort.Order.asc("lastName"), null, 2);
+
+        assertThat(slice.getContent()).extracting(Person::getId).containsExactly(1L, 2L);
+        assertThat(slice.getContent()).extracting(Person::getLastName).containsOnly("Lovelace");
+        assertThat(slice.hasNext()).isTrue();
+        JsonObject request = requests(1).get(0);
+        assertThat(request.get("size").getAsInt()).isEqualTo(3);
+        assertThat(request.get("sort").toString())
+            .isEqualTo("[{\"lastName.keyword\":{\"order\":\"asc\",\"missing\":\"_first\"}},{\"id\":{\"order\":\"asc\"}}]");
+        assertThat(request.has("search_after")).isFalse();
+    }
+
+    @Test
+    public void seeksAfterTheKeyset() throws IOException {
+        when(jestClient.execute(any())).thenReturn(hits("{\"id\":%d}", 5));
+        Keyset after = new Keyset("hireDate", Sort.Direction.DESC, "2020-05-01T10:15:30Z", 7);
+
+        Slice<Person> slice = searchAfterRepository.search(Person.class, matchAllQuery(), after.getOrder(), after, 2);
+
+        assertThat(slice.getContent()).extracting(Person::getId).containsExactly(5L);
+        assertThat(slice.hasNext()).isFalse();
+        JsonObject request = requests(1).get(0);
+        assertThat(request.get("sort").toString())
+            .isEqualTo("[{\"hireDate\":{\"order\":\"desc\",\"missing\":\"_last\"}},{\"id\":{\"order\":\"desc\"}}]");
+        // Dates are sorted on their milliseconds
+        assertThat(request.get("search_after").toString())
+            .isEqualTo("[" + Instant.parse("2020-05-01T10:15:30Z").toEpochMilli() + ",7]");
+    }
+
+    @Test
+    public void seeksAmongTheDocumentsWithoutValue() throws IOException {
+        when(jestClient.execute(any())).thenReturn(hits("{\"id\":%d}"));
+        Keyset after = new Keyset("lastName", Sort.Direction.ASC, null, 7);
+
+        searchAfterRepository.search(Person.class, matchAllQuery(), after.getOrder(), after, 2);
+
+        JsonObject request = requests(1).get(0);
+        assertThat(request.has("search_after")).isFalse();
+        String query = request.get("query").toString();
+        assertThat(query).contains("\"must_not\":[{\"exists\":{\"field\":\"lastName.keyword\"");
+        assertThat(query).contains("\"range\":{\"id\":{\"from\":7,", "\"include_lower\":false");
+        assertThat(query).contains("\"match_all\"");
+    }
+
+    @Test
+    public void readsAllTheHitsInBatches() throws IOException {
+        long[] ids = LongStream.rangeClosed(1, SearchAfterRepository.BATCH_SIZE).toArray();
+        when(jestClient.execute(any()))
+            .thenReturn(hits("{\"id\":%d,\"countryName\":\"Country\"}", ids))
+            .thenReturn(hits("{\"id\":%d,\"countryName\":\"Country\"}", SearchAfterRepository.BATCH_SIZE + 1));
+
+        List<Country> countries = searchAfterRepository.searchAll(Country.class, matchAllQuery());
+
+        assertThat(countries).hasSize(SearchAfterRepository.BATCH_SIZE + 1);
+        assertThat(countries.get(SearchAfterRepository.BATCH_SIZE).getId()).isEqualTo(SearchAfterRepository.BATCH_SIZE + 1L);
+        List<JsonObject> requests = requests(2);
+        assertThat(requests.get(0).get("size").getAsInt()).isEqualTo(SearchAfterRepository.BATCH_SIZE);
+        assertThat(requests.get(0).get("sort").toString()).isEqualTo("[{\"id\":{\"order\":\"asc\"}}]");
+        assertThat(requests.get(0).has("search_after")).isFalse();
+        assertThat(requests.get(1).get("search_after").toString()).isEqualTo("[" + SearchAfterRepository.BATCH_SIZE + "]");
+        assertThat(requests).noneMatch(request -> request.has("from"));
+    }
+
+    @Test
+    public void readsTheReadOnlyPropertiesOfTheHits() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        when(jestClient.execute(any())).thenReturn(hits("{\"id\":%d,\"uuid\":\"" + uuid + "\"}", 1));
+
+        List<Person> people = searchAfterRepository.searchAll(Person.class, matchAllQuery());
+
+        assertThat(people).extracting(Person::getUuid).containsExactly(uuid);
+    }
+
+    @Test
+    public void failsWhenElasticsearchFails() throws IOException {
+        when(jestClient.execute(any())).thenReturn(result(503, "{\"error\":\"unavailable\"}"));
+
+        assertThatThrownBy(() -> searchAfterRepository.searchAll(Country.class, matchAllQuery()))
+            .isInstanceOf(IllegalStateException.class).hasMessageContaining("503");
+    }
+}
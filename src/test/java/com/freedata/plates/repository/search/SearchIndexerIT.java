@@ -0,0 +1,415 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Location;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.domain.Region;
+import com.freedata.plates.repository.CountryRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchReindexer.Reindex;
+import com.freedata.plates.repository.search.SearchReindexer.State;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.config.ElasticsearchVersion;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration tests for {@link SearchIndexer}, against a mocked Elasticsearch.
+ */
+@SpringBootTest(classes = PlatesApp.class)
+public class SearchIndexerIT {
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
+    @Autowired
+    private SearchReindexes searchReindexes;
+
+    @Autowired
+    private CustomEntityMapper entityMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PlateDocuments plateDocuments;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JestClient jestClient;
+
+    private MeterRegistry meterRegistry;
+
+    private SearchIndexer searchIndexer;
+
+    private Country country;
+
+    private Plate plate;
+
+    @BeforeEach
+    public void setup() {
+        // Entries left by the tests which commit their writes. H2 keeps the rows locked by a transaction which rolled
+        // back, so the assertions only look at the entries of this test.
+        jdbcTemplate.update("delete from search_outbox");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jestClient = mock(JestClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        searchIndexer = new SearchIndexer(searchIndexOutbox, searchReindexes, jestClient, entityMapper, entityManager, transactionManager,
+            mock(TaskScheduler.class), new ApplicationProperties(), meterRegistry, plateDocuments);
+        country = countryRepository.save(new Country().countryName("INDEXED"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        if (plate != null) {
+            transactionTemplate.execute(status -> {
+                Plate attached = entityManager.find(Plate.class, plate.getId());
+                Person person = attached.getPerson();
+                Department department = person.getDepartment();
+                Location location = department.getLocation();
+                Region region = location.getCountry().getRegion();
+                entityManager.createQuery("delete from PlateHistory plateHistory where plateHistory.plate = :plate")
+                    .setParameter("plate", attached)
+                    .executeUpdate();
+                new ArrayList<>(attached.getNotes()).forEach(note -> {
+                    attached.removeNote(note);
+                    entityManager.remove(note);
+                });
+                entityManager.remove(attached);
+                entityManager.remove(person);
+                entityManager.remove(department);
+                entityManager.remove(location);
+                entityManager.flush();
+                entityManager.remove(entityManager.find(Country.class, country.getId()));
+                entityManager.remove(region);
+                return null;
+            });
+        } else {
+            countryRepository.delete(country);
+        }
+        jdbcTemplate.update("delete from search_outbox");
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from search_reindex where alias = 'country'");
+            return jdbcTemplate.update("delete from search_reindex_deleted where alias = 'country'");
+        });
+    }
+
+    /**
+     * Create a plate held by a person of a department located in the country of the test.
+     */
+    private void createPlate() {
+        plate = transactionTemplate.execute(status -> {
+            Region region = new Region().regionName("Northern region");
+            entityManager.persist(region);
+            Country attached = entityManager.find(Country.class, country.getId()).region(region);
+            Location location = new Location().city("Lille").stateProvince("Nord").country(attached);
+            entityManager.persist(location);
+            Department department = new Department().departmentName("Registrations").location(location);
+            entityManager.persist(department);
+            Person person = new Person().firstName("Ada").lastName("Lovelace").department(department);
+            entityManager.persist(person);
+            Note note = new Note().title("Checked at the border");
+            entityManager.persist(note);
+            Plate created = new Plate().plateTitle("AB-123-CD").person(person).addNote(note);
+            entityManager.persist(created);
+            entityManager.persist(new PlateHistory().plate(created).person(person).department(department)
+                .startDate(Instant.now().minus(1, ChronoUnit.DAYS)));
+            return created;
+        });
+    }
+
+    private static BulkResult bulkResult(int responseCode, String json) {
+        BulkResult result = new BulkResult(new Gson());
+        result.setResponseCode(responseCode);
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(responseCode == 200);
+        return result;
+    }
+
+    private List<Entry> entries() {
+        return searchIndexOutbox.findAll(Country.class).stream()
+            .filter(entry -> entry.getEntityId() == country.getId() || entry.getEntityId() == Long.MAX_VALUE)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Start rebuilding the index of the countries as {@code country_rebuilt}, as any instance would.
+     */
+    private void startRebuild() {
+        transactionTemplate.execute(status ->
+            searchReindexes.start(new Reindex("country", "country_rebuilt", State.RUNNING, Instant.now(), null, 0, 0, null)));
+    }
+
+    private String sentBulk() throws Exception {
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient).execute(bulk.capture());
+        return bulk.getValue().getData(new Gson());
+    }
+
+    @Test
+    public void sendsTheLastOperationOfEachEntityAndRemovesTheEntries() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            searchIndexOutbox.index(Country.class, country.getId());
+            searchIndexOutbox.index(Country.class, Long.MAX_VALUE);
+            searchIndexOutbox.delete(Country.class, Long.MAX_VALUE);
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        String bulk = sentBulk();
+        assertThat(bulk.split("\"_id\":\"" + country.getId() + "\"")).hasSize(2);
+        assertThat(bulk).contains("{\"index\":{\"_id\":\"" + country.getId() + "\"");
+        assertThat(bulk).contains("\"countryName\":\"INDEXED\"");
+        assertThat(bulk.split("\"_id\":\"" + Long.MAX_VALUE + "\"")).hasSize(2);
+        assertThat(bulk).contains("{\"delete\":{\"_id\":\"" + Long.MAX_VALUE + "\"");
+        assertThat(entries()).isEmpty();
+        assertThat(meterRegistry.get("search.outbox.sent").tag("operation", "index").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void deletesTheDocumentsOfEntitiesDeletedSince() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, Long.MAX_VALUE);
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        assertThat(sentBulk()).contains("{\"delete\":{\"_id\":\"" + Long.MAX_VALUE + "\"");
+    }
+
+    @Test
+    public void keepsTheEntriesWhenElasticsearchIsUnavailable() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(503, "{\"error\":\"unavailable\"}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        assertThat(entries()).hasSize(1);
+        assertThat(meterRegistry.get("search.outbox.pending").gauge().value()).isGreaterThanOrEqualTo(1);
+        // Counted once sent
+        assertThat(meterRegistry.find("search.outbox.sent").counter()).isNull();
+    }
+
+    @Test
+    public void dropsTheEntriesOfRejectedDocuments() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":true,\"items\":[{\"index\":" +
+            "{\"_index\":\"country\",\"_type\":\"_doc\",\"_id\":\"" + country.getId() + "\",\"status\":400," +
+            "\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"}}}]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        assertThat(entries()).isEmpty();
+        assertThat(meterRegistry.get("search.outbox.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void indexesNowAndWaitsForTheRefresh() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            return null;
+        });
+
+        searchIndexer.indexNow(Country.class, Collections.singleton(country.getId()));
+
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient).execute(bulk.capture());
+        assertThat(bulk.getValue().getURI(ElasticsearchVersion.UNKNOWN)).contains("refresh=wait_for");
+        assertThat(bulk.getValue().getData(new Gson())).contains("{\"index\":{\"_id\":\"" + country.getId() + "\"");
+        assertThat(entries()).isEmpty();
+    }
+
+    @Test
+    public void alsoWritesToTheIndexBeingRebuilt() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            searchIndexOutbox.delete(Country.class, Long.MAX_VALUE);
+            return null;
+        });
+        startRebuild();
+
+        searchIndexer.poll();
+
+        String bulk = sentBulk();
+        assertThat(bulk).contains("{\"index\":{\"_id\":\"" + country.getId() + "\",\"_index\":\"country\"");
+        assertThat(bulk).contains("{\"index\":{\"_id\":\"" + country.getId() + "\",\"_index\":\"country_rebuilt\"");
+        assertThat(bulk).contains("{\"delete\":{\"_id\":\"" + Long.MAX_VALUE + "\",\"_index\":\"country_rebuilt\"");
+        assertThat(searchReindexes.deletedIds("country")).containsExactly(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void doesNotWriteToAnAbandonedRebuild() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            return null;
+        });
+        startRebuild();
+        transactionTemplate.execute(status -> jdbcTemplate.update("update search_reindex set updated_millis = ? where alias = 'country'",
+            System.currentTimeMillis() - SearchReindexes.ABANDONED_AFTER_MILLIS - 1));
+
+        searchIndexer.poll();
+
+        assertThat(sentBulk()).doesNotContain("country_rebuilt");
+    }
+
+    @Test
+    public void indexesPlatesWithTheEntitiesAroundThem() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        createPlate();
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Plate.class, plate.getId());
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        String bulk = sentBulk();
+        assertThat(bulk).contains("{\"index\":{\"_id\":\"" + plate.getId() + "\",\"_index\":\"plate\"");
+        assertThat(bulk).contains("\"plateTitle\":\"AB-123-CD\"", "\"personName\":\"Ada Lovelace\"",
+            "\"departmentName\":\"Registrations\"", "\"city\":\"Lille\"", "\"stateProvince\":\"Nord\"",
+            "\"countryName\":\"INDEXED\"", "\"regionName\":\"Northern region\"",
+            "\"noteTitles\":[\"Checked at the border\"]", "\"holderName\":\"Ada Lovelace\"",
+            "\"holderDepartmentName\":\"Registrations\"", "\"holderEndDate\":null");
+        assertThat(bulk).doesNotContain("\"plate\":{", "\"plates\"");
+    }
+
+    @Test
+    public void searchesStillReadPlatesFromTheirDocuments() throws Exception {
+        createPlate();
+
+        PlateDocument document = transactionTemplate.execute(status ->
+            plateDocuments.load(Collections.singleton(plate.getId())).get(plate.getId()));
+        Plate read = entityMapper.mapToObject(entityMapper.mapToString(document), Plate.class);
+
+        assertThat(read).isEqualTo(plate);
+        assertThat(read.getPlateTitle()).isEqualTo("AB-123-CD");
+        assertThat(read.getPerson().getLastName()).isEqualTo("Lovelace");
+        assertThat(read.getNotes()).extracting(Note::getTitle).containsExactly("Checked at the border");
+    }
+
+    @Test
+    public void indexesAgainThePlatesIncludingChangedEntities() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        createPlate();
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.index(Country.class, country.getId());
+            return null;
+        });
+
+        searchIndexer.poll();
+        searchIndexer.poll();
+
+        // The country, then its plate on the next poll
+        ArgumentCaptor<Bulk> bulks = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient, times(2)).execute(bulks.capture());
+        assertThat(bulks.getAllValues().get(0).getData(new Gson())).contains("\"_index\":\"country\"");
+        assertThat(bulks.getAllValues().get(1).getData(new Gson()))
+            .contains("{\"index\":{\"_id\":\"" + plate.getId() + "\",\"_index\":\"plate\"");
+        assertThat(searchIndexOutbox.findAll(Plate.class)).noneMatch(entry -> entry.getEntityId() == plate.getId());
+    }
+
+    @Test
+    public void indexesThePlatesAgainWhenTheirEntriesAreDue() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult(200, "{\"errors\":false,\"items\":[]}"));
+        createPlate();
+        transactionTemplate.execute(status -> {
+            searchIndexOutbox.indexAt(Plate.class, plate.getId(), Instant.now().plus(1, ChronoUnit.DAYS));
+            return null;
+        });
+
+        searchIndexer.poll();
+
+        // Neither sent, nor counted in the lag, nor taken by the indexing of the plate, before it is due
+        verify(jestClient, never()).execute(any(Bulk.class));
+        assertThat(meterRegistry.get("search.outbox.pending").gauge().value()).isEqualTo(0.0);
+        searchIndexer.indexNow(Plate.class, Collections.singletonList(plate.getId()));
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == plate.getId()).hasSize(1);
+
+        transactionTemplate.execute(status -> jdbcTemplate.update("update search_outbox set created_millis = ?",
+            System.currentTimeMillis() - 1000));
+        searchIndexer.poll();
+
+        ArgumentCaptor<Bulk> bulks = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient, times(2)).execute(bulks.capture());
+        assertThat(bulks.getValue().getData(new Gson())).contains("{\"index\":{\"_id\":\"" + plate.getId() + "\",\"_index\":\"plate\"");
+        assertThat(searchIndexOutbox.findAll(Plate.class)).noneMatch(entry -> entry.getEntityId() == plate.getId());
+    }
+
+    @Test
+    public void findsThePlatesIncludingEntities() {
+        createPlate();
+
+        transactionTemplate.execute(status -> {
+            Plate attached = entityManager.find(Plate.class, plate.getId());
+            Person person = attached.getPerson();
+            Department department = person.getDepartment();
+            for (Object entity : Arrays.asList(person, department, department.getLocation(), department.getLocation().getCountry(),
+                    department.getLocation().getCountry().getRegion(), attached.getNotes().iterator().next())) {
+                Long id = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+                assertThat(plateDocuments.include(entity.getClass())).isTrue();
+                assertThat(plateDocuments.platesOf(entity.getClass(), Collections.singleton(id))).containsExactly(plate.getId());
+            }
+            return null;
+        });
+        assertThat(plateDocuments.include(Plate.class)).isFalse();
+    }
+}
@@ -0,0 +1,346 @@
+package com.freedata.plates.repository.search;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.config.ApplicationProperties;
+import com.freedata.plates.config.ElasticsearchConfiguration.CustomEntityMapper;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.repository.CountryRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+import com.freedata.plates.repository.search.SearchReindexer.Reindex;
+import com.freedata.plates.repository.search.SearchReindexer.State;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.config.ElasticsearchVersion;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.mapping.GetMapping;
+import io.searchbox.indices.settings.GetSettings;
+import io.searchbox.indices.settings.UpdateSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration tests for {@link SearchReindexer}, against a mocked Elasticsearch, and a read replica which has no
+ * tables: only the reads of the primary succeed.
+ */
+@SpringBootTest(classes = PlatesApp.class, properties = "application.datasource.replica.url=jdbc:h2:mem:EmptyReplica;DB_CLOSE_DELAY=-1")
+public class SearchReindexerIT {
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
+    @Autowired
+    private SearchReindexes searchReindexes;
+
+    @Autowired
+    private CustomEntityMapper entityMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PlateDocuments plateDocuments;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ApplicationProperties applicationProperties;
+
+    private JestClient jestClient;
+
+    private MeterRegistry meterRegistry;
+
+    private SearchReindexer searchReindexer;
+
+    private List<Action<?>> actions;
+
+    private List<Country> countries;
+
+    private int bulkStatus;
+
+    private CountDownLatch bulkStarted;
+
+    private CountDownLatch bulkReleased;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearchIndexing().setReindexWorkers(2);
+        applicationProperties.getSearchIndexing().setReindexBatchSize(2);
+        jestClient = mock(JestClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        searchReindexer = newSearchReindexer();
+        actions = Collections.synchronizedList(new ArrayList<>());
+        bulkStatus = 200;
+        bulkStarted = new CountDownLatch(1);
+        bulkReleased = new CountDownLatch(0);
+        when(jestClient.execute(any())).thenAnswer(invocation -> {
+            Action<?> action = invocation.getArgument(0);
+            actions.add(action);
+            if (action instanceof Bulk) {
+                bulkStarted.countDown();
+                bulkReleased.await(10, TimeUnit.SECONDS);
+                BulkResult result = new BulkResult(new Gson());
+                return result(result, bulkStatus, "{\"errors\":false,\"items\":[]}");
+            }
+            JestResult result = new JestResult(new Gson());
+            if (action instanceof GetSettings) {
+                return result(result, 200, "{\"country\":{\"settings\":{\"index\":{\"number_of_shards\":\"3\"," +
+                    "\"number_of_replicas\":\"2\",\"uuid\":\"live\"}}}}");
+            }
+            if (action instanceof GetMapping) {
+                return result(result, 200, "{\"country\":{\"mappings\":{\"country\":{\"properties\":" +
+                    "{\"countryName\":{\"type\":\"text\"}}}}}}");
+            }
+            if (action instanceof GetAliases) {
+                return result(result, 200, "{\"country\":{\"aliases\":{}}}");
+            }
+            return result(result, 200, "{\"acknowledged\":true}");
+        });
+        countries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            countries.add(countryRepository.save(new Country().countryName("REINDEXED" + i)));
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bulkReleased.countDown();
+        searchReindexer.destroy();
+        countryRepository.deleteAll(countries);
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from search_reindex where alias in ('country', 'plate')");
+            return jdbcTemplate.update("delete from search_reindex_deleted where alias in ('country', 'plate')");
+        });
+        jdbcTemplate.update("delete from search_outbox");
+    }
+
+    /**
+     * A reindexer of its own instance, sharing the database and Elasticsearch with the others.
+     */
+    private SearchReindexer newSearchReindexer() {
+        SearchIndexer searchIndexer = new SearchIndexer(searchIndexOutbox, searchReindexes, jestClient, entityMapper, entityManager,
+            transactionManager, mock(TaskScheduler.class), applicationProperties, meterRegistry, plateDocuments);
+        return new SearchReindexer(searchIndexer, searchIndexOutbox, searchReindexes, jestClient, entityManager, transactionManager,
+            applicationProperties, meterRegistry);
+    }
+
+    private Reindex recorded(String alias) {
+        return searchReindexer.getReindexes().stream().filter(reindex -> reindex.getAlias().equals(alias)).findFirst().orElse(null);
+    }
+
+    private static JestResult result(JestResult result, int responseCode, String json) {
+        result.setResponseCode(responseCode);
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(responseCode == 200);
+        return result;
+    }
+
+    private static Reindex await(Reindex reindex) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (reindex.getState() == State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return reindex;
+    }
+
+    private List<String> data(Class<?> actionClass) {
+        synchronized (actions) {
+            return actions.stream()
+                .filter(actionClass::isInstance)
+                .map(action -> action.getData(new Gson()))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private int indexOf(Class<?> actionClass) {
+        synchronized (actions) {
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                if (actionClass.isInstance(actions.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    @Test
+    public void rebuildsTheIndexAndSwapsTheAlias() throws Exception {
+        Reindex reindex = await(searchReindexer.reindex("country"));
+
+        assertThat(reindex.getState()).isEqualTo(State.COMPLETED);
+        assertThat(reindex.getIndexName()).startsWith("country_");
+        assertThat(reindex.getDocuments()).isEqualTo(reindex.getTotal()).isGreaterThanOrEqualTo(countries.size());
+        assertThat(reindex.getProgress()).isEqualTo(1);
+
+        String created = data(CreateIndex.class).get(0);
+        assertThat(created).contains("\"number_of_shards\":\"3\"", "\"number_of_replicas\":0", "\"refresh_interval\":\"-1\"");
+        assertThat(created).contains("\"countryName\":{\"type\":\"text\"}");
+
+        String bulks = String.join("", data(Bulk.class));
+        for (Country country : countries) {
+            assertThat(bulks).contains("{\"create\":{\"_id\":\"" + country.getId() + "\",\"_index\":\"" + reindex.getIndexName() + "\"");
+        }
+        assertThat(data(Bulk.class).size()).isGreaterThanOrEqualTo(3);
+
+        assertThat(data(UpdateSettings.class).get(0)).contains("\"number_of_replicas\":2", "\"refresh_interval\":null");
+        String swap = data(ModifyAliases.class).get(0);
+        assertThat(swap).contains("{\"add\":{\"index\":\"" + reindex.getIndexName() + "\",\"alias\":\"country\"}}");
+        assertThat(swap).contains("{\"remove_index\":{\"index\":\"country\"}}");
+        assertThat(indexOf(ModifyAliases.class)).isGreaterThan(indexOf(Bulk.class));
+
+        assertThat(meterRegistry.get("search.reindex.documents").tag("index", "country").counter().count())
+            .isGreaterThanOrEqualTo(countries.size());
+        assertThat(meterRegistry.get("search.reindex.progress").tag("index", "country").gauge().value()).isEqualTo(1);
+        Reindex recorded = recorded("country");
+        assertThat(recorded.getIndexName()).isEqualTo(reindex.getIndexName());
+        assertThat(recorded.getState()).isEqualTo(State.COMPLETED);
+        assertThat(recorded.getDocuments()).isEqualTo(recorded.getTotal()).isEqualTo(reindex.getTotal());
+        assertThat(recorded.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    public void readsTheEntitiesFromThePrimary() throws Exception {
+        // Outside of a request, read-only transactions go to the replica
+        RequestContextHolder.resetRequestAttributes();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertThatThrownBy(() -> readOnly.execute(status -> countryRepository.count())).as("read from the replica")
+            .isInstanceOf(RuntimeException.class);
+
+        Reindex reindex = await(searchReindexer.reindex("country"));
+
+        assertThat(reindex.getState()).isEqualTo(State.COMPLETED);
+        assertThat(reindex.getDocuments()).isEqualTo(reindex.getTotal()).isGreaterThanOrEqualTo(countries.size());
+    }
+
+    @Test
+    public void rebuildsAnIndexOnOneInstanceAtATime() throws Exception {
+        bulkReleased = new CountDownLatch(1);
+        SearchReindexer otherInstance = newSearchReindexer();
+        try {
+            Reindex reindex = searchReindexer.reindex("country");
+
+            assertThatThrownBy(() -> otherInstance.reindex("country")).isInstanceOf(IllegalStateException.class);
+            assertThat(recorded("country").getState()).isEqualTo(State.RUNNING);
+            // Deleted meanwhile by the outbox of any instance
+            transactionTemplate.execute(status -> {
+                searchReindexes.recordDeleted("country", Collections.singleton(Long.MAX_VALUE));
+                return null;
+            });
+
+            bulkReleased.countDown();
+            assertThat(await(reindex).getState()).isEqualTo(State.COMPLETED);
+            assertThat(searchIndexOutbox.findAll(Country.class)).filteredOn(entry -> entry.getEntityId() == Long.MAX_VALUE)
+                .extracting(Entry::getOperation).containsExactly(Operation.DELETE);
+            assertThat(await(otherInstance.reindex("country")).getState()).isEqualTo(State.COMPLETED);
+        } finally {
+            otherInstance.destroy();
+        }
+    }
+
+    @Test
+    public void rebuildsAnIndexWhoseRebuildWasAbandoned() throws Exception {
+        bulkReleased = new CountDownLatch(1);
+        Reindex abandoned = searchReindexer.reindex("country");
+        // Once it has recorded its total, its instance stops recording progress
+        assertThat(bulkStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        transactionTemplate.execute(status -> jdbcTemplate.update("update search_reindex set updated_millis = ? where alias = 'country'",
+            System.currentTimeMillis() - SearchReindexes.ABANDONED_AFTER_MILLIS - 1));
+        assertThat(recorded("country").getState()).isEqualTo(State.FAILED);
+        assertThat(recorded("country").getError()).startsWith("Abandoned");
+
+        SearchReindexer otherInstance = newSearchReindexer();
+        try {
+            Reindex reindex = otherInstance.reindex("country");
+            // The abandoned rebuild no longer records anything once the other one started
+            bulkReleased.countDown();
+            assertThat(await(reindex).getState()).isEqualTo(State.COMPLETED);
+            assertThat(recorded("country").getIndexName()).isEqualTo(reindex.getIndexName());
+            assertThat(recorded("country").getState()).isEqualTo(State.COMPLETED);
+            assertThat(await(abandoned).getState()).isEqualTo(State.FAILED);
+            assertThat(abandoned.getError()).contains("taken over");
+            assertThat(recorded("country").getIndexName()).isEqualTo(reindex.getIndexName());
+        } finally {
+            otherInstance.destroy();
+        }
+    }
+
+    @Test
+    public void createsTheIndexWithTheDeclaredAnalysisAndMapping() throws Exception {
+        Reindex reindex = await(searchReindexer.reindex("plate"));
+
+        assertThat(reindex.getState()).isEqualTo(State.COMPLETED);
+        JsonObject created = new JsonParser().parse(data(CreateIndex.class).get(0)).getAsJsonObject();
+        assertThat(created.getAsJsonObject("settings").getAsJsonObject("index").getAsJsonObject("analysis")
+            .getAsJsonObject("analyzer").has("autocomplete")).isTrue();
+        JsonObject properties = created.getAsJsonObject("mappings").getAsJsonObject("plate").getAsJsonObject("properties");
+        assertThat(properties.getAsJsonObject("plateTitle").getAsJsonObject("fields").getAsJsonObject("suggest")
+            .get("analyzer").getAsString()).isEqualTo("autocomplete");
+        assertThat(properties.getAsJsonObject("person").getAsJsonObject("properties").getAsJsonObject("lastName")
+            .getAsJsonObject("fields").has("suggest")).isTrue();
+    }
+
+    @Test
+    public void deletesTheNewIndexWhenTheRebuildFails() throws Exception {
+        bulkStatus = 503;
+
+        Reindex reindex = await(searchReindexer.reindex("country"));
+
+        assertThat(reindex.getState()).isEqualTo(State.FAILED);
+        assertThat(reindex.getError()).contains("503");
+        assertThat(recorded("country").getState()).isEqualTo(State.FAILED);
+        assertThat(indexOf(ModifyAliases.class)).isEqualTo(-1);
+        assertThat(actions).filteredOn(action -> action instanceof DeleteIndex)
+            .extracting(action -> action.getURI(ElasticsearchVersion.UNKNOWN)).containsExactly(reindex.getIndexName());
+    }
+
+    @Test
+    public void rejectsUnknownIndices() {
+        assertThat(searchReindexer.getAliases()).contains("country", "person", "plate");
+        assertThatThrownBy(() -> searchReindexer.reindex("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.freedata.plates.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link BoundedPasswordEncoder} class.
+ */
+public class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    public void testHashesWithTheConfiguredStrength() {
+        passwordEncoder = new BoundedPasswordEncoder(4, 1, 1, meterRegistry);
+
+        String encodedPassword = passwordEncoder.encode("password");
+
+        assertThat(encodedPassword).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", encodedPassword)).isTrue();
+        assertThat(passwordEncoder.matches("wrong password", encodedPassword)).isFalse();
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRejectsHashesBeyondTheQueue() throws Exception {
+        BlockingPasswordEncoder delegate = new BlockingPasswordEncoder();
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("running"));
+        assertThat(delegate.started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("queued"));
+        while (queued() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> passwordEncoder.matches("rejected", "encoded"))
+            .isInstanceOf(PasswordHashingRejectedException.class);
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        delegate.release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isEqualTo("encoded running");
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("encoded queued");
+        assertThat(queued()).isZero();
+    }
+
+    private double queued() {
+        return meterRegistry.get("executor.queued").tag("name", BoundedPasswordEncoder.EXECUTOR_NAME).gauge().value();
+    }
+
+    private static class BlockingPasswordEncoder implements PasswordEncoder {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "encoded " + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }
+}
@@ -30,11 +30,13 @@ public class TokenProviderTest {
 
     @BeforeEach
     public void setup() {
-        tokenProvider = new TokenProvider( new freedataProperties());
-        key = Keys.hmacShaKeyFor(Decoders.BASE64
-            .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8"));
+        freedataProperties freedataProperties = new freedataProperties();
+        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+        freedataProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+        tokenProvider = new TokenProvider(freedataProperties);
+        tokenProvider.init();
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
-        ReflectionTestUtils.setField(tokenProvider, "key", key);
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
     }
 
@@ -83,6 +85,43 @@ public class TokenProviderTest {
         assertThat(isTokenValid).isEqualTo(false);
     }
 
+    @Test
+    public void testResolveAuthenticationVerifiesEachTokenOnce() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.resolveAuthentication(token).get();
+        Authentication cachedAuthentication = tokenProvider.resolveAuthentication(token).get();
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(authentication.getCredentials()).isEqualTo(token);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+        assertThat(cachedAuthentication).isNotSameAs(authentication);
+        assertThat(cachedAuthentication.getPrincipal()).isSameAs(authentication.getPrincipal());
+        assertThat(cachedAuthentication.getCredentials()).isEqualTo(token);
+    }
+
+    @Test
+    public void testResolveAuthenticationForgetsExpiredTokens() throws Exception {
+        String token = Jwts.builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + 1000))
+            .compact();
+        assertThat(tokenProvider.resolveAuthentication(token)).isPresent();
+
+        Thread.sleep(1100);
+
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    public void testResolveAuthenticationRejectsInvalidTokens() {
+        assertThat(tokenProvider.resolveAuthentication(createTokenWithDifferentSignature())).isEmpty();
+        assertThat(tokenProvider.resolveAuthentication("")).isEmpty();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -11,6 +11,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -41,6 +42,7 @@ public class AuditEventServiceIT {
         auditEventOld.setAuditEventDate(Instant.now().minus(freedataProperties.getAuditEvents().getRetentionPeriod() + 1, ChronoUnit.DAYS));
         auditEventOld.setPrincipal("test-user-old");
         auditEventOld.setAuditEventType("test-type");
+        auditEventOld.setData(Collections.singletonMap("test-key", "test-value"));
 
         auditEventWithinRetention = new PersistentAuditEvent();
         auditEventWithinRetention.setAuditEventDate(Instant.now().minus(freedataProperties.getAuditEvents().getRetentionPeriod() - 1, ChronoUnit.DAYS));
@@ -0,0 +1,145 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link BatchJobRunner}.
+ */
+@SpringBootTest(classes = PlatesApp.class)
+public class BatchJobRunnerIT {
+
+    private static final String JOB_NAME = "batchJobRunnerIT";
+
+    @Autowired
+    private BatchJobRunner batchJobRunner;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int chunkSize;
+
+    private int maxItemsPerSecond;
+
+    private List<Long> items;
+
+    private List<List<Long>> chunks;
+
+    @BeforeEach
+    public void setup() {
+        chunkSize = applicationProperties.getBatchJobs().getChunkSize();
+        maxItemsPerSecond = applicationProperties.getBatchJobs().getMaxItemsPerSecond();
+        applicationProperties.getBatchJobs().setChunkSize(3);
+        items = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        chunks = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        applicationProperties.getBatchJobs().setChunkSize(chunkSize);
+        applicationProperties.getBatchJobs().setMaxItemsPerSecond(maxItemsPerSecond);
+        jdbcTemplate.update("delete from batch_job_checkpoint where job_name = ?", JOB_NAME);
+    }
+
+    private List<Long> read(long afterId, int size) {
+        return items.stream().filter(id -> id > afterId).limit(size).collect(Collectors.toList());
+    }
+
+    private Long checkpoint() {
+        List<Long> lastIds = jdbcTemplate.queryForList("select last_id from batch_job_checkpoint where job_name = ?", Long.class, JOB_NAME);
+        return lastIds.isEmpty() ? null : lastIds.get(0);
+    }
+
+    @Test
+    public void runsInChunks() {
+        long processed = batchJobRunner.run(JOB_NAME, this::read, chunks::add);
+
+        assertThat(processed).isEqualTo(10);
+        assertThat(chunks).hasSize(4);
+        assertThat(chunks.get(0)).containsExactly(1L, 2L, 3L);
+        assertThat(chunks.get(3)).containsExactly(10L);
+        assertThat(checkpoint()).isNull();
+        assertThat(meterRegistry.get("batch.job.progress").tag("job", JOB_NAME).gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    public void resumesAfterTheLastCommittedChunk() {
+        assertThatThrownBy(() -> batchJobRunner.run(JOB_NAME, this::read, ids -> {
+            if (ids.contains(8L)) {
+                throw new IllegalStateException("Chunk failed");
+            }
+            chunks.add(ids);
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(chunks).hasSize(2);
+        assertThat(checkpoint()).isEqualTo(6L);
+
+        long processed = batchJobRunner.run(JOB_NAME, this::read, chunks::add);
+
+        assertThat(processed).isEqualTo(4);
+        assertThat(chunks).hasSize(4);
+        assertThat(chunks.get(2)).containsExactly(7L, 8L, 9L);
+        assertThat(checkpoint()).isNull();
+        assertThat(meterRegistry.get("batch.job.progress").tag("job", JOB_NAME).gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    public void keepsUnderTheRateLimit() {
+        applicationProperties.getBatchJobs().setMaxItemsPerSecond(20);
+        long start = System.currentTimeMillis();
+
+        batchJobRunner.run(JOB_NAME, this::read, chunks::add);
+
+        // 10 items at 20 per second
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(450);
+        assertThat(chunks).hasSize(4);
+    }
+
+    @Test
+    public void processesEachChunkOnceWhenRunByTwoInstances() throws Exception {
+        List<List<Long>> processedChunks = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(2);
+        BatchJobRunner.ChunkProcessor processor = ids -> {
+            processedChunks.add(ids);
+            started.countDown();
+            try {
+                // Let the other instance wait for the checkpoint
+                started.await(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> batchJobRunner.run(JOB_NAME, this::read, processor));
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> batchJobRunner.run(JOB_NAME, this::read, processor));
+
+        assertThat(first.get(10, TimeUnit.SECONDS) + second.get(10, TimeUnit.SECONDS)).isEqualTo(10);
+        assertThat(processedChunks.stream().flatMap(List::stream)).containsExactlyInAnyOrderElementsOf(items);
+        assertThat(checkpoint()).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link PlateHistoryService}.
+ */
+@SpringBootTest(classes = PlatesApp.class)
+public class PlateHistoryServiceIT {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private PlateRepository plateRepository;
+
+    @Autowired
+    private PlateHistoryRepository plateHistoryRepository;
+
+    @Autowired
+    private PlateHistoryService plateHistoryService;
+
+    private Plate plate;
+
+    @BeforeEach
+    public void init() {
+        // The saves run in their own transactions, so the plate has to be committed
+        plate = plateRepository.save(new Plate().plateTitle("CONCURRENT"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        plateHistoryRepository.deleteAll(plateHistories());
+        plateRepository.delete(plate);
+    }
+
+    private List<PlateHistory> plateHistories() {
+        return plateHistoryRepository.findAll().stream()
+            .filter(plateHistory -> plate.equals(plateHistory.getPlate()))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void concurrentCreatesOfOverlappingIntervalsKeepOnlyOne() throws Exception {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> creates = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            // Each interval overlaps all the others
+            PlateHistory plateHistory = new PlateHistory().plate(plate).startDate(start.plus(i, ChronoUnit.MINUTES));
+            creates.add(executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                return plateHistoryService.save(plateHistory);
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        int saved = 0;
+        for (Future<?> create : creates) {
+            try {
+                create.get();
+                saved++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(PlateHistoryOverlapException.class);
+            }
+        }
+
+        assertThat(saved).isEqualTo(1);
+        assertThat(plateHistories()).hasSize(1);
+    }
+}
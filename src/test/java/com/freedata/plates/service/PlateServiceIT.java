@@ -0,0 +1,116 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.PersonRepository;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.PlateRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link PlateService}.
+ */
+@SpringBootTest(classes = PlatesApp.class)
+public class PlateServiceIT {
+
+    private static final int TRANSFERS = 300;
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PlateRepository plateRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PlateHistoryRepository plateHistoryRepository;
+
+    @Autowired
+    private PlateService plateService;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
+    private Plate plate;
+
+    private List<Person> people;
+
+    @BeforeEach
+    public void init() {
+        // The transfers run in their own transactions, so the plate and the people have to be committed
+        plate = plateRepository.save(new Plate().plateTitle("TRANSFERRED"));
+        people = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            people.add(new Person().lastName("HOLDER" + i));
+        }
+        people = personRepository.saveAll(people);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        plateHistoryRepository.deleteAll(plateHistories());
+        plateRepository.delete(plate);
+        personRepository.deleteAll(people);
+    }
+
+    private List<PlateHistory> plateHistories() {
+        return plateHistoryRepository.findAll().stream()
+            .filter(plateHistory -> plate.equals(plateHistory.getPlate()))
+            .sorted(Comparator.comparing(PlateHistory::getStartDate)
+                .thenComparing(PlateHistory::getEndDate, Comparator.nullsLast(Comparator.naturalOrder())))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void concurrentTransfersKeepTheHistoryConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            Person person = people.get(i % people.size());
+            transfers.add(executor.submit(() -> plateService.transfer(plate.getId(), person)));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> transfer : transfers) {
+            // Rethrows the failure of the transfer, if any
+            transfer.get();
+        }
+
+        List<PlateHistory> plateHistories = plateHistories();
+        assertThat(plateHistories).isNotEmpty();
+        for (int i = 1; i < plateHistories.size(); i++) {
+            PlateHistory previous = plateHistories.get(i - 1);
+            assertThat(previous.getEndDate()).isEqualTo(plateHistories.get(i).getStartDate());
+            assertThat(previous.getPerson()).isNotEqualTo(plateHistories.get(i).getPerson());
+        }
+        PlateHistory current = plateHistories.get(plateHistories.size() - 1);
+        assertThat(current.getEndDate()).isNull();
+        assertThat(plateRepository.findById(plate.getId()).get().getPerson()).isEqualTo(current.getPerson());
+
+        // Each transfer which changed the holder recorded the plate once in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == plate.getId())
+            .extracting(Entry::getOperation).hasSize(plateHistories.size()).containsOnly(Operation.INDEX);
+    }
+}
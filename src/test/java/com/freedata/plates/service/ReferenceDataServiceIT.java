@@ -0,0 +1,65 @@
+package com.freedata.plates.service;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.repository.CountryRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link ReferenceDataService}, with a read replica which has no tables: only the reads of the
+ * primary succeed.
+ */
+@SpringBootTest(classes = PlatesApp.class, properties = "application.datasource.replica.url=jdbc:h2:mem:EmptyReplica;DB_CLOSE_DELAY=-1")
+public class ReferenceDataServiceIT {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Country country;
+
+    @BeforeEach
+    public void initTest() {
+        country = countryService.save(new Country().countryName("ON PRIMARY"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        countryService.delete(country.getId());
+    }
+
+    @Test
+    public void buildsTheSnapshotOnThePrimary() {
+        // A request which did not write, and so is not pinned to the primary
+        RequestContextHolder.resetRequestAttributes();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertThatThrownBy(() -> readOnly.execute(status -> countryRepository.count())).as("read from the replica")
+            .isInstanceOf(RuntimeException.class);
+
+        String snapshot = new String(referenceDataService.getSnapshot().getJson(), StandardCharsets.UTF_8);
+
+        assertThat(snapshot).contains("ON PRIMARY");
+    }
+}
@@ -0,0 +1,46 @@
+package com.freedata.plates.service;
+
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the {@link SearchQueries}.
+ */
+public class SearchQueriesTest {
+
+    @Test
+    public void rejectsTermsStartingWithAWildcard() {
+        for (String query : new String[] { "*123", "AB ?23", "plateTitle:*123", "(AB OR *23)", "-*23", "+?23", "AB ?", "plateTitle:?" }) {
+            assertThatThrownBy(() -> SearchQueries.queryString(query)).as(query)
+                .isInstanceOf(InvalidSearchQueryException.class).hasMessageContaining("wildcard");
+        }
+    }
+
+    @Test
+    public void rejectsRegularExpressions() {
+        for (String query : new String[] { "/AB[0-9]+/", "plateTitle:/AB.*/" }) {
+            assertThatThrownBy(() -> SearchQueries.queryString(query)).as(query)
+                .isInstanceOf(InvalidSearchQueryException.class).hasMessageContaining("Regular expressions");
+        }
+    }
+
+    @Test
+    public void acceptsOtherQueries() {
+        for (String query : new String[] { "AB*", "AB-*23", "\\*23", "\"*23\"", "plateTitle:* AND id:1", "startDate:[* TO 2020]",
+                "AB-123/CD", "id:1" }) {
+            assertThat(SearchQueries.queryString(query)).as(query).isInstanceOfSatisfying(QueryStringQueryBuilder.class, builder -> {
+                assertThat(builder.queryString()).isEqualTo(query);
+                assertThat(builder.allowLeadingWildcard()).isFalse();
+            });
+        }
+    }
+
+    @Test
+    public void searchesEverythingWithoutParsing() {
+        assertThat(SearchQueries.queryString(" * ")).isInstanceOf(MatchAllQueryBuilder.class);
+    }
+}
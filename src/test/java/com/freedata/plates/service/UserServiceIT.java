@@ -2,9 +2,13 @@ package com.freedata.plates.service;
 
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.config.Constants;
+import com.freedata.plates.domain.Authority;
 import com.freedata.plates.domain.User;
-import com.freedata.plates.repository.search.UserSearchRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.repository.UserRepository;
+import com.freedata.plates.security.AuthoritiesConstants;
 import com.freedata.plates.service.dto.UserDTO;
 
 import io.github.freedata.security.RandomUtil;
@@ -19,18 +23,18 @@ import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -58,13 +62,8 @@ public class UserServiceIT {
     @Autowired
     private UserService userService;
 
-    /**
-     * This repository is mocked in the com.freedata.plates.repository.search test package.
-     *
-     * @see com.freedata.plates.repository.search.UserSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private UserSearchRepository mockUserSearchRepository;
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private AuditingHandler auditingHandler;
@@ -171,18 +170,22 @@ public class UserServiceIT {
         when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
         user.setActivated(false);
         user.setActivationKey(RandomStringUtils.random(20));
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        user.setAuthorities(new HashSet<>(Collections.singleton(authority)));
         User dbUser = userRepository.saveAndFlush(user);
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isNotEmpty();
+        List<Long> ids = userRepository.findNotActivatedIdsCreatedBefore(threeDaysAgo, 0, Pageable.unpaged());
+        assertThat(ids).contains(dbUser.getId());
         userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
+        ids = userRepository.findNotActivatedIdsCreatedBefore(threeDaysAgo, 0, Pageable.unpaged());
+        assertThat(ids).isEmpty();
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, times(1)).delete(user);
+        // Validate the User in the search outbox
+        assertThat(searchIndexOutbox.findAll(User.class)).filteredOn(entry -> entry.getEntityId() == dbUser.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.DELETE);
     }
 
     @Test
@@ -195,14 +198,14 @@ public class UserServiceIT {
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
+        List<Long> ids = userRepository.findNotActivatedIdsCreatedBefore(threeDaysAgo, 0, Pageable.unpaged());
+        assertThat(ids).doesNotContain(dbUser.getId());
         userService.removeNotActivatedUsers();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, never()).delete(user);
+        // Validate the User in the search outbox
+        assertThat(searchIndexOutbox.findAll(User.class)).filteredOn(entry -> entry.getEntityId() == dbUser.getId()).isEmpty();
     }
 
     @Test
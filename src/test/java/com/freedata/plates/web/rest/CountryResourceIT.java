@@ -3,7 +3,10 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.domain.Country;
 import com.freedata.plates.repository.CountryRepository;
-import com.freedata.plates.repository.search.CountrySearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.CountryService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +26,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,10 +53,13 @@ public class CountryResourceIT {
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
-     * @see com.freedata.plates.repository.search.CountrySearchRepositoryMockConfiguration
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
      */
     @Autowired
-    private CountrySearchRepository mockCountrySearchRepository;
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private EntityManager em;
@@ -107,14 +113,16 @@ public class CountryResourceIT {
         Country testCountry = countryList.get(countryList.size() - 1);
         assertThat(testCountry.getCountryName()).isEqualTo(DEFAULT_COUNTRY_NAME);
 
-        // Validate the Country in Elasticsearch
-        verify(mockCountrySearchRepository, times(1)).save(testCountry);
+        // Validate the Country in the search outbox
+        assertThat(searchIndexOutbox.findAll(Country.class)).filteredOn(entry -> entry.getEntityId() == testCountry.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createCountryWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = countryRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Country.class).size();
 
         // Create the Country with an existing ID
         country.setId(1L);
@@ -129,8 +137,8 @@ public class CountryResourceIT {
         List<Country> countryList = countryRepository.findAll();
         assertThat(countryList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Country in Elasticsearch
-        verify(mockCountrySearchRepository, times(0)).save(country);
+        // Validate the Country in the search outbox
+        assertThat(searchIndexOutbox.findAll(Country.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -195,14 +203,16 @@ public class CountryResourceIT {
         Country testCountry = countryList.get(countryList.size() - 1);
         assertThat(testCountry.getCountryName()).isEqualTo(UPDATED_COUNTRY_NAME);
 
-        // Validate the Country in Elasticsearch
-        verify(mockCountrySearchRepository, times(2)).save(testCountry);
+        // Validate the Country in the search outbox
+        assertThat(searchIndexOutbox.findAll(Country.class)).filteredOn(entry -> entry.getEntityId() == testCountry.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingCountry() throws Exception {
         int databaseSizeBeforeUpdate = countryRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Country.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restCountryMockMvc.perform(put("/api/countries")
@@ -214,8 +224,8 @@ public class CountryResourceIT {
         List<Country> countryList = countryRepository.findAll();
         assertThat(countryList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Country in Elasticsearch
-        verify(mockCountrySearchRepository, times(0)).save(country);
+        // Validate the Country in the search outbox
+        assertThat(searchIndexOutbox.findAll(Country.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -235,8 +245,9 @@ public class CountryResourceIT {
         List<Country> countryList = countryRepository.findAll();
         assertThat(countryList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Country in Elasticsearch
-        verify(mockCountrySearchRepository, times(1)).deleteById(country.getId());
+        // Validate the Country in the search outbox
+        assertThat(searchIndexOutbox.findAll(Country.class)).filteredOn(entry -> entry.getEntityId() == country.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -245,7 +256,7 @@ public class CountryResourceIT {
         // Configure the mock search repository
         // Initialize the database
         countryService.save(country);
-        when(mockCountrySearchRepository.search(queryStringQuery("id:" + country.getId())))
+        when(mockSearchAfterRepository.searchAll(Country.class, queryString("id:" + country.getId())))
             .thenReturn(Collections.singletonList(country));
 
         // Search the country
@@ -3,7 +3,10 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.domain.Department;
 import com.freedata.plates.repository.DepartmentRepository;
-import com.freedata.plates.repository.search.DepartmentSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.DepartmentService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +26,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,10 +53,13 @@ public class DepartmentResourceIT {
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
-     * @see com.freedata.plates.repository.search.DepartmentSearchRepositoryMockConfiguration
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
      */
     @Autowired
-    private DepartmentSearchRepository mockDepartmentSearchRepository;
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private EntityManager em;
@@ -107,14 +113,16 @@ public class DepartmentResourceIT {
         Department testDepartment = departmentList.get(departmentList.size() - 1);
         assertThat(testDepartment.getDepartmentName()).isEqualTo(DEFAULT_DEPARTMENT_NAME);
 
-        // Validate the Department in Elasticsearch
-        verify(mockDepartmentSearchRepository, times(1)).save(testDepartment);
+        // Validate the Department in the search outbox
+        assertThat(searchIndexOutbox.findAll(Department.class)).filteredOn(entry -> entry.getEntityId() == testDepartment.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createDepartmentWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = departmentRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Department.class).size();
 
         // Create the Department with an existing ID
         department.setId(1L);
@@ -129,8 +137,8 @@ public class DepartmentResourceIT {
         List<Department> departmentList = departmentRepository.findAll();
         assertThat(departmentList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Department in Elasticsearch
-        verify(mockDepartmentSearchRepository, times(0)).save(department);
+        // Validate the Department in the search outbox
+        assertThat(searchIndexOutbox.findAll(Department.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -214,14 +222,16 @@ public class DepartmentResourceIT {
         Department testDepartment = departmentList.get(departmentList.size() - 1);
         assertThat(testDepartment.getDepartmentName()).isEqualTo(UPDATED_DEPARTMENT_NAME);
 
-        // Validate the Department in Elasticsearch
-        verify(mockDepartmentSearchRepository, times(2)).save(testDepartment);
+        // Validate the Department in the search outbox
+        assertThat(searchIndexOutbox.findAll(Department.class)).filteredOn(entry -> entry.getEntityId() == testDepartment.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingDepartment() throws Exception {
         int databaseSizeBeforeUpdate = departmentRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Department.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restDepartmentMockMvc.perform(put("/api/departments")
@@ -233,8 +243,8 @@ public class DepartmentResourceIT {
         List<Department> departmentList = departmentRepository.findAll();
         assertThat(departmentList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Department in Elasticsearch
-        verify(mockDepartmentSearchRepository, times(0)).save(department);
+        // Validate the Department in the search outbox
+        assertThat(searchIndexOutbox.findAll(Department.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -254,8 +264,9 @@ public class DepartmentResourceIT {
         List<Department> departmentList = departmentRepository.findAll();
         assertThat(departmentList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Department in Elasticsearch
-        verify(mockDepartmentSearchRepository, times(1)).deleteById(department.getId());
+        // Validate the Department in the search outbox
+        assertThat(searchIndexOutbox.findAll(Department.class)).filteredOn(entry -> entry.getEntityId() == department.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -264,7 +275,7 @@ public class DepartmentResourceIT {
         // Configure the mock search repository
         // Initialize the database
         departmentService.save(department);
-        when(mockDepartmentSearchRepository.search(queryStringQuery("id:" + department.getId())))
+        when(mockSearchAfterRepository.searchAll(Department.class, queryString("id:" + department.getId())))
             .thenReturn(Collections.singletonList(department));
 
         // Search the department
@@ -0,0 +1,138 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.PlateRepository;
+import com.freedata.plates.security.AuthoritiesConstants;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ExportResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@SpringBootTest(classes = PlatesApp.class)
+public class ExportResourceIT {
+
+    private static final String EXPORTED_PLATE_TITLE = "EXPORTED";
+
+    @Autowired
+    private PlateRepository plateRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restExportMockMvc;
+
+    private List<Plate> plates;
+
+    @BeforeEach
+    public void initTest() {
+        // The export reads in its own transactions, so its rows have to be committed
+        plates = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            plates.add(new Plate().plateTitle(EXPORTED_PLATE_TITLE + "," + i));
+        }
+        plates = plateRepository.saveAll(plates);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        plateRepository.deleteAll(plates);
+    }
+
+    @Test
+    public void exportPlatesAsCsv() throws Exception {
+        MvcResult mvcResult = restExportMockMvc.perform(get("/api/_export/plates?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String csv = restExportMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(PlateImportResource.TEXT_CSV_VALUE))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = Arrays.asList(csv.split("\n"));
+        assertThat(lines.get(0)).isEqualTo("id,uuid,plateTitle,personId");
+        List<String> exported = lines.stream().filter(line -> line.contains(EXPORTED_PLATE_TITLE)).collect(Collectors.toList());
+        assertThat(exported).containsExactlyElementsOf(plates.stream()
+            .map(plate -> plate.getId() + "," + plate.getUuid() + ",\"" + plate.getPlateTitle() + "\",")
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void exportPlatesAsGzippedNdjsonInParallel() throws Exception {
+        MvcResult mvcResult = restExportMockMvc.perform(get("/api/_export/plates?format=ndjson&partitions=3")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        byte[] compressed = restExportMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(PlateImportResource.APPLICATION_NDJSON_VALUE))
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        String ndjson = StreamUtils.copyToString(new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8);
+        List<Long> exportedIds = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            JsonNode plate = objectMapper.readTree(line);
+            if (plate.get("plateTitle").asText().startsWith(EXPORTED_PLATE_TITLE)) {
+                exportedIds.add(plate.get("id").asLong());
+            }
+        }
+        assertThat(exportedIds).containsExactlyInAnyOrderElementsOf(plates.stream().map(Plate::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void exportPlateHistoriesWithoutRows() throws Exception {
+        MvcResult mvcResult = restExportMockMvc.perform(get("/api/_export/plate-histories?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restExportMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().string("id,uuid,startDate,endDate,plateId,departmentId,personId\n"));
+    }
+
+    @Test
+    public void exportRejectsUnknownFormat() throws Exception {
+        restExportMockMvc.perform(get("/api/_export/people?format=xml"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.formatnotsupported"));
+    }
+
+    @Test
+    @WithMockUser
+    public void exportRequiresAdmin() throws Exception {
+        restExportMockMvc.perform(get("/api/_export/people"))
+            .andExpect(status().isForbidden());
+    }
+}
@@ -3,7 +3,10 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.domain.Location;
 import com.freedata.plates.repository.LocationRepository;
-import com.freedata.plates.repository.search.LocationSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.LocationService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +26,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -59,10 +62,13 @@ public class LocationResourceIT {
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
-     * @see com.freedata.plates.repository.search.LocationSearchRepositoryMockConfiguration
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
      */
     @Autowired
-    private LocationSearchRepository mockLocationSearchRepository;
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private EntityManager em;
@@ -125,14 +131,16 @@ public class LocationResourceIT {
         assertThat(testLocation.getCity()).isEqualTo(DEFAULT_CITY);
         assertThat(testLocation.getStateProvince()).isEqualTo(DEFAULT_STATE_PROVINCE);
 
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(1)).save(testLocation);
+        // Validate the Location in the search outbox
+        assertThat(searchIndexOutbox.findAll(Location.class)).filteredOn(entry -> entry.getEntityId() == testLocation.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createLocationWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = locationRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Location.class).size();
 
         // Create the Location with an existing ID
         location.setId(1L);
@@ -147,8 +155,8 @@ public class LocationResourceIT {
         List<Location> locationList = locationRepository.findAll();
         assertThat(locationList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(0)).save(location);
+        // Validate the Location in the search outbox
+        assertThat(searchIndexOutbox.findAll(Location.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -225,14 +233,16 @@ public class LocationResourceIT {
         assertThat(testLocation.getCity()).isEqualTo(UPDATED_CITY);
         assertThat(testLocation.getStateProvince()).isEqualTo(UPDATED_STATE_PROVINCE);
 
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(2)).save(testLocation);
+        // Validate the Location in the search outbox
+        assertThat(searchIndexOutbox.findAll(Location.class)).filteredOn(entry -> entry.getEntityId() == testLocation.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingLocation() throws Exception {
         int databaseSizeBeforeUpdate = locationRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Location.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restLocationMockMvc.perform(put("/api/locations")
@@ -244,8 +254,8 @@ public class LocationResourceIT {
         List<Location> locationList = locationRepository.findAll();
         assertThat(locationList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(0)).save(location);
+        // Validate the Location in the search outbox
+        assertThat(searchIndexOutbox.findAll(Location.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -265,8 +275,9 @@ public class LocationResourceIT {
         List<Location> locationList = locationRepository.findAll();
         assertThat(locationList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(1)).deleteById(location.getId());
+        // Validate the Location in the search outbox
+        assertThat(searchIndexOutbox.findAll(Location.class)).filteredOn(entry -> entry.getEntityId() == location.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -275,7 +286,7 @@ public class LocationResourceIT {
         // Configure the mock search repository
         // Initialize the database
         locationService.save(location);
-        when(mockLocationSearchRepository.search(queryStringQuery("id:" + location.getId())))
+        when(mockSearchAfterRepository.searchAll(Location.class, queryString("id:" + location.getId())))
             .thenReturn(Collections.singletonList(location));
 
         // Search the location
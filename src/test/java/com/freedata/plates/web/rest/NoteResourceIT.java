@@ -3,7 +3,10 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.domain.Note;
 import com.freedata.plates.repository.NoteRepository;
-import com.freedata.plates.repository.search.NoteSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.NoteService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +26,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -53,10 +56,13 @@ public class NoteResourceIT {
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
-     * @see com.freedata.plates.repository.search.NoteSearchRepositoryMockConfiguration
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
      */
     @Autowired
-    private NoteSearchRepository mockNoteSearchRepository;
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private EntityManager em;
@@ -113,14 +119,16 @@ public class NoteResourceIT {
         assertThat(testNote.getTitle()).isEqualTo(DEFAULT_TITLE);
         assertThat(testNote.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
 
-        // Validate the Note in Elasticsearch
-        verify(mockNoteSearchRepository, times(1)).save(testNote);
+        // Validate the Note in the search outbox
+        assertThat(searchIndexOutbox.findAll(Note.class)).filteredOn(entry -> entry.getEntityId() == testNote.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createNoteWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = noteRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Note.class).size();
 
         // Create the Note with an existing ID
         note.setId(1L);
@@ -135,8 +143,8 @@ public class NoteResourceIT {
         List<Note> noteList = noteRepository.findAll();
         assertThat(noteList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Note in Elasticsearch
-        verify(mockNoteSearchRepository, times(0)).save(note);
+        // Validate the Note in the search outbox
+        assertThat(searchIndexOutbox.findAll(Note.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -205,14 +213,16 @@ public class NoteResourceIT {
         assertThat(testNote.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testNote.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
 
-        // Validate the Note in Elasticsearch
-        verify(mockNoteSearchRepository, times(2)).save(testNote);
+        // Validate the Note in the search outbox
+        assertThat(searchIndexOutbox.findAll(Note.class)).filteredOn(entry -> entry.getEntityId() == testNote.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingNote() throws Exception {
         int databaseSizeBeforeUpdate = noteRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Note.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restNoteMockMvc.perform(put("/api/notes")
@@ -224,8 +234,8 @@ public class NoteResourceIT {
         List<Note> noteList = noteRepository.findAll();
         assertThat(noteList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Note in Elasticsearch
-        verify(mockNoteSearchRepository, times(0)).save(note);
+        // Validate the Note in the search outbox
+        assertThat(searchIndexOutbox.findAll(Note.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -245,8 +255,9 @@ public class NoteResourceIT {
         List<Note> noteList = noteRepository.findAll();
         assertThat(noteList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Note in Elasticsearch
-        verify(mockNoteSearchRepository, times(1)).deleteById(note.getId());
+        // Validate the Note in the search outbox
+        assertThat(searchIndexOutbox.findAll(Note.class)).filteredOn(entry -> entry.getEntityId() == note.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -255,7 +266,7 @@ public class NoteResourceIT {
         // Configure the mock search repository
         // Initialize the database
         noteService.save(note);
-        when(mockNoteSearchRepository.search(queryStringQuery("id:" + note.getId())))
+        when(mockSearchAfterRepository.searchAll(Note.class, queryString("id:" + note.getId())))
             .thenReturn(Collections.singletonList(note));
 
         // Search the note
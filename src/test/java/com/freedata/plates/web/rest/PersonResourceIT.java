@@ -1,9 +1,18 @@
 package com.freedata.plates.web.rest;
 
 import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Location;
 import com.freedata.plates.domain.Person;
+import com.freedata.plates.domain.Region;
 import com.freedata.plates.repository.PersonRepository;
 import com.freedata.plates.repository.search.PersonSearchRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+
+import com.jayway.jsonpath.JsonPath;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,18 +24,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
+import java.net.URI;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -73,6 +87,9 @@ public class PersonResourceIT {
     @Autowired
     private PersonSearchRepository mockPersonSearchRepository;
 
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
     @Autowired
     private EntityManager em;
 
@@ -143,14 +160,16 @@ public class PersonResourceIT {
         assertThat(testPerson.getSalary()).isEqualTo(DEFAULT_SALARY);
         assertThat(testPerson.getCommissionPct()).isEqualTo(DEFAULT_COMMISSION_PCT);
 
-        // Validate the Person in Elasticsearch
-        verify(mockPersonSearchRepository, times(1)).save(testPerson);
+        // Validate the Person in the search outbox
+        assertThat(searchIndexOutbox.findAll(Person.class)).filteredOn(entry -> entry.getEntityId() == testPerson.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createPersonWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = personRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Person.class).size();
 
         // Create the Person with an existing ID
         person.setId(1L);
@@ -165,8 +184,8 @@ public class PersonResourceIT {
         List<Person> personList = personRepository.findAll();
         assertThat(personList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Person in Elasticsearch
-        verify(mockPersonSearchRepository, times(0)).save(person);
+        // Validate the Person in the search outbox
+        assertThat(searchIndexOutbox.findAll(Person.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -190,6 +209,68 @@ public class PersonResourceIT {
             .andExpect(jsonPath("$.[*].commissionPct").value(hasItem(DEFAULT_COMMISSION_PCT.intValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAllPeopleWithKeyset() throws Exception {
+        // Initialize the database, hire dates descending put people without one last
+        Person latest = personRepository.saveAndFlush(createEntity(em).hireDate(UPDATED_HIRE_DATE));
+        Person earliest = personRepository.saveAndFlush(person);
+        Person sameDay = personRepository.saveAndFlush(createEntity(em).hireDate(DEFAULT_HIRE_DATE));
+        Person notHired = personRepository.saveAndFlush(createEntity(em).hireDate(null));
+
+        // Follow the next links until the last page
+        List<Long> ids = new ArrayList<>();
+        String url = "/api/people?sort=hireDate,desc&size=1&after=";
+        while (url != null) {
+            MvcResult result = restPersonMockMvc.perform(get(URI.create(url)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andReturn();
+            for (Object id : JsonPath.<List<Object>>read(result.getResponse().getContentAsString(), "$.[*].id")) {
+                ids.add(((Number) id).longValue());
+            }
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            url = link == null ? null : link.substring(1, link.indexOf('>'));
+        }
+
+        List<Long> expected = Arrays.asList(latest.getId(), sameDay.getId(), earliest.getId(), notHired.getId());
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.stream().filter(expected::contains)).containsExactly(latest.getId(), sameDay.getId(), earliest.getId(), notHired.getId());
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleStatementCountDoesNotGrowWithPageSize() throws Exception {
+        // Initialize the database: people with their own manager and department, location, country and region
+        for (int i = 0; i < 6; i++) {
+            Person manager = createEntity(em).department(createDepartment());
+            em.persist(manager);
+            personRepository.save(createEntity(em).manager(manager).department(createDepartment()));
+        }
+
+        long smallPage = TestUtil.countStatements(em, () -> restPersonMockMvc.perform(get("/api/people?sort=id,desc&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].department.location.country.region.id").isNumber()));
+        long largePage = TestUtil.countStatements(em, () -> restPersonMockMvc.perform(get("/api/people?sort=id,desc&size=12"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(12)));
+
+        assertThat(smallPage).isPositive();
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    private Department createDepartment() {
+        Region region = RegionResourceIT.createEntity(em);
+        em.persist(region);
+        Country country = CountryResourceIT.createEntity(em).region(region);
+        em.persist(country);
+        Location location = LocationResourceIT.createEntity(em).country(country);
+        em.persist(location);
+        Department department = DepartmentResourceIT.createEntity(em).location(location);
+        em.persist(department);
+        return department;
+    }
+
     @Test
     @Transactional
     public void getPerson() throws Exception {
@@ -255,14 +336,16 @@ public class PersonResourceIT {
         assertThat(testPerson.getSalary()).isEqualTo(UPDATED_SALARY);
         assertThat(testPerson.getCommissionPct()).isEqualTo(UPDATED_COMMISSION_PCT);
 
-        // Validate the Person in Elasticsearch
-        verify(mockPersonSearchRepository, times(1)).save(testPerson);
+        // Validate the Person in the search outbox
+        assertThat(searchIndexOutbox.findAll(Person.class)).filteredOn(entry -> entry.getEntityId() == testPerson.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingPerson() throws Exception {
         int databaseSizeBeforeUpdate = personRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Person.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restPersonMockMvc.perform(put("/api/people")
@@ -274,8 +357,8 @@ public class PersonResourceIT {
         List<Person> personList = personRepository.findAll();
         assertThat(personList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Person in Elasticsearch
-        verify(mockPersonSearchRepository, times(0)).save(person);
+        // Validate the Person in the search outbox
+        assertThat(searchIndexOutbox.findAll(Person.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -295,8 +378,9 @@ public class PersonResourceIT {
         List<Person> personList = personRepository.findAll();
         assertThat(personList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Person in Elasticsearch
-        verify(mockPersonSearchRepository, times(1)).deleteById(person.getId());
+        // Validate the Person in the search outbox
+        assertThat(searchIndexOutbox.findAll(Person.class)).filteredOn(entry -> entry.getEntityId() == person.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -305,7 +389,7 @@ public class PersonResourceIT {
         // Configure the mock search repository
         // Initialize the database
         personRepository.saveAndFlush(person);
-        when(mockPersonSearchRepository.search(queryStringQuery("id:" + person.getId()), PageRequest.of(0, 20)))
+        when(mockPersonSearchRepository.search(queryString("id:" + person.getId()), PageRequest.of(0, 20)))
             .thenReturn(new PageImpl<>(Collections.singletonList(person), PageRequest.of(0, 1), 1));
 
         // Search the person
@@ -1,9 +1,13 @@
 package com.freedata.plates.web.rest;
 
 import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Plate;
 import com.freedata.plates.domain.PlateHistory;
 import com.freedata.plates.repository.PlateHistoryRepository;
 import com.freedata.plates.repository.search.PlateHistorySearchRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.PlateHistoryService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -27,7 +31,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -62,6 +66,9 @@ public class PlateHistoryResourceIT {
     @Autowired
     private PlateHistorySearchRepository mockPlateHistorySearchRepository;
 
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
     @Autowired
     private EntityManager em;
 
@@ -117,14 +124,16 @@ public class PlateHistoryResourceIT {
         assertThat(testPlateHistory.getStartDate()).isEqualTo(DEFAULT_START_DATE);
         assertThat(testPlateHistory.getEndDate()).isEqualTo(DEFAULT_END_DATE);
 
-        // Validate the PlateHistory in Elasticsearch
-        verify(mockPlateHistorySearchRepository, times(1)).save(testPlateHistory);
+        // Validate the PlateHistory in the search outbox
+        assertThat(searchIndexOutbox.findAll(PlateHistory.class)).filteredOn(entry -> entry.getEntityId() == testPlateHistory.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createPlateHistoryWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = plateHistoryRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(PlateHistory.class).size();
 
         // Create the PlateHistory with an existing ID
         plateHistory.setId(1L);
@@ -139,8 +148,8 @@ public class PlateHistoryResourceIT {
         List<PlateHistory> plateHistoryList = plateHistoryRepository.findAll();
         assertThat(plateHistoryList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the PlateHistory in Elasticsearch
-        verify(mockPlateHistorySearchRepository, times(0)).save(plateHistory);
+        // Validate the PlateHistory in the search outbox
+        assertThat(searchIndexOutbox.findAll(PlateHistory.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -181,6 +190,72 @@ public class PlateHistoryResourceIT {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void getPlateHistoryAsOf() throws Exception {
+        Plate plate = PlateResourceIT.createEntity(em);
+        em.persist(plate);
+        Instant start = Instant.parse("2020-01-01T00:00:00Z");
+        PlateHistory first = plateHistoryRepository.save(new PlateHistory().plate(plate)
+            .startDate(start).endDate(start.plus(10, ChronoUnit.DAYS)));
+        PlateHistory current = plateHistoryRepository.save(new PlateHistory().plate(plate)
+            .startDate(start.plus(20, ChronoUnit.DAYS)));
+        Plate otherPlate = PlateResourceIT.createEntity(em);
+        em.persist(otherPlate);
+        plateHistoryRepository.saveAndFlush(new PlateHistory().plate(otherPlate).startDate(start));
+        em.clear();
+
+        restPlateHistoryMockMvc.perform(get("/api/plate-histories/as-of?plateId={plateId}&instant={instant}", plate.getId(), start))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.plate.id").value(plate.getId().intValue()));
+        restPlateHistoryMockMvc.perform(get("/api/plate-histories/as-of?plateId={plateId}&instant={instant}", plate.getId(), start.plus(10, ChronoUnit.DAYS)))
+            .andExpect(status().isNotFound());
+        restPlateHistoryMockMvc.perform(get("/api/plate-histories/as-of?plateId={plateId}&instant={instant}", plate.getId(), start.plus(400, ChronoUnit.DAYS)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(current.getId().intValue()));
+        restPlateHistoryMockMvc.perform(get("/api/plate-histories/as-of?plateId={plateId}&instant={instant}", plate.getId(), start.minusMillis(1)))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void createOverlappingPlateHistory() throws Exception {
+        Plate plate = PlateResourceIT.createEntity(em);
+        em.persist(plate);
+        Instant start = Instant.parse("2020-01-01T00:00:00Z");
+        plateHistoryRepository.saveAndFlush(new PlateHistory().plate(plate)
+            .startDate(start).endDate(start.plus(10, ChronoUnit.DAYS)));
+
+        restPlateHistoryMockMvc.perform(post("/api/plate-histories")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(new PlateHistory().plate(plate).startDate(start.plus(5, ChronoUnit.DAYS)))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.intervaloverlap"));
+
+        // A plate can be held again once its previous interval is over
+        restPlateHistoryMockMvc.perform(post("/api/plate-histories")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(new PlateHistory().plate(plate).startDate(start.plus(10, ChronoUnit.DAYS)))))
+            .andExpect(status().isCreated());
+
+        // The plate of the interval created is read from the JSON, without its uuid
+        assertThat(plateHistoryRepository.findAll()).filteredOn(plateHistory -> plate.getId().equals(plateHistory.getPlate().getId()))
+            .hasSize(2);
+    }
+
+    @Test
+    @Transactional
+    public void createPlateHistoryEndingBeforeItStarts() throws Exception {
+        plateHistory.setEndDate(DEFAULT_START_DATE.minusMillis(1));
+
+        restPlateHistoryMockMvc.perform(post("/api/plate-histories")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(plateHistory)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidinterval"));
+    }
+
     @Test
     @Transactional
     public void updatePlateHistory() throws Exception {
@@ -209,14 +284,16 @@ public class PlateHistoryResourceIT {
         assertThat(testPlateHistory.getStartDate()).isEqualTo(UPDATED_START_DATE);
         assertThat(testPlateHistory.getEndDate()).isEqualTo(UPDATED_END_DATE);
 
-        // Validate the PlateHistory in Elasticsearch
-        verify(mockPlateHistorySearchRepository, times(2)).save(testPlateHistory);
+        // Validate the PlateHistory in the search outbox
+        assertThat(searchIndexOutbox.findAll(PlateHistory.class)).filteredOn(entry -> entry.getEntityId() == testPlateHistory.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingPlateHistory() throws Exception {
         int databaseSizeBeforeUpdate = plateHistoryRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(PlateHistory.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restPlateHistoryMockMvc.perform(put("/api/plate-histories")
@@ -228,8 +305,8 @@ public class PlateHistoryResourceIT {
         List<PlateHistory> plateHistoryList = plateHistoryRepository.findAll();
         assertThat(plateHistoryList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the PlateHistory in Elasticsearch
-        verify(mockPlateHistorySearchRepository, times(0)).save(plateHistory);
+        // Validate the PlateHistory in the search outbox
+        assertThat(searchIndexOutbox.findAll(PlateHistory.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -249,8 +326,41 @@ public class PlateHistoryResourceIT {
         List<PlateHistory> plateHistoryList = plateHistoryRepository.findAll();
         assertThat(plateHistoryList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the PlateHistory in Elasticsearch
-        verify(mockPlateHistorySearchRepository, times(1)).deleteById(plateHistory.getId());
+        // Validate the PlateHistory in the search outbox
+        assertThat(searchIndexOutbox.findAll(PlateHistory.class)).filteredOn(entry -> entry.getEntityId() == plateHistory.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
+    }
+
+    @Test
+    @Transactional
+    public void deletePlateHistoryIndexesItsPlate() throws Exception {
+        // Initialize the database
+        Plate plate = PlateResourceIT.createEntity(em);
+        em.persist(plate);
+        plateHistoryService.save(plateHistory.plate(plate));
+
+        // Delete the plateHistory
+        restPlateHistoryMockMvc.perform(delete("/api/plate-histories/{id}", plateHistory.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // Validate the Plate, whose document includes its last interval, in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == plate.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.INDEX);
+    }
+
+    @Test
+    @Transactional
+    public void saveFuturePlateHistoryIndexesItsPlateOnceStarted() throws Exception {
+        Plate plate = PlateResourceIT.createEntity(em);
+        em.persist(plate);
+        Instant startDate = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MILLIS);
+
+        plateHistoryService.save(plateHistory.plate(plate).startDate(startDate).endDate(null));
+
+        // Validate the Plate, whose document holds the interval once it starts, due in the search outbox at its start
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == plate.getId())
+            .extracting(Entry::getCreatedMillis).containsExactly(startDate.toEpochMilli());
     }
 
     @Test
@@ -259,7 +369,7 @@ public class PlateHistoryResourceIT {
         // Configure the mock search repository
         // Initialize the database
         plateHistoryService.save(plateHistory);
-        when(mockPlateHistorySearchRepository.search(queryStringQuery("id:" + plateHistory.getId()), PageRequest.of(0, 20)))
+        when(mockPlateHistorySearchRepository.search(queryString("id:" + plateHistory.getId()), PageRequest.of(0, 20)))
             .thenReturn(new PageImpl<>(Collections.singletonList(plateHistory), PageRequest.of(0, 1), 1));
 
         // Search the plateHistory
@@ -0,0 +1,139 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Plate;
+import com.freedata.plates.repository.NoteRepository;
+import com.freedata.plates.repository.PersonRepository;
+import com.freedata.plates.repository.PlateRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+import com.freedata.plates.security.AuthoritiesConstants;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link PlateImportResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@SpringBootTest(classes = PlatesApp.class)
+public class PlateImportResourceIT {
+
+    private static final String IMPORTED_PLATE_TITLE = "IMPORTED";
+
+    @Autowired
+    private PlateRepository plateRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
+    @Autowired
+    private MockMvc restPlateImportMockMvc;
+
+    @AfterEach
+    public void cleanUp() {
+        // The import commits its own transactions, so its rows have to be removed explicitly
+        List<Plate> imported = plateRepository.findAllWithEagerRelationships().stream()
+            .filter(plate -> plate.getPlateTitle() != null && plate.getPlateTitle().startsWith(IMPORTED_PLATE_TITLE))
+            .collect(Collectors.toList());
+        plateRepository.deleteAll(imported);
+        imported.forEach(plate -> noteRepository.deleteAll(plate.getNotes()));
+        personRepository.deleteAll(personRepository.findAllByEmailIn(Arrays.asList("import-a@localhost", "import-b@localhost")));
+    }
+
+    @Test
+    public void importCsvReportsRowErrorsAndSummary() throws Exception {
+        int databaseSizeBeforeImport = plateRepository.findAll().size();
+        String csv = "plateTitle,personFirstName,personLastName,personEmail,noteTitle,noteDescription\n" +
+            IMPORTED_PLATE_TITLE + "-1,John,Doe,import-a@localhost,first,\"a, quoted note\"\n" +
+            ",Jane,Doe,import-b@localhost,,\n" +
+            IMPORTED_PLATE_TITLE + "-2,John,Doe,IMPORT-A@localhost,,\n";
+
+        MvcResult mvcResult = restPlateImportMockMvc.perform(post("/api/_import/plates")
+            .contentType(PlateImportResource.TEXT_CSV_VALUE)
+            .content(csv))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restPlateImportMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("{\"error\":{\"line\":3,\"message\":\"plateTitle is required\"}}")))
+            .andExpect(content().string(containsString("\"rowsRead\":3")))
+            .andExpect(content().string(containsString("\"rowsFailed\":1")))
+            .andExpect(content().string(containsString("\"platesCreated\":2")))
+            .andExpect(content().string(containsString("\"peopleCreated\":1")))
+            .andExpect(content().string(containsString("\"notesCreated\":1")));
+
+        assertThat(plateRepository.findAll()).hasSize(databaseSizeBeforeImport + 2);
+        // Indexing is left to the search outbox, committed with each chunk
+        List<Long> importedIds = plateRepository.findAll().stream()
+            .filter(plate -> plate.getPlateTitle() != null && plate.getPlateTitle().startsWith(IMPORTED_PLATE_TITLE))
+            .map(Plate::getId)
+            .collect(Collectors.toList());
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> importedIds.contains(entry.getEntityId()))
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
+    }
+
+    @Test
+    public void importGzippedNdjson() throws Exception {
+        int databaseSizeBeforeImport = plateRepository.findAll().size();
+        String ndjson = "{\"plateTitle\":\"" + IMPORTED_PLATE_TITLE + "-3\",\"personEmail\":\"import-b@localhost\"}\n" +
+            "\n" +
+            "{not json}\n";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+
+        MvcResult mvcResult = restPlateImportMockMvc.perform(post("/api/_import/plates")
+            .contentType(PlateImportResource.APPLICATION_NDJSON_VALUE)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .content(compressed.toByteArray()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restPlateImportMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"line\":3")))
+            .andExpect(content().string(containsString("\"platesCreated\":1")))
+            .andExpect(content().string(containsString("\"rowsFailed\":1")));
+
+        assertThat(plateRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+    }
+
+    @Test
+    @WithMockUser
+    public void importRequiresAdmin() throws Exception {
+        restPlateImportMockMvc.perform(post("/api/_import/plates")
+            .contentType(PlateImportResource.TEXT_CSV_VALUE)
+            .content("plateTitle\n" + IMPORTED_PLATE_TITLE + "\n"))
+            .andExpect(status().isForbidden());
+    }
+}
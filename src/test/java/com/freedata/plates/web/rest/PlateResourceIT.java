@@ -1,12 +1,28 @@
 package com.freedata.plates.web.rest;
 
 import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Department;
+import com.freedata.plates.domain.Note;
+import com.freedata.plates.domain.Person;
 import com.freedata.plates.domain.Plate;
+import com.freedata.plates.domain.PlateHistory;
+import com.freedata.plates.repository.PlateHistoryRepository;
+import com.freedata.plates.repository.Keyset;
 import com.freedata.plates.repository.PlateRepository;
 import com.freedata.plates.repository.search.PlateSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO;
+import com.freedata.plates.service.dto.PlateSearchRequestDTO.InstantRange;
+
+import com.jayway.jsonpath.JsonPath;
+import org.elasticsearch.index.query.QueryBuilder;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,18 +31,34 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import javax.persistence.EntityManager;
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -49,6 +81,9 @@ public class PlateResourceIT {
     @Mock
     private PlateRepository plateRepositoryMock;
 
+    @Autowired
+    private PlateHistoryRepository plateHistoryRepository;
+
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
@@ -57,6 +92,17 @@ public class PlateResourceIT {
     @Autowired
     private PlateSearchRepository mockPlateSearchRepository;
 
+    /**
+     * This repository is mocked in the com.freedata.plates.repository.search test package.
+     *
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
+     */
+    @Autowired
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
+
     @Autowired
     private EntityManager em;
 
@@ -109,14 +155,16 @@ public class PlateResourceIT {
         Plate testPlate = plateList.get(plateList.size() - 1);
         assertThat(testPlate.getPlateTitle()).isEqualTo(DEFAULT_PLATE_TITLE);
 
-        // Validate the Plate in Elasticsearch
-        verify(mockPlateSearchRepository, times(1)).save(testPlate);
+        // Validate the Plate in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == testPlate.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createPlateWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = plateRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Plate.class).size();
 
         // Create the Plate with an existing ID
         plate.setId(1L);
@@ -131,8 +179,8 @@ public class PlateResourceIT {
         List<Plate> plateList = plateRepository.findAll();
         assertThat(plateList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Plate in Elasticsearch
-        verify(mockPlateSearchRepository, times(0)).save(plate);
+        // Validate the Plate in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -150,6 +198,28 @@ public class PlateResourceIT {
             .andExpect(jsonPath("$.[*].plateTitle").value(hasItem(DEFAULT_PLATE_TITLE)));
     }
 
+    @Test
+    @Transactional
+    public void getAllPlatesWithEagerRelationships() throws Exception {
+        // Initialize the database
+        Note note = NoteResourceIT.createEntity(em);
+        em.persist(note);
+        plateRepository.saveAndFlush(plate.addNote(note));
+        plateRepository.saveAndFlush(createEntity(em).plateTitle(UPDATED_PLATE_TITLE));
+        em.clear();
+
+        // Get the first page of the plateList, paginated in SQL despite the notes being fetched
+        restPlateMockMvc.perform(get("/api/plates?eagerload=true&sort=id,desc&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].plateTitle").value(UPDATED_PLATE_TITLE))
+            .andExpect(jsonPath("$.[0].notes").isEmpty())
+            .andExpect(jsonPath("$.[1].id").value(plate.getId().intValue()))
+            .andExpect(jsonPath("$.[1].notes.[0].id").value(note.getId().intValue()));
+    }
+
     @SuppressWarnings({"unchecked"})
     public void getAllPlatesWithEagerRelationshipsIsEnabled() throws Exception {
         when(plateRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -170,6 +240,54 @@ public class PlateResourceIT {
         verify(plateRepositoryMock, times(1)).findAllWithEagerRelationships(any());
     }
 
+    @Test
+    @Transactional
+    public void getAllPlatesWithKeyset() throws Exception {
+        // Initialize the database, with two plates sharing a title to exercise the id tie-breaker
+        Plate second = plateRepository.saveAndFlush(createEntity(em).plateTitle(UPDATED_PLATE_TITLE));
+        Plate first = plateRepository.saveAndFlush(plate);
+        Plate third = plateRepository.saveAndFlush(createEntity(em).plateTitle(UPDATED_PLATE_TITLE));
+        Plate untitled = plateRepository.saveAndFlush(createEntity(em).plateTitle(null));
+
+        // Follow the next links until the last page
+        List<Long> ids = new ArrayList<>();
+        String url = "/api/plates?sort=plateTitle,asc&size=2&after=";
+        while (url != null) {
+            MvcResult result = restPlateMockMvc.perform(get(URI.create(url)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$.length()").value(lessThanOrEqualTo(2)))
+                .andReturn();
+            for (Object id : JsonPath.<List<Object>>read(result.getResponse().getContentAsString(), "$.[*].id")) {
+                ids.add(((Number) id).longValue());
+            }
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            url = link == null ? null : link.substring(1, link.indexOf('>'));
+        }
+
+        // Null titles come first, then every plate exactly once ordered by title and id
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.stream().filter(id -> Arrays.asList(untitled.getId(), first.getId(), second.getId(), third.getId()).contains(id)))
+            .containsExactly(untitled.getId(), first.getId(), second.getId(), third.getId());
+    }
+
+    @Test
+    @Transactional
+    public void getAllPlatesWithKeysetOnUnsupportedSort() throws Exception {
+        restPlateMockMvc.perform(get("/api/plates?sort=person,asc&after="))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.sortnotallowed"));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPlatesWithInvalidKeyset() throws Exception {
+        restPlateMockMvc.perform(get("/api/plates?after=not-a-cursor"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidcursor"));
+    }
+
     @Test
     @Transactional
     public void getPlate() throws Exception {
@@ -191,6 +309,58 @@ public class PlateResourceIT {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void transferPlate() throws Exception {
+        Department department = DepartmentResourceIT.createEntity(em);
+        em.persist(department);
+        Person holder = PersonResourceIT.createEntity(em);
+        em.persist(holder);
+        Person receiver = PersonResourceIT.createEntity(em).department(department);
+        em.persist(receiver);
+        plateRepository.save(plate.person(holder));
+        PlateHistory held = plateHistoryRepository.saveAndFlush(new PlateHistory().plate(plate).person(holder)
+            .startDate(Instant.now().minus(1, ChronoUnit.DAYS)));
+
+        restPlateMockMvc.perform(post("/api/plates/{id}/transfer?personId={personId}", plate.getId(), receiver.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(plate.getId().intValue()))
+            .andExpect(jsonPath("$.person.id").value(receiver.getId().intValue()));
+
+        em.flush();
+        em.clear();
+        assertThat(plateRepository.findById(plate.getId()).get().getPerson()).isEqualTo(receiver);
+        List<PlateHistory> plateHistories = plateHistoryRepository.findAll(Sort.by("startDate")).stream()
+            .filter(plateHistory -> plate.equals(plateHistory.getPlate()))
+            .collect(Collectors.toList());
+        assertThat(plateHistories).hasSize(2);
+        assertThat(plateHistories.get(0)).isEqualTo(held);
+        assertThat(plateHistories.get(0).getEndDate()).isEqualTo(plateHistories.get(1).getStartDate());
+        assertThat(plateHistories.get(1).getPerson()).isEqualTo(receiver);
+        assertThat(plateHistories.get(1).getDepartment()).isEqualTo(department);
+        assertThat(plateHistories.get(1).getEndDate()).isNull();
+    }
+
+    @Test
+    @Transactional
+    public void transferPlateToNonExistingPerson() throws Exception {
+        plateRepository.saveAndFlush(plate);
+
+        restPlateMockMvc.perform(post("/api/plates/{id}/transfer?personId={personId}", plate.getId(), Long.MAX_VALUE))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.personnotfound"));
+    }
+
+    @Test
+    @Transactional
+    public void transferNonExistingPlate() throws Exception {
+        Person receiver = PersonResourceIT.createEntity(em);
+        em.persist(receiver);
+
+        restPlateMockMvc.perform(post("/api/plates/{id}/transfer?personId={personId}", Long.MAX_VALUE, receiver.getId()))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void updatePlate() throws Exception {
@@ -217,14 +387,50 @@ public class PlateResourceIT {
         Plate testPlate = plateList.get(plateList.size() - 1);
         assertThat(testPlate.getPlateTitle()).isEqualTo(UPDATED_PLATE_TITLE);
 
-        // Validate the Plate in Elasticsearch
-        verify(mockPlateSearchRepository, times(1)).save(testPlate);
+        // Validate the Plate in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == testPlate.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
+    }
+
+    @Test
+    @Transactional
+    public void updatePlateKeepsItsUuid() throws Exception {
+        // Initialize the database
+        plateRepository.saveAndFlush(plate);
+        UUID uuid = plate.getUuid();
+
+        // The uuid is read-only: whether left out, null or another one, the stored one is kept
+        for (String uuidProperty : new String[] { "", "\"uuid\":null,", "\"uuid\":\"" + UUID.randomUUID() + "\"," }) {
+            restPlateMockMvc.perform(put("/api/plates")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + plate.getId() + "," + uuidProperty + "\"plateTitle\":\"" + UPDATED_PLATE_TITLE + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uuid").value(uuid.toString()));
+        }
+
+        // Validate the Plate in the database
+        em.flush();
+        em.clear();
+        Plate testPlate = plateRepository.findById(plate.getId()).get();
+        assertThat(testPlate.getUuid()).isEqualTo(uuid);
+        assertThat(testPlate.getPlateTitle()).isEqualTo(UPDATED_PLATE_TITLE);
+    }
+
+    @Test
+    @Transactional
+    public void createPlateWithANullUuid() throws Exception {
+        restPlateMockMvc.perform(post("/api/plates")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"uuid\":null,\"plateTitle\":\"" + DEFAULT_PLATE_TITLE + "\"}"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.uuid").isNotEmpty());
     }
 
     @Test
     @Transactional
     public void updateNonExistingPlate() throws Exception {
         int databaseSizeBeforeUpdate = plateRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Plate.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restPlateMockMvc.perform(put("/api/plates")
@@ -236,8 +442,8 @@ public class PlateResourceIT {
         List<Plate> plateList = plateRepository.findAll();
         assertThat(plateList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Plate in Elasticsearch
-        verify(mockPlateSearchRepository, times(0)).save(plate);
+        // Validate the Plate in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -257,8 +463,9 @@ public class PlateResourceIT {
         List<Plate> plateList = plateRepository.findAll();
         assertThat(plateList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Plate in Elasticsearch
-        verify(mockPlateSearchRepository, times(1)).deleteById(plate.getId());
+        // Validate the Plate in the search outbox
+        assertThat(searchIndexOutbox.findAll(Plate.class)).filteredOn(entry -> entry.getEntityId() == plate.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -267,7 +474,7 @@ public class PlateResourceIT {
         // Configure the mock search repository
         // Initialize the database
         plateRepository.saveAndFlush(plate);
-        when(mockPlateSearchRepository.search(queryStringQuery("id:" + plate.getId()), PageRequest.of(0, 20)))
+        when(mockPlateSearchRepository.search(queryString("id:" + plate.getId()), PageRequest.of(0, 20)))
             .thenReturn(new PageImpl<>(Collections.singletonList(plate), PageRequest.of(0, 1), 1));
 
         // Search the plate
@@ -277,4 +484,140 @@ public class PlateResourceIT {
             .andExpect(jsonPath("$.[*].id").value(hasItem(plate.getId().intValue())))
             .andExpect(jsonPath("$.[*].plateTitle").value(hasItem(DEFAULT_PLATE_TITLE)));
     }
+
+    @Test
+    @Transactional
+    public void searchPlateOutsideOfTransaction() throws Exception {
+        // Record whether the search repository is called within a transaction
+        AtomicBoolean transactionActive = new AtomicBoolean(true);
+        when(mockPlateSearchRepository.search(any(QueryBuilder.class), any(Pageable.class))).thenAnswer(invocation -> {
+            transactionActive.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return new PageImpl<>(Collections.singletonList(plate), PageRequest.of(0, 1), 1);
+        });
+
+        // Search the plate
+        restPlateMockMvc.perform(get("/api/_search/plates?query=plateTitle:" + DEFAULT_PLATE_TITLE))
+            .andExpect(status().isOk());
+
+        assertThat(transactionActive).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void searchPlateWithKeyset() throws Exception {
+        // Initialize the database
+        plateRepository.saveAndFlush(plate);
+        Sort.Order order = Sort.Order.asc("plateTitle");
+        when(mockSearchAfterRepository.search(Plate.class, queryString("plateTitle:" + DEFAULT_PLATE_TITLE), order, null, 1))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(plate), PageRequest.of(0, 1), true));
+        when(mockSearchAfterRepository.search(eq(Plate.class), eq(queryString("plateTitle:" + DEFAULT_PLATE_TITLE)), eq(order),
+            argThat(after -> after != null && after.getId() == plate.getId() && DEFAULT_PLATE_TITLE.equals(after.getValue())), eq(1)))
+            .thenReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 1), false));
+
+        // Search the first page, which links to the next one
+        MvcResult result = restPlateMockMvc.perform(get("/api/_search/plates?query=plateTitle:" + DEFAULT_PLATE_TITLE +
+                "&sort=plateTitle,asc&size=1&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(plate.getId().intValue())))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).contains("after=" + Keyset.of(plate, order).encode()).endsWith("rel=\"next\"");
+
+        // Search the last page
+        restPlateMockMvc.perform(get(URI.create(link.substring(1, link.indexOf('>')))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void searchPlateWithKeysetOnUnsupportedSort() throws Exception {
+        restPlateMockMvc.perform(get("/api/_search/plates?query=plateTitle:" + DEFAULT_PLATE_TITLE + "&sort=person,asc&after="))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.sortnotallowed"));
+    }
+
+    @Test
+    public void searchPlateWithLeadingWildcard() throws Exception {
+        restPlateMockMvc.perform(get("/api/_search/plates?query=plateTitle:*AAA"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidsearchquery"));
+
+        verify(mockPlateSearchRepository, never()).search(any(QueryBuilder.class), any(Pageable.class));
+    }
+
+    @Test
+    @Transactional
+    public void searchPlateWithRequest() throws Exception {
+        // Initialize the database
+        plateRepository.saveAndFlush(plate);
+        ArgumentCaptor<QueryBuilder> query = ArgumentCaptor.forClass(QueryBuilder.class);
+        when(mockPlateSearchRepository.search(query.capture(), eq(PageRequest.of(0, 20))))
+            .thenReturn(new PageImpl<>(Collections.singletonList(plate), PageRequest.of(0, 20), 1));
+        PlateSearchRequestDTO request = new PlateSearchRequestDTO();
+        request.setText("engine");
+        request.setPersonName("Ada Lovelace");
+        request.setPersonId(42L);
+        InstantRange holderStartDate = new InstantRange();
+        holderStartDate.setFrom(Instant.parse("2020-01-01T00:00:00Z"));
+        request.setHolderStartDate(holderStartDate);
+
+        // Search the plate
+        restPlateMockMvc.perform(post("/api/_search/plates")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(plate.getId().intValue())));
+
+        // Only the text is scored
+        String bool = query.getValue().toString().replaceAll("\\s", "");
+        assertThat(bool).contains("\"must\":[{\"multi_match\":{\"query\":\"engine\"");
+        assertThat(bool).contains("\"filter\":[{\"term\":{\"person.id\":{\"value\":42");
+        assertThat(bool).contains("{\"term\":{\"personName.keyword\":{\"value\":\"AdaLovelace\"");
+        assertThat(bool).contains("{\"range\":{\"holderStartDate\":{\"from\":" + Instant.parse("2020-01-01T00:00:00Z").toEpochMilli());
+    }
+
+    @Test
+    @Transactional
+    public void searchPlateWithRequestAndKeyset() throws Exception {
+        // Initialize the database
+        plateRepository.saveAndFlush(plate);
+        when(mockSearchAfterRepository.search(eq(Plate.class), any(QueryBuilder.class), eq(Sort.Order.asc("id")), isNull(), eq(20)))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(plate), PageRequest.of(0, 20), false));
+        PlateSearchRequestDTO request = new PlateSearchRequestDTO();
+        request.setPlateTitle(DEFAULT_PLATE_TITLE);
+
+        // Search the plate
+        restPlateMockMvc.perform(post("/api/_search/plates?after=")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(plate.getId().intValue())));
+    }
+
+    @Test
+    public void searchPlateWithEmptyRange() throws Exception {
+        PlateSearchRequestDTO request = new PlateSearchRequestDTO();
+        InstantRange holderEndDate = new InstantRange();
+        holderEndDate.setFrom(Instant.parse("2020-01-01T00:00:00Z"));
+        holderEndDate.setTo(Instant.parse("2020-01-01T00:00:00Z"));
+        request.setHolderEndDate(holderEndDate);
+
+        restPlateMockMvc.perform(post("/api/_search/plates")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidsearchquery"));
+    }
+
+    @Test
+    public void suggestNothingForABlankPrefix() throws Exception {
+        restPlateMockMvc.perform(get("/api/_suggest/plates?prefix= "))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$").isEmpty());
+    }
 }
@@ -0,0 +1,133 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.domain.Country;
+import com.freedata.plates.domain.Region;
+import com.freedata.plates.repository.CountryRepository;
+import com.freedata.plates.repository.RegionRepository;
+import com.freedata.plates.service.CountryService;
+import com.freedata.plates.service.RegionService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ReferenceDataResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@WithMockUser
+@SpringBootTest(classes = PlatesApp.class)
+public class ReferenceDataResourceIT {
+
+    private static final String COUNTRY_NAME = "REFERENCED";
+
+    private static final String UPDATED_COUNTRY_NAME = "RENAMED";
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private RegionRepository regionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc restReferenceDataMockMvc;
+
+    private Country country;
+
+    @BeforeEach
+    public void initTest() {
+        // The snapshot only shows committed data
+        country = countryService.save(new Country().countryName(COUNTRY_NAME));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        if (countryRepository.existsById(country.getId())) {
+            countryService.delete(country.getId());
+        }
+    }
+
+    private String getReferenceData() throws Exception {
+        return restReferenceDataMockMvc.perform(get("/api/reference-data"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(jsonPath("$.regions").isArray())
+            .andExpect(jsonPath("$.locations").isArray())
+            .andExpect(jsonPath("$.departments").isArray())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    public void getReferenceDataUntilItChanges() throws Exception {
+        String eTag = getReferenceData();
+        restReferenceDataMockMvc.perform(get("/api/reference-data"))
+            .andExpect(jsonPath("$.countries.[*].countryName").value(hasItem(COUNTRY_NAME)));
+
+        restReferenceDataMockMvc.perform(get("/api/reference-data").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().bytes(new byte[0]));
+
+        countryService.save(country.countryName(UPDATED_COUNTRY_NAME));
+
+        restReferenceDataMockMvc.perform(get("/api/reference-data").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.countries.[*].countryName").value(hasItem(UPDATED_COUNTRY_NAME)))
+            .andExpect(jsonPath("$.countries.[*].countryName").value(not(hasItem(COUNTRY_NAME))));
+    }
+
+    @Test
+    public void getReferenceDataIgnoresUncommittedWrites() throws Exception {
+        // Drops the snapshot, so that the next request builds it
+        countryService.save(country.countryName(UPDATED_COUNTRY_NAME));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String eTag = transactionTemplate.execute(status -> {
+            regionService.save(new Region().regionName("ROLLED BACK"));
+            regionRepository.flush();
+            status.setRollbackOnly();
+            return getReferenceDataUnchecked();
+        });
+
+        restReferenceDataMockMvc.perform(get("/api/reference-data").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+        restReferenceDataMockMvc.perform(get("/api/reference-data"))
+            .andExpect(jsonPath("$.regions.[*].regionName").value(not(hasItem("ROLLED BACK"))));
+        assertThat(regionRepository.findAll()).extracting(Region::getRegionName).doesNotContain("ROLLED BACK");
+    }
+
+    private String getReferenceDataUnchecked() {
+        try {
+            return getReferenceData();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.freedata.plates.web.rest;
 import com.freedata.plates.PlatesApp;
 import com.freedata.plates.domain.Region;
 import com.freedata.plates.repository.RegionRepository;
-import com.freedata.plates.repository.search.RegionSearchRepository;
+import com.freedata.plates.repository.search.SearchAfterRepository;
+import com.freedata.plates.repository.search.SearchIndexOutbox;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Entry;
+import com.freedata.plates.repository.search.SearchIndexOutbox.Operation;
 import com.freedata.plates.service.RegionService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +26,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static com.freedata.plates.service.SearchQueries.queryString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,10 +53,13 @@ public class RegionResourceIT {
     /**
      * This repository is mocked in the com.freedata.plates.repository.search test package.
      *
-     * @see com.freedata.plates.repository.search.RegionSearchRepositoryMockConfiguration
+     * @see com.freedata.plates.repository.search.SearchAfterRepositoryMockConfiguration
      */
     @Autowired
-    private RegionSearchRepository mockRegionSearchRepository;
+    private SearchAfterRepository mockSearchAfterRepository;
+
+    @Autowired
+    private SearchIndexOutbox searchIndexOutbox;
 
     @Autowired
     private EntityManager em;
@@ -107,14 +113,16 @@ public class RegionResourceIT {
         Region testRegion = regionList.get(regionList.size() - 1);
         assertThat(testRegion.getRegionName()).isEqualTo(DEFAULT_REGION_NAME);
 
-        // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(1)).save(testRegion);
+        // Validate the Region in the search outbox
+        assertThat(searchIndexOutbox.findAll(Region.class)).filteredOn(entry -> entry.getEntityId() == testRegion.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void createRegionWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = regionRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Region.class).size();
 
         // Create the Region with an existing ID
         region.setId(1L);
@@ -129,8 +137,8 @@ public class RegionResourceIT {
         List<Region> regionList = regionRepository.findAll();
         assertThat(regionList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        // Validate the Region in the search outbox
+        assertThat(searchIndexOutbox.findAll(Region.class)).hasSize(outboxSizeBefore);
     }
 
 
@@ -195,14 +203,16 @@ public class RegionResourceIT {
         Region testRegion = regionList.get(regionList.size() - 1);
         assertThat(testRegion.getRegionName()).isEqualTo(UPDATED_REGION_NAME);
 
-        // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(2)).save(testRegion);
+        // Validate the Region in the search outbox
+        assertThat(searchIndexOutbox.findAll(Region.class)).filteredOn(entry -> entry.getEntityId() == testRegion.getId())
+            .extracting(Entry::getOperation).containsExactly(Operation.INDEX, Operation.INDEX);
     }
 
     @Test
     @Transactional
     public void updateNonExistingRegion() throws Exception {
         int databaseSizeBeforeUpdate = regionRepository.findAll().size();
+        int outboxSizeBefore = searchIndexOutbox.findAll(Region.class).size();
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restRegionMockMvc.perform(put("/api/regions")
@@ -214,8 +224,8 @@ public class RegionResourceIT {
         List<Region> regionList = regionRepository.findAll();
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        // Validate the Region in the search outbox
+        assertThat(searchIndexOutbox.findAll(Region.class)).hasSize(outboxSizeBefore);
     }
 
     @Test
@@ -235,8 +245,9 @@ public class RegionResourceIT {
         List<Region> regionList = regionRepository.findAll();
         assertThat(regionList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(1)).deleteById(region.getId());
+        // Validate the Region in the search outbox
+        assertThat(searchIndexOutbox.findAll(Region.class)).filteredOn(entry -> entry.getEntityId() == region.getId())
+            .extracting(Entry::getOperation).endsWith(Operation.DELETE);
     }
 
     @Test
@@ -245,7 +256,7 @@ public class RegionResourceIT {
         // Configure the mock search repository
         // Initialize the database
         regionService.save(region);
-        when(mockRegionSearchRepository.search(queryStringQuery("id:" + region.getId())))
+        when(mockSearchAfterRepository.searchAll(Region.class, queryString("id:" + region.getId())))
             .thenReturn(Collections.singletonList(region));
 
         // Search the region
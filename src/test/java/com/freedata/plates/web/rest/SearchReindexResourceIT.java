@@ -0,0 +1,55 @@
+package com.freedata.plates.web.rest;
+
+import com.freedata.plates.PlatesApp;
+import com.freedata.plates.security.AuthoritiesConstants;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link SearchReindexResource} REST controller.
+ * <p>
+ * Elasticsearch is not running, the rebuilds started here fail in the background without touching anything.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@SpringBootTest(classes = PlatesApp.class)
+public class SearchReindexResourceIT {
+
+    @Autowired
+    private MockMvc restSearchReindexMockMvc;
+
+    @Test
+    public void startReindex() throws Exception {
+        restSearchReindexMockMvc.perform(post("/api/_reindex/{index}", "region"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.alias").value("region"))
+            .andExpect(jsonPath("$.indexName").value(startsWith("region_")));
+
+        restSearchReindexMockMvc.perform(get("/api/_reindex"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].alias").value(hasItem("region")));
+    }
+
+    @Test
+    public void startReindexOfUnknownIndex() throws Exception {
+        restSearchReindexMockMvc.perform(post("/api/_reindex/{index}", "unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void startReindexRequiresAdmin() throws Exception {
+        restSearchReindexMockMvc.perform(post("/api/_reindex/{index}", "region"))
+            .andExpect(status().isForbidden());
+    }
+}
@@ -1,13 +1,17 @@
 package com.freedata.plates.web.rest.errors;
 
+import com.freedata.plates.security.PasswordHashingRejectedException;
+
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/exception-translator-test")
@@ -40,6 +44,22 @@ public class ExceptionTranslatorTestController {
         throw new BadCredentialsException("test authentication failed!");
     }
 
+    @GetMapping("/password-hashing-rejected")
+    public void passwordHashingRejected() {
+        throw new PasswordHashingRejectedException("test password hashing rejected", new RejectedExecutionException());
+    }
+
+    @GetMapping("/password-hashing-rejected-during-authentication")
+    public void passwordHashingRejectedDuringAuthentication() {
+        throw new InternalAuthenticationServiceException("test internal authentication failure",
+            new PasswordHashingRejectedException("test password hashing rejected", new RejectedExecutionException()));
+    }
+
+    @GetMapping("/internal-authentication-failure")
+    public void internalAuthenticationFailure() {
+        throw new InternalAuthenticationServiceException("test internal authentication failure");
+    }
+
     @GetMapping("/response-status")
     public void exceptionWithResponseStatus() {
         throw new TestResponseStatusException();